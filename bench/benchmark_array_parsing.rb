@@ -0,0 +1,40 @@
+require File.expand_path('setup', File.dirname(__FILE__))
+require 'arjdbc/postgresql/base/array_parser'
+
+# NOTE: compares (PostgreSQL) array literal parsing in Java with the (pure) Ruby ArrayParser
+# e.g. TIMES=100000 jruby bench/benchmark_array_parsing.rb
+
+ruby_parser = Object.new.extend(ActiveRecord::ConnectionAdapters::PostgreSQL::ArrayParser)
+
+values = {
+  'tags' => '{' + ( 1..20 ).map { |i| "tag-#{i}" }.join(',') + '}',
+  'jsonb' => '{' + ( 1..10 ).map { |i| %("{\\"id\\": #{i}, \\"name\\": \\"item #{i}\\"}") }.join(',') + '}',
+  'nested' => '{' + ( 1..10 ).map { |i| "{#{i},NULL,\"#{i} x\"}" }.join(',') + '}',
+}
+
+BenchTestHelper.gc
+
+Benchmark.bmbm do |x|
+
+  values.each do |label, value|
+    x.report("ArrayParser#parse_pg_array(#{label}) [#{TIMES}x]") do
+      TIMES.times { ruby_parser.parse_pg_array(value) }
+    end
+    x.report("ArJdbc::PostgreSQL.parse_pg_array(#{label}) [#{TIMES}x]") do
+      TIMES.times { ArJdbc::PostgreSQL.parse_pg_array(value) }
+    end
+  end
+
+end
+
+if ENV['AR_ADAPTER'].to_s.start_with?('postgres')
+  connection = ActiveRecord::Base.connection
+  sql = "SELECT ARRAY(SELECT 'tag-' || j FROM generate_series(1, 20) j)::varchar[] FROM generate_series(1, #{DATA_SIZE}) i"
+  Benchmark.bmbm do |x|
+    x.report("select_rows(#{DATA_SIZE} varchar[] tags) [#{TIMES / 1000 + 1}x]") do
+      ( TIMES / 1000 + 1 ).times { connection.select_rows(sql) }
+    end
+  end
+end
+
+puts "\n"
@@ -0,0 +1,35 @@
+require File.expand_path('record', File.dirname(__FILE__))
+
+BenchTestHelper.gc
+
+Benchmark.bmbm do |x|
+
+  connection = BenchRecord.connection
+  sql = 'INSERT INTO bench_records (a_integer, a_string) VALUES (?, ?)'
+  integer = ActiveModel::Type::Integer.new; string = ActiveModel::Type::String.new
+  binds_list = Array.new(DATA_SIZE) do |i|
+    [ ActiveRecord::Relation::QueryAttribute.new('a_integer', i, integer),
+      ActiveRecord::Relation::QueryAttribute.new('a_string', "string #{i}", string) ]
+  end
+
+  x.report("connection.exec_insert(sql, nil, binds) [#{DATA_SIZE}x]") do
+    connection.transaction do
+      binds_list.each { |binds| connection.exec_insert(sql, nil, binds) }
+    end
+  end
+
+  x.report("connection.exec_batch(sql, nil, binds_list) [#{DATA_SIZE}x]") do
+    connection.transaction do
+      connection.exec_batch(sql, nil, binds_list)
+    end
+  end
+
+  x.report("connection.exec_batch(sql, nil, binds_list, batch_size: 100) [#{DATA_SIZE}x]") do
+    connection.transaction do
+      connection.exec_batch(sql, nil, binds_list, batch_size: 100)
+    end
+  end
+
+end
+
+puts "\n"
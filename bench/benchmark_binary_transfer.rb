@@ -0,0 +1,57 @@
+require File.expand_path('setup', File.dirname(__FILE__))
+
+# NOTE: compares (PostgreSQL) wide numeric and timestamp scans with binary_transfer: true vs false
+# e.g. DATA_SIZE=10000 TIMES=100 jruby bench/benchmark_binary_transfer.rb
+
+class BinaryBenchRecord < ActiveRecord::Base
+  self.table_name = 'bench_numerics'
+  establish_connection connection_config.merge(:binary_transfer => true)
+end
+
+class TextBenchRecord < ActiveRecord::Base
+  self.table_name = 'bench_numerics'
+  establish_connection BinaryBenchRecord.connection_config.merge(:binary_transfer => false)
+end
+
+connection = BinaryBenchRecord.connection
+connection.drop_table(:bench_numerics) if connection.table_exists?(:bench_numerics)
+connection.create_table(:bench_numerics) do |t|
+  t.integer :an_int; t.integer :another_int, :limit => 2
+  t.bigint :a_bigint; t.bigint :another_bigint
+  t.float :a_float; t.float :another_float
+  t.datetime :a_timestamp; t.datetime :another_timestamp
+  t.date :a_date
+end
+
+BenchTestHelper.do_yield "insert #{DATA_SIZE} bench_numerics" do
+  connection.execute "INSERT INTO bench_numerics " <<
+    "(an_int, another_int, a_bigint, another_bigint, a_float, another_float, a_timestamp, another_timestamp, a_date) " <<
+    "SELECT i, i % 1000, i * 100000000, -i, i / 3.0, i * 1.5, now() - (i || ' seconds')::interval, " <<
+    "now() + (i || ' minutes')::interval, current_date - i FROM generate_series(1, #{DATA_SIZE}) i"
+end
+
+BenchTestHelper.gc
+
+# NOTE: binary transfer is only used with server prepared statements (after prepareThreshold executions)
+sql = 'SELECT * FROM bench_numerics WHERE id > $1'
+binds = [ ActiveRecord::Relation::QueryAttribute.new('id', 0, ActiveModel::Type::Integer.new) ]
+
+Benchmark.bmbm do |x|
+
+  total = BinaryBenchRecord.count
+
+  { 'binary' => BinaryBenchRecord.connection, 'text' => TextBenchRecord.connection }.each do |label, conn|
+
+    10.times { conn.exec_query(sql, 'SQL', binds) } # warm-up (server prepare)
+
+    x.report("#{label} exec_query('#{sql}') [#{total} rows #{TIMES}x]") do
+      TIMES.times do
+        conn.exec_query(sql, 'SQL', binds).rows
+      end
+    end
+
+  end
+
+end
+
+puts "\n"
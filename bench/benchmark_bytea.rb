@@ -0,0 +1,41 @@
+require File.expand_path('setup', File.dirname(__FILE__))
+
+# NOTE: compares (PostgreSQL) bytea hex decoding with the driver's PGbytea
+# e.g. TIMES=100 DATA_SIZE=1000000 jruby bench/benchmark_bytea.rb
+
+PGbytea = Java::org.postgresql.util.PGbytea
+
+values = {
+  'small' => '\x' + ( '0123456789abcdef' * 8 ),
+  'large' => '\x' + ( '00ff7f80' * ( DATA_SIZE / 4 ) ),
+  'escaped' => 'abc\\000\\377\\\\' * 8,
+}
+
+BenchTestHelper.gc
+
+Benchmark.bmbm do |x|
+
+  values.each do |label, value|
+    bytes = value.to_java_bytes
+
+    x.report("PGbytea.toBytes(#{label} #{value.bytesize} bytes) [#{TIMES}x]") do
+      TIMES.times { String.from_java_bytes PGbytea.toBytes(bytes) }
+    end
+    x.report("unescape_bytea(#{label} #{value.bytesize} bytes) [#{TIMES}x]") do
+      TIMES.times { ArJdbc::PostgreSQL.unescape_bytea(value) }
+    end
+  end
+
+end
+
+if ENV['AR_ADAPTER'].to_s.start_with?('postgres')
+  connection = ActiveRecord::Base.connection
+  sql = "SELECT decode(repeat('00ff7f80', #{DATA_SIZE / 4}), 'hex') FROM generate_series(1, 10)"
+  Benchmark.bmbm do |x|
+    x.report("select_rows(10 x #{DATA_SIZE} bytes bytea) [#{TIMES}x]") do
+      TIMES.times { connection.select_rows(sql) }
+    end
+  end
+end
+
+puts "\n"
@@ -0,0 +1,41 @@
+require File.expand_path('record', File.dirname(__FILE__))
+
+# NOTE: meant to be run with a larger data set e.g. DATA_SIZE=10000 TIMES=100
+BenchTestHelper.generate_records
+
+class LazyBenchRecord < ActiveRecord::Base
+  self.table_name = 'bench_records'
+  establish_connection BenchRecord.connection_config.merge(:lazy_results => true)
+end
+
+BenchTestHelper.gc
+
+Benchmark.bmbm do |x|
+
+  total = BenchRecord.count
+
+  { 'eager' => BenchRecord.connection, 'lazy' => LazyBenchRecord.connection }.each do |label, connection|
+
+    x.report("#{label} select_all('SELECT * FROM bench_records').first [#{total} rows #{TIMES}x]") do
+      TIMES.times do
+        connection.select_all('SELECT * FROM bench_records').first
+      end
+    end
+
+    x.report("#{label} select_all('SELECT * FROM bench_records').length [#{total} rows #{TIMES}x]") do
+      TIMES.times do
+        connection.select_all('SELECT * FROM bench_records').length
+      end
+    end
+
+    x.report("#{label} select_all('SELECT * FROM bench_records').to_a [#{total} rows #{TIMES}x]") do
+      TIMES.times do
+        connection.select_all('SELECT * FROM bench_records').to_a
+      end
+    end
+
+  end
+
+end
+
+puts "\n"
@@ -0,0 +1,33 @@
+require File.expand_path('record', File.dirname(__FILE__))
+
+# NOTE: meant to be run with a larger data set e.g. DATA_SIZE=10000 TIMES=10
+BenchTestHelper.generate_records
+
+BenchTestHelper.gc
+
+Benchmark.bmbm do |x|
+
+  total = BenchRecord.count
+  connection = BenchRecord.connection
+
+  x.report("connection.exec_query('SELECT * FROM bench_records') [#{total} rows #{TIMES}x]") do
+    TIMES.times do
+      connection.exec_query('SELECT * FROM bench_records')
+    end
+  end
+
+  x.report("connection.select_rows('SELECT * FROM bench_records') [#{total} rows #{TIMES}x]") do
+    TIMES.times do
+      connection.select_rows('SELECT * FROM bench_records')
+    end
+  end
+
+  x.report("BenchRecord.all.load [#{total} rows #{TIMES}x]") do
+    TIMES.times do
+      BenchRecord.all.load
+    end
+  end
+
+end
+
+puts "\n"
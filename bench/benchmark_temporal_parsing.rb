@@ -0,0 +1,55 @@
+require File.expand_path('setup', File.dirname(__FILE__))
+
+# NOTE: compares (PostgreSQL) temporal parsing of the raw value bytes with the previous
+# path of decoding a String first, e.g. TIMES=100000 jruby bench/benchmark_temporal_parsing.rb
+
+DateTimeUtils = Java::arjdbc.util.DateTimeUtils
+
+context = JRuby.runtime.getCurrentContext
+zone = org.joda.time.DateTimeZone::UTC
+us_ascii = java.nio.charset.StandardCharsets::US_ASCII
+
+values = {
+  'timestamp' => '2018-03-11 02:30:15.123456',
+  'timestamptz' => '2018-03-11 02:30:15.123456+01',
+  'timestamp BC' => '0001-12-31 22:59:59 BC',
+  'date' => '2018-03-11',
+}
+
+BenchTestHelper.gc
+
+Benchmark.bmbm do |x|
+
+  values.each do |label, value|
+    bytes = value.to_java_bytes
+
+    if label == 'date'
+      x.report("String parseDate('#{value}') [#{TIMES}x]") do
+        TIMES.times { DateTimeUtils.parseDate(context, java.lang.String.new(bytes, us_ascii), zone) }
+      end
+      x.report("byte[] parseDate('#{value}') [#{TIMES}x]") do
+        TIMES.times { DateTimeUtils.parseDate(context, bytes, 0, bytes.length, zone) }
+      end
+    else
+      x.report("String parseDateTime('#{value}') [#{TIMES}x]") do
+        TIMES.times { DateTimeUtils.parseDateTime(context, java.lang.String.new(bytes, us_ascii), zone) }
+      end
+      x.report("byte[] parseDateTime('#{value}') [#{TIMES}x]") do
+        TIMES.times { DateTimeUtils.parseDateTime(context, bytes, 0, bytes.length, zone) }
+      end
+    end
+  end
+
+end
+
+if ENV['AR_ADAPTER'].to_s.start_with?('postgres')
+  connection = ActiveRecord::Base.connection
+  sql = "SELECT now() + (i || ' seconds')::interval AS ts, current_date + i AS d FROM generate_series(1, #{DATA_SIZE}) i"
+  Benchmark.bmbm do |x|
+    x.report("select_rows(#{DATA_SIZE} timestamps and dates) [#{TIMES / 1000 + 1}x]") do
+      ( TIMES / 1000 + 1 ).times { connection.select_rows(sql) }
+    end
+  end
+end
+
+puts "\n"
@@ -0,0 +1,59 @@
+require File.expand_path('setup', File.dirname(__FILE__))
+
+# NOTE: compares (MySQL) string extraction with fast_strings: true (default) vs false
+# e.g. AR_ADAPTER=mysql2 DATA_SIZE=10000 TIMES=100 jruby bench/benchmark_text_strings.rb
+
+class TextBenchRecord < ActiveRecord::Base
+  self.table_name = 'bench_texts'
+end
+
+class SlowTextBenchRecord < ActiveRecord::Base
+  self.table_name = 'bench_texts'
+  establish_connection TextBenchRecord.connection_config.merge(:fast_strings => false)
+end
+
+connection = TextBenchRecord.connection
+connection.drop_table(:bench_texts) if connection.table_exists?(:bench_texts)
+connection.create_table(:bench_texts) do |t|
+  t.string :a_name
+  t.string :a_title
+  t.text :a_body
+  t.text :a_summary
+end
+
+BenchTestHelper.do_yield "insert #{DATA_SIZE} bench_texts" do
+  DATA_SIZE.times do |i|
+    TextBenchRecord.create!(
+      :a_name => "name #{i} žluťoučký kůň",
+      :a_title => "title #{i} " * 10,
+      :a_body => "Lorem ipsum dolor sit amet, consectetur adipisicing elit – #{i} " * 50,
+      :a_summary => "summary éè #{i} " * 20
+    )
+  end
+end
+
+BenchTestHelper.gc
+
+Benchmark.bmbm do |x|
+
+  total = TextBenchRecord.count
+
+  { 'fast_strings' => TextBenchRecord.connection, 'decoded' => SlowTextBenchRecord.connection }.each do |label, conn|
+
+    x.report("#{label} select_rows('SELECT * FROM bench_texts') [#{total} rows #{TIMES}x]") do
+      TIMES.times do
+        conn.select_rows('SELECT * FROM bench_texts')
+      end
+    end
+
+    x.report("#{label} exec_query('SELECT a_body FROM bench_texts') [#{total} rows #{TIMES}x]") do
+      TIMES.times do
+        conn.exec_query('SELECT a_body FROM bench_texts').rows
+      end
+    end
+
+  end
+
+end
+
+puts "\n"
@@ -27,12 +27,55 @@ module ArJdbc
         else
           log(sql, name, binds) do
             # It seems that #supports_statement_cache? is defined but isn't checked before setting "prepare" (AR 5.0)
-            cached_statement = fetch_cached_statement(sql) if prepare && supports_statement_cache?
-            @connection.execute_prepared_query(sql, binds, cached_statement)
+            @connection.execute_prepared_query(sql, binds, prepare && supports_statement_cache?)
           end
         end
       end
 
+      # Executes a query on a background thread, returning a future for the result.
+      # With a `jdbc_pool` configured queries run on separate (pooled) connections
+      # thus several (independent) queries might be in-flight at once.
+      # @note without a `jdbc_pool` the query is executed synchronously
+      # @return [AsyncQuery] whose `value` is an [ActiveRecord::Result]
+      def exec_query_async(sql, name = nil, binds = NO_BINDS)
+        binds = NO_BINDS if without_prepared_statement?(binds)
+        AsyncQuery.new(self, @connection.execute_query_async(sql, binds), sql, name, binds)
+      end
+
+      # A (pending) asynchronous query result.
+      class AsyncQuery
+
+        def initialize(adapter, future, sql, name, binds)
+          @adapter, @future = adapter, future
+          @sql, @name, @binds = sql, name, binds
+        end
+
+        # Waits for the query (errors are raised as usual e.g. `StatementInvalid`).
+        # @param timeout [Numeric] seconds to wait for (nil waits until done)
+        # @return [ActiveRecord::Result]
+        def value(timeout = nil)
+          @adapter.send(:log, @sql, @name, @binds) { @future.value(timeout) }
+        end
+
+        # Cancels the query (the running JDBC statement gets cancelled).
+        def cancel; @future.cancel end
+
+        def done?; @future.done? end
+
+        def cancelled?; @future.cancelled? end
+
+      end
+
+      # Executes a prepared statement once for each of the given binds using
+      # JDBC batching (sending `batch_size` statements to the database at once).
+      # A failure is not re-tried (on a new connection) once part of the batch got sent.
+      # @return [Array] update counts (nil if unknown), with `generated_keys: true`
+      #   a pair of update counts and an [ActiveRecord::Result] of the generated keys
+      def exec_batch(sql, name = nil, binds_list = [], batch_size: nil, generated_keys: false)
+        options = { batch_size: batch_size, generated_keys: generated_keys }
+        log(sql, name) { @connection.execute_batch(sql, binds_list, options) }
+      end
+
       def exec_update(sql, name = nil, binds = NO_BINDS)
         if without_prepared_statement?(binds)
           log(sql, name) { @connection.execute_update(sql) }
@@ -61,10 +104,50 @@ module ArJdbc
         super
       end
 
+      # Streams a (large) query result, rows are fetched (`fetch_size` at a time)
+      # while yielding thus the whole result is never loaded into memory.
+      # Yields a Hash per row or an Array of (up to `batch_size`) row hashes.
+      # @note the connection should not be used from within the block, with MySQL
+      #   (unless `properties: { useCursorFetch: true }`) rows are streamed one by one
+      #   and the driver fails any other statement on the connection until done
+      # @return [Integer] the number of streamed rows
+      def stream_query(sql, name = nil, binds = NO_BINDS, fetch_size: nil, batch_size: nil, &block)
+        raise ArgumentError, 'stream_query requires a block' unless block_given?
+        options = { fetch_size: fetch_size, batch_size: batch_size }
+        log(sql, name, binds) { @connection.stream_query(sql, binds, options, &block) }
+      end
+
       def execute(sql, name = nil)
         log(sql, name) { @connection.execute(sql) }
       end
 
+      # Runs the block with (low-cardinality) string columns being dictionary
+      # encoded: equal values within a result column share a frozen String.
+      # A column stops being encoded once it has more than `max_size` distinct
+      # values, its values are still frozen (but no longer shared) from there on.
+      # Can also be turned on for all queries with `dictionary_strings: true`.
+      def with_dictionary_strings(max_size = true)
+        previous = @connection.dictionary_strings
+        @connection.dictionary_strings = max_size
+        begin
+          yield
+        ensure
+          @connection.dictionary_strings = previous
+        end
+      end
+
+      # Executes the block with the given (statement) timeout in seconds applied
+      # to all statements, overriding the configured `statement_timeout`.
+      def with_statement_timeout(timeout)
+        previous = @connection.statement_timeout
+        @connection.statement_timeout = timeout
+        begin
+          yield
+        ensure
+          @connection.statement_timeout = previous
+        end
+      end
+
       # overridden to support legacy binds
       def select_all(arel, name = nil, binds = NO_BINDS, preparable: nil)
         binds = convert_legacy_binds_to_attributes(binds) if binds.first.is_a?(Array)
@@ -4,9 +4,7 @@ module ArJdbc
   module Abstract
     module StatementCache
 
-      # This works a little differently than the AR implementation in that
-      # we are storing an actual PreparedStatement object instead of just
-      # the name of the prepared statement
+      # @deprecated prepared statements are cached by the (Java) connection
       class StatementPool < ActiveRecord::ConnectionAdapters::StatementPool
 
         private
@@ -21,38 +19,29 @@ module ArJdbc
         super
 
         # Only say we support the statement cache if we are using prepared statements
-        # and have a max number of statements defined
-        statement_limit = self.class.type_cast_config_to_integer(config[:statement_limit])
-        @jdbc_statement_cache_enabled = config[:prepared_statements] && (statement_limit.nil? || statement_limit > 0)
-
-        @statements = StatementPool.new(statement_limit) # AR (5.0) expects this to be stored as @statements
+        # and have a max number of statements defined (`statement_limit: 0` disables it).
+        # The statements are cached (as a bounded LRU) by the JDBC connection itself.
+        @jdbc_statement_cache_enabled = @connection.statement_cache?
       end
 
       # Clears the prepared statements cache.
       def clear_cache!
-        @statements.clear
+        @connection.clear_statement_cache
       end
 
       def delete_cached_statement(sql)
-        @statements.delete(cached_statement_key(sql))
+        @connection.delete_cached_statement(sql)
       end
 
-      def fetch_cached_statement(sql)
-        @statements[cached_statement_key(sql)] ||= @connection.connection.prepare_statement(sql)
+      # @return [Hash, nil] statement cache hits, misses, evictions, size and limit
+      def statement_cache_stats
+        @connection.statement_cache_stats
       end
 
       def supports_statement_cache?
         @jdbc_statement_cache_enabled
       end
 
-      private
-
-      # This should be overridden by the adapter if the sql itself
-      # is not enough to make the key unique
-      def cached_statement_key(sql)
-        sql
-      end
-
     end
   end
 end
@@ -8,6 +8,7 @@ require 'arjdbc/jdbc/error'
 require 'arjdbc/jdbc/connection_methods'
 require 'arjdbc/jdbc/column'
 require 'arjdbc/jdbc/connection'
+require 'arjdbc/jdbc/lazy_result'
 require 'arjdbc/jdbc/callbacks'
 require 'arjdbc/jdbc/extension'
 require 'arjdbc/jdbc/type_converter'
@@ -0,0 +1,49 @@
+require 'active_record/result'
+
+module ArJdbc
+  # A result that only converts (Java-side buffered) rows once accessed.
+  # Used when a connection is configured with `lazy_results: true`, behaves
+  # as an `ActiveRecord::Result` but `length`, `empty?`, `first` and `last`
+  # do not need to convert all the rows.
+  # Only columns with a raw (Java-side) representation are converted lazily,
+  # e.g. numbers, booleans and (non re-defined) strings and decimals - others
+  # are converted while reading the rows.
+  # @private
+  class LazyResult < ::ActiveRecord::Result
+
+    def initialize(columns, lazy_rows, column_types = {})
+      super(columns, nil, column_types)
+      @lazy_rows = lazy_rows
+    end
+
+    def rows
+      @rows ||= @lazy_rows.to_a
+    end
+
+    def length
+      @rows ? @rows.length : @lazy_rows.length
+    end
+
+    def empty?
+      length == 0
+    end
+
+    def first
+      return nil if empty?
+      Hash[@columns.zip(@rows ? @rows.first : @lazy_rows[0])]
+    end
+
+    def last
+      return nil if empty?
+      Hash[@columns.zip(@rows ? @rows.last : @lazy_rows[-1])]
+    end
+
+    private
+
+    def hash_rows
+      rows # materialize @rows
+      super
+    end
+
+  end
+end
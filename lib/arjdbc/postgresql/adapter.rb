@@ -325,7 +325,7 @@ module ArJdbc
     alias index_name_length max_identifier_length
 
     def exec_insert(sql, name, binds, pk = nil, sequence_name = nil)
-      val = super
+      val = with_cached_plan_retry(sql) { super }
       if !use_insert_returning? && pk
         unless sequence_name
           table_ref = extract_table_ref_from_insert_sql(sql)
@@ -485,6 +485,30 @@ module ArJdbc
       execute "TRUNCATE TABLE #{quote_table_name(table_name)}", name
     end
 
+    # Bulk loads rows using `COPY table (columns) FROM STDIN`, rows are streamed
+    # from an IO (read in chunks) or an enumerable yielding formatted lines or
+    # row arrays (which get formatted according to the COPY format).
+    # @param columns [Array, nil] column names (all table columns when nil)
+    # @param format [Symbol] :text (default), :csv or :binary
+    # @return [Integer] the number of rows copied
+    def copy_from(table_name, columns, source, format: :text)
+      log("COPY #{quote_table_name(table_name)} FROM STDIN", 'COPY') do
+        @connection.copy_from(table_name, columns, source, format: format)
+      end
+    end
+
+    # Exports a table (or a query's rows) using `COPY ... TO STDOUT`, data is
+    # streamed in chunks into the given IO (or yielded to the block).
+    # @param source [String, Symbol] a table name or a (SELECT) query
+    # @param format [Symbol] :text (default), :csv or :binary
+    # @return [Integer] the number of rows copied
+    def copy_to(source, io = nil, format: :text, &block)
+      sql = source.is_a?(String) && source.strip.index(/\s/) ? "(#{source})" : quote_table_name(source)
+      log("COPY #{sql} TO STDOUT", 'COPY') do
+        @connection.copy_to(source, io, format: format, &block)
+      end
+    end
+
     # Returns an array of indexes for the given table.
     def indexes(table_name)
 
@@ -699,9 +723,20 @@ module ActiveRecord::ConnectionAdapters
     end
 
     def exec_query(sql, name = nil, binds = [], prepare: false)
-      super
+      with_cached_plan_retry(sql) { super }
+    end
+
+    # (cached) prepared statements are used for updates as well
+    def exec_update(sql, name = nil, binds = [])
+      with_cached_plan_retry(sql) { super }
+    end
+    alias :exec_delete :exec_update
+
+    # A cached (prepared) statement gets invalid once the result type changes e.g. on a table change
+    def with_cached_plan_retry(sql)
+      yield
     rescue ActiveRecord::StatementInvalid => e
-      raise unless e.cause.message.include?('cached plan must not change result type'.freeze)
+      raise unless e.cause && e.cause.message.include?('cached plan must not change result type'.freeze)
 
       if open_transactions > 0
         # In a transaction, have to fail it - See AR code for details
@@ -712,6 +747,14 @@ module ActiveRecord::ConnectionAdapters
         retry
       end
     end
+    private :with_cached_plan_retry
+
+    # Prepared statements aren't schema aware so we need to make sure cached
+    # statements (prepared for another schema) are not re-used
+    def schema_search_path=(schema_csv)
+      @connection.clear_statement_cache if schema_csv && schema_csv != @schema_search_path
+      super
+    end
 
     public :sql_for_insert
 
@@ -719,13 +762,5 @@ module ActiveRecord::ConnectionAdapters
       ::ArJdbc::PostgreSQL.jdbc_connection_class
     end
 
-    private
-
-    # Prepared statements aren't schema aware so we need to make sure we
-    # store different PreparedStatement objects for different schemas
-    def cached_statement_key(sql)
-      "#{schema_search_path}-#{sql}"
-    end
-
   end
 end
@@ -4,19 +4,27 @@ module ActiveRecord::ConnectionAdapters::PostgreSQL::OID
     module PG
       module TextDecoder
         class Array
-          # Loads pg_array_parser if available. String parsing can be
-          # performed quicker by a native extension, which will not create
-          # a large amount of Ruby objects that will need to be garbage
-          # collected. pg_array_parser has a C and Java extension
-          begin
-            require 'pg_array_parser'
-            include PgArrayParser
-          rescue LoadError
-            require_relative 'array_parser'
-            include ActiveRecord::ConnectionAdapters::PostgreSQL::ArrayParser
+          # Array literals are parsed natively (ArJdbc::PostgreSQL.parse_pg_array)
+          # in a single pass over the string's bytes. In case the Java part is
+          # not available loads pg_array_parser (has a C and Java extension) or
+          # falls back to parsing using (pure) Ruby.
+          if ::ArJdbc::PostgreSQL.respond_to?(:parse_pg_array)
+            def parse_pg_array(string)
+              ::ArJdbc::PostgreSQL.parse_pg_array(string, @delimiter)
+            end
+          else
+            begin
+              require 'pg_array_parser'
+              include PgArrayParser
+            rescue LoadError
+              require_relative 'array_parser'
+              include ActiveRecord::ConnectionAdapters::PostgreSQL::ArrayParser
+            end
           end
 
-          def initialize(name:, delimiter:); end
+          def initialize(name:, delimiter:)
+            @delimiter = delimiter
+          end
 
           alias_method :decode, :parse_pg_array
         end
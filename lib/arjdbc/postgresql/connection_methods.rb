@@ -54,6 +54,18 @@ ArJdbc::ConnectionMethods.module_eval do
     # If prepared statements are off, lets make sure they are really *off*
     properties['prepareThreshold'] ||= 0 unless config[:prepared_statements]
 
+    # binary transfer (of server prepared statements) - values decoded without a String :
+    #   binary_transfer: true (numeric and temporal types) or a list e.g. [ 'INT4', 'TIMESTAMP' ]
+    binary_transfer = config[:binary_transfer]
+    unless binary_transfer.nil? # nil - driver defaults
+      properties['binaryTransfer'] ||= ( binary_transfer != false ).to_s
+      if binary_transfer == true
+        properties['binaryTransferEnable'] ||= 'INT2,INT4,INT8,FLOAT4,FLOAT8,DATE,TIME,TIMESTAMP,TIMESTAMPTZ,BYTEA,UUID'
+      elsif binary_transfer
+        properties['binaryTransferEnable'] ||= Array(binary_transfer).join(',')
+      end
+    end
+
     jdbc_connection(config)
   end
   alias_method :jdbcpostgresql_connection, :postgresql_connection
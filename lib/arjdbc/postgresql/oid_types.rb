@@ -60,6 +60,7 @@ module ArJdbc
         if ( @type_map ||= nil )
           @type_map.clear
           initialize_type_map(@type_map)
+          @connection.clear_bind_types if @connection # memoized (Java) bind types
         end
       end
 
@@ -33,6 +33,7 @@ import org.jruby.NativeException;
 import org.jruby.Ruby;
 import org.jruby.RubyArray;
 import org.jruby.RubyClass;
+import org.jruby.RubyHash;
 import org.jruby.RubyModule;
 import org.jruby.RubyString;
 import org.jruby.anno.JRubyMethod;
@@ -43,6 +44,7 @@ import org.jruby.runtime.builtin.IRubyObject;
 import org.jruby.util.ByteList;
 
 import arjdbc.jdbc.RubyJdbcConnection;
+import arjdbc.jdbc.StatementStats;
 import static arjdbc.jdbc.RubyJdbcConnection.getJdbcConnection;
 
 /**
@@ -277,6 +279,26 @@ public class ArJdbcModule {
         return new RaiseException(cause, nativeException);
     }
 
+    /**
+     * <code>ArJdbc.statement_stats</code>
+     * @param context
+     * @param self
+     * @return statement stats (fingerprint => stats), empty unless enabled
+     * @see arjdbc.jdbc.StatementStats
+     */
+    @JRubyMethod(name = "statement_stats", meta = true)
+    public static IRubyObject statement_stats(final ThreadContext context, final IRubyObject self) {
+        final StatementStats stats = StatementStats.getStatementStatsIfAny(context.runtime);
+        return stats == null ? RubyHash.newHash(context.runtime) : stats.toStatsHash(context);
+    }
+
+    @JRubyMethod(name = "reset_statement_stats", meta = true)
+    public static IRubyObject reset_statement_stats(final ThreadContext context, final IRubyObject self) {
+        final StatementStats stats = StatementStats.getStatementStatsIfAny(context.runtime);
+        if ( stats != null ) stats.reset();
+        return context.nil;
+    }
+
     @JRubyMethod(meta = true)
     public static IRubyObject with_meta_data_from_data_source_if_any(final ThreadContext context,
         final IRubyObject self, final IRubyObject config, final Block block) {
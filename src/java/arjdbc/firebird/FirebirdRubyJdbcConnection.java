@@ -81,18 +81,32 @@ public class FirebirdRubyJdbcConnection extends RubyJdbcConnection {
         }
     }
 
-    protected IRubyObject jdbcToRuby(
-        final ThreadContext context, final Ruby runtime,
-        final int column, final int type, final ResultSet resultSet)
-        throws SQLException {
-
+    protected ColumnConverter newColumnConverter(final int type) {
         switch (type) {
         case SMALL_CHAR_1:
-            return smallChar1ToRuby(runtime, resultSet, column);
+            return new SmallChar1Converter();
         case SMALL_CHAR_2:
+            return new SmallChar2Converter();
+        }
+        return super.newColumnConverter(type);
+    }
+
+    private final class SmallChar1Converter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return smallChar1ToRuby(runtime, resultSet, column);
+        }
+
+    }
+
+    private final class SmallChar2Converter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
             return smallChar2ToRuby(runtime, resultSet, column);
         }
-        return super.jdbcToRuby(context, runtime, column, type, resultSet);
+
     }
 
     private static IRubyObject smallChar1ToRuby(
@@ -65,11 +65,8 @@ public class InformixRubyJdbcConnection extends RubyJdbcConnection {
      * Treat LONGVARCHAR as CLOB on Informix for purposes of converting a JDBC value to Ruby.
      */
     @Override
-    protected IRubyObject jdbcToRuby(
-        final ThreadContext context, final Ruby runtime,
-        final int column, int type, final ResultSet resultSet)
-        throws SQLException {
+    protected ColumnConverter newColumnConverter(int type) {
         if ( type == Types.LONGVARCHAR ) type = Types.CLOB;
-        return super.jdbcToRuby(context, runtime, column, type, resultSet);
+        return super.newColumnConverter(type);
     }
 }
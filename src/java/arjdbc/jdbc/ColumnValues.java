@@ -0,0 +1,257 @@
+package arjdbc.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.jruby.ext.bigdecimal.RubyBigDecimal;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+
+import arjdbc.util.StringHelper;
+
+/**
+ * Values of a single result column, as used by a (columnar) {@link JdbcResult}.
+ *
+ * Implementations keep the values read from the JDBC result set in primitive
+ * form (e.g. a <code>long[]</code> with a NULL bitmap) and only create Ruby
+ * objects once a value is actually read.
+ */
+public abstract class ColumnValues {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    protected final BitSet nulls = new BitSet();
+    protected int size;
+
+    /**
+     * @return the number of values (rows) read
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Reads (and appends) the value of the current result set row.
+     * @param context current thread context
+     * @param resultSet the jdbc result set to pull the value from
+     * @param column the index of the column to read
+     * @throws SQLException if it fails to retrieve the value from the result set
+     */
+    public abstract void read(ThreadContext context, ResultSet resultSet, int column) throws SQLException;
+
+    /**
+     * @param context current thread context
+     * @param row the (zero based) row index
+     * @return the value (for the given row) as a Ruby object
+     */
+    public IRubyObject get(final ThreadContext context, final int row) {
+        if ( nulls.get(row) ) return context.nil;
+        return toRuby(context, row);
+    }
+
+    /**
+     * Converts a (non NULL) value into a Ruby object.
+     * @param context current thread context
+     * @param row the (zero based) row index
+     * @return value
+     */
+    protected abstract IRubyObject toRuby(ThreadContext context, int row);
+
+    protected static int newCapacity(final int capacity, final int minCapacity) {
+        int newCapacity = capacity + (capacity >> 1);
+        return newCapacity < minCapacity ? minCapacity : newCapacity;
+    }
+
+    /**
+     * Eagerly converted values, for columns without a raw representation
+     * (e.g. temporal values other than PostgreSQL's or re-defined converters).
+     */
+    static final class Converted extends ColumnValues {
+
+        private final RubyJdbcConnection.ColumnConverter converter;
+        private IRubyObject[] values = new IRubyObject[INITIAL_CAPACITY];
+
+        Converted(final RubyJdbcConnection.ColumnConverter converter) {
+            this.converter = converter;
+        }
+
+        @Override
+        public void read(final ThreadContext context, final ResultSet resultSet, final int column) throws SQLException {
+            if ( size == values.length ) values = Arrays.copyOf(values, newCapacity(size, size + 1));
+            values[ size++ ] = converter.toRuby(context, context.runtime, resultSet, column);
+        }
+
+        @Override
+        public IRubyObject get(final ThreadContext context, final int row) {
+            return values[row];
+        }
+
+        @Override
+        protected IRubyObject toRuby(final ThreadContext context, final int row) {
+            return values[row];
+        }
+
+    }
+
+    /**
+     * Integer values (read using <code>ResultSet#getLong</code>).
+     */
+    public static class Longs extends ColumnValues {
+
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        public void read(final ThreadContext context, final ResultSet resultSet, final int column) throws SQLException {
+            final long value = resultSet.getLong(column);
+            if ( size == values.length ) values = Arrays.copyOf(values, newCapacity(size, size + 1));
+            if ( value == 0 && resultSet.wasNull() ) nulls.set(size);
+            else values[size] = value;
+            size++;
+        }
+
+        @Override
+        protected IRubyObject toRuby(final ThreadContext context, final int row) {
+            return context.runtime.newFixnum(values[row]);
+        }
+
+    }
+
+    /**
+     * Floating point values (read using <code>ResultSet#getDouble</code>).
+     */
+    public static class Doubles extends ColumnValues {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        public void read(final ThreadContext context, final ResultSet resultSet, final int column) throws SQLException {
+            final double value = resultSet.getDouble(column);
+            if ( size == values.length ) values = Arrays.copyOf(values, newCapacity(size, size + 1));
+            if ( value == 0 && resultSet.wasNull() ) nulls.set(size);
+            else values[size] = value;
+            size++;
+        }
+
+        @Override
+        protected IRubyObject toRuby(final ThreadContext context, final int row) {
+            return context.runtime.newFloat(values[row]);
+        }
+
+    }
+
+    /**
+     * Boolean values (read using <code>ResultSet#getBoolean</code>).
+     */
+    public static class Booleans extends ColumnValues {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        public void read(final ThreadContext context, final ResultSet resultSet, final int column) throws SQLException {
+            final boolean value = resultSet.getBoolean(column);
+            if ( value == false && resultSet.wasNull() ) nulls.set(size);
+            else if ( value ) values.set(size);
+            size++;
+        }
+
+        @Override
+        protected IRubyObject toRuby(final ThreadContext context, final int row) {
+            return context.runtime.newBoolean(values.get(row));
+        }
+
+    }
+
+    /**
+     * String values (read using <code>ResultSet#getString</code>).
+     */
+    public static class Strings extends ColumnValues {
+
+        private String[] values = new String[INITIAL_CAPACITY];
+
+        @Override
+        public void read(final ThreadContext context, final ResultSet resultSet, final int column) throws SQLException {
+            final String value = resultSet.getString(column);
+            if ( size == values.length ) values = Arrays.copyOf(values, newCapacity(size, size + 1));
+            if ( value == null ) nulls.set(size);
+            else values[size] = value;
+            size++;
+        }
+
+        @Override
+        protected IRubyObject toRuby(final ThreadContext context, final int row) {
+            return StringHelper.newDefaultInternalString(context.runtime, values[row]);
+        }
+
+    }
+
+    /**
+     * Decimal values (read using <code>ResultSet#getBigDecimal</code>).
+     */
+    public static class Decimals extends ColumnValues {
+
+        private BigDecimal[] values = new BigDecimal[INITIAL_CAPACITY];
+
+        @Override
+        public void read(final ThreadContext context, final ResultSet resultSet, final int column) throws SQLException {
+            final BigDecimal value = resultSet.getBigDecimal(column);
+            if ( size == values.length ) values = Arrays.copyOf(values, newCapacity(size, size + 1));
+            if ( value == null ) nulls.set(size);
+            else values[size] = value;
+            size++;
+        }
+
+        @Override
+        protected IRubyObject toRuby(final ThreadContext context, final int row) {
+            return new RubyBigDecimal(context.runtime, values[row]);
+        }
+
+    }
+
+    /**
+     * Raw (byte) values, stored in a single slab (read using <code>ResultSet#getBytes</code>).
+     */
+    public static abstract class Bytes extends ColumnValues {
+
+        private byte[] bytes = new byte[INITIAL_CAPACITY * 16];
+        private int[] offsets = new int[INITIAL_CAPACITY + 1];
+
+        @Override
+        public void read(final ThreadContext context, final ResultSet resultSet, final int column) throws SQLException {
+            final byte[] value = readBytes(resultSet, column);
+            if ( size + 1 == offsets.length ) offsets = Arrays.copyOf(offsets, newCapacity(offsets.length, size + 2));
+            final int offset = offsets[size]; int end = offset;
+            if ( value == null ) nulls.set(size);
+            else {
+                end += value.length;
+                if ( end > bytes.length ) bytes = Arrays.copyOf(bytes, newCapacity(bytes.length, end));
+                System.arraycopy(value, 0, bytes, offset, value.length);
+            }
+            offsets[++size] = end;
+        }
+
+        @Override
+        protected IRubyObject toRuby(final ThreadContext context, final int row) {
+            final int offset = offsets[row];
+            return toRuby(context, bytes, offset, offsets[row + 1] - offset);
+        }
+
+        protected byte[] readBytes(final ResultSet resultSet, final int column) throws SQLException {
+            return resultSet.getBytes(column);
+        }
+
+        /**
+         * Converts a (non NULL) raw value into a Ruby object.
+         * @param context current thread context
+         * @param bytes the slab holding the value
+         * @param offset value offset (in the slab)
+         * @param length value length
+         * @return value
+         */
+        protected abstract IRubyObject toRuby(ThreadContext context, byte[] bytes, int offset, int length);
+
+    }
+
+}
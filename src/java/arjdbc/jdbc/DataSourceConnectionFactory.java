@@ -68,6 +68,18 @@ final class DataSourceConnectionFactory implements ConnectionFactory {
 
     @Override
     public Connection newConnection() throws SQLException {
+        final Object event = FlightEvents.begin(FlightEvents.CONNECTION_ACQUIRE);
+        try {
+            return connect();
+        }
+        finally {
+            if ( event != null ) {
+                FlightEvents.CONNECTION_ACQUIRE.commit(event, lookupName == null ? "DataSource" : lookupName, true);
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
         DataSource dataSource = this.dataSource;
         // in case DS failed previously look it up again from JNDI :
         if (dataSource == null) {
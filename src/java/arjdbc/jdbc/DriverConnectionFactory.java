@@ -53,7 +53,25 @@ final class DriverConnectionFactory implements ConnectionFactory {
 
     @Override
     public Connection newConnection() throws SQLException {
-        return driverWrapper.connect(url, username, password);
+        final Object event = FlightEvents.begin(FlightEvents.CONNECTION_ACQUIRE);
+        try {
+            return driverWrapper.connect(url, username, password);
+        }
+        finally {
+            if ( event != null ) FlightEvents.CONNECTION_ACQUIRE.commit(event, toString(), false);
+        }
+    }
+
+    private String safeURL;
+
+    /**
+     * @return the URL without user info and parameters (that might contain credentials)
+     */
+    @Override
+    public String toString() {
+        String url = safeURL;
+        if ( url == null ) safeURL = url = FlightEvents.url(this.url);
+        return url;
     }
 
     DriverWrapper getDriverWrapper() {
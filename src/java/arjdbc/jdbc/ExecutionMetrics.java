@@ -0,0 +1,259 @@
+package arjdbc.jdbc;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jruby.Finalizable;
+import org.jruby.Ruby;
+import org.jruby.RubyClass;
+import org.jruby.RubyHash;
+import org.jruby.RubyString;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+
+/**
+ * Execution metrics (counters and timers) of a connection.
+ *
+ * Each (metrics enabled) connection records into its own metrics which are
+ * also aggregated (per connection class) into a parent published as a JMX
+ * MBean, e.g. <code>arjdbc:type=ExecutionMetrics,name="ActiveRecord::ConnectionAdapters::PostgreSQLJdbcConnection"</code>.
+ * Connections only record metrics when enabled (<code>metrics: true</code>).
+ * MBeans get unregistered when the (JRuby) runtime tears down.
+ *
+ * Driver time is the time spent executing statements and fetching rows
+ * (<code>ResultSet#next</code>), conversion time is spent converting values.
+ */
+public final class ExecutionMetrics implements ExecutionMetricsMBean {
+
+    static final int EXECUTE = 0;
+    static final int QUERY = 1;
+    static final int INSERT = 2;
+    static final int UPDATE = 3;
+    static final int BATCH = 4;
+
+    private static final String[] KINDS = { "execute", "query", "insert", "update", "batch" };
+
+    /**
+     * @param kind statement kind e.g. {@link #QUERY}
+     * @return the kind name e.g. "query"
+     */
+    static String kindName(final int kind) {
+        return KINDS[kind];
+    }
+
+    private final ExecutionMetrics parent; // aggregate (null if this is the aggregate)
+    private ObjectName objectName; // registered MBean name (aggregate only)
+
+    private final AtomicLongArray counts = new AtomicLongArray(KINDS.length);
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong executeTime = new AtomicLong(); // nanos
+    private final AtomicLong fetchTime = new AtomicLong(); // nanos
+    private final AtomicLong conversionTime = new AtomicLong(); // nanos
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong cacheEvictions = new AtomicLong();
+
+    private ExecutionMetrics(final ExecutionMetrics parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @param runtime
+     * @param connectionClass the (Ruby) connection class metrics are aggregated for
+     * @return new (per connection) metrics
+     */
+    static ExecutionMetrics newMetrics(final Ruby runtime, final RubyClass connectionClass) {
+        return new ExecutionMetrics(getAggregate(runtime, connectionClass.getRealClass().getName()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ExecutionMetrics getAggregate(final Ruby runtime, final String name) {
+        final RubyClass JdbcConnection = RubyJdbcConnection.getJdbcConnection(runtime);
+        Map<String, ExecutionMetrics> aggregates;
+        synchronized (JdbcConnection) {
+            aggregates = (Map<String, ExecutionMetrics>) JdbcConnection.getInternalVariable("execution_metrics");
+            if ( aggregates == null ) {
+                aggregates = new ConcurrentHashMap<>();
+                JdbcConnection.setInternalVariable("execution_metrics", aggregates);
+                runtime.addInternalFinalizer(new MBeansUnregister(aggregates));
+            }
+        }
+        ExecutionMetrics aggregate = aggregates.get(name);
+        if ( aggregate == null ) {
+            synchronized (aggregates) {
+                aggregate = aggregates.get(name);
+                if ( aggregate == null ) {
+                    aggregate = new ExecutionMetrics(null);
+                    register(runtime, name, aggregate);
+                    aggregates.put(name, aggregate);
+                }
+            }
+        }
+        return aggregate;
+    }
+
+    private static void register(final Ruby runtime, final String name, final ExecutionMetrics metrics) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            String objectName = "arjdbc:type=ExecutionMetrics,name=" + ObjectName.quote(name);
+            if ( server.isRegistered(new ObjectName(objectName)) ) { // another runtime
+                objectName += ",runtime=" + Integer.toHexString(System.identityHashCode(runtime));
+            }
+            final ObjectName mbeanName = new ObjectName(objectName);
+            server.registerMBean(metrics, mbeanName);
+            metrics.objectName = mbeanName;
+        }
+        catch (Exception e) { // JMX not available (or a security manager denies)
+            RubyJdbcConnection.debugMessage(runtime, "failed to register metrics MBean: ", e);
+        }
+        catch (LinkageError e) {
+            RubyJdbcConnection.debugMessage(runtime, "failed to register metrics MBean: ", e);
+        }
+    }
+
+    private static void unregister(final ExecutionMetrics metrics) {
+        if ( metrics.objectName == null ) return; // failed to register
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(metrics.objectName);
+        }
+        catch (Exception e) { /* already unregistered */ }
+        metrics.objectName = null;
+    }
+
+    // NOTE: a runtime (internal) finalizer, run on teardown - not a GC finalizer
+    private static final class MBeansUnregister implements Finalizable {
+
+        private final Map<String, ExecutionMetrics> aggregates;
+
+        MBeansUnregister(final Map<String, ExecutionMetrics> aggregates) {
+            this.aggregates = aggregates;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation") // Finalizable#finalize overrides Object#finalize
+        public void finalize() {
+            synchronized (aggregates) {
+                for ( final ExecutionMetrics aggregate : aggregates.values() ) unregister(aggregate);
+                aggregates.clear();
+            }
+        }
+
+    }
+
+    final void executed(final int kind, final long nanos) {
+        counts.incrementAndGet(kind); executeTime.addAndGet(nanos);
+        if ( parent != null ) parent.executed(kind, nanos);
+    }
+
+    final void mapped(final int rowCount, final long byteCount, final long fetchNanos, final long conversionNanos) {
+        rows.addAndGet(rowCount); bytes.addAndGet(byteCount);
+        fetchTime.addAndGet(fetchNanos); conversionTime.addAndGet(conversionNanos);
+        if ( parent != null ) parent.mapped(rowCount, byteCount, fetchNanos, conversionNanos);
+    }
+
+    final void reconnected() {
+        reconnects.incrementAndGet();
+        if ( parent != null ) parent.reconnected();
+    }
+
+    final void retried() {
+        retries.incrementAndGet();
+        if ( parent != null ) parent.retried();
+    }
+
+    final void statementCacheHit() {
+        cacheHits.incrementAndGet();
+        if ( parent != null ) parent.statementCacheHit();
+    }
+
+    final void statementCacheMiss() {
+        cacheMisses.incrementAndGet();
+        if ( parent != null ) parent.statementCacheMiss();
+    }
+
+    final void statementCacheEviction() {
+        cacheEvictions.incrementAndGet();
+        if ( parent != null ) parent.statementCacheEviction();
+    }
+
+    /**
+     * @return the (converted) bytes of the string values in a row
+     */
+    static long byteSize(final IRubyObject[] values) {
+        long size = 0;
+        for ( final IRubyObject value : values ) {
+            if ( value instanceof RubyString ) size += ((RubyString) value).getByteList().length();
+        }
+        return size;
+    }
+
+    ExecutionMetrics getAggregate() {
+        return parent == null ? this : parent;
+    }
+
+    public long getExecuteCount() { return counts.get(EXECUTE); }
+    public long getQueryCount() { return counts.get(QUERY); }
+    public long getInsertCount() { return counts.get(INSERT); }
+    public long getUpdateCount() { return counts.get(UPDATE); }
+    public long getBatchCount() { return counts.get(BATCH); }
+
+    public long getRowsMapped() { return rows.get(); }
+    public long getBytesConverted() { return bytes.get(); }
+
+    public long getExecuteTime() { return millis(executeTime); }
+    public long getFetchTime() { return millis(fetchTime); }
+    public long getDriverTime() { return ( executeTime.get() + fetchTime.get() ) / 1000000; }
+    public long getConversionTime() { return millis(conversionTime); }
+
+    public long getReconnects() { return reconnects.get(); }
+    public long getRetries() { return retries.get(); }
+
+    public long getStatementCacheHits() { return cacheHits.get(); }
+    public long getStatementCacheMisses() { return cacheMisses.get(); }
+    public long getStatementCacheEvictions() { return cacheEvictions.get(); }
+
+    public void reset() {
+        for ( int i = 0; i < KINDS.length; i++ ) counts.set(i, 0);
+        rows.set(0); bytes.set(0);
+        executeTime.set(0); fetchTime.set(0); conversionTime.set(0);
+        reconnects.set(0); retries.set(0);
+        cacheHits.set(0); cacheMisses.set(0); cacheEvictions.set(0);
+    }
+
+    private static long millis(final AtomicLong nanos) {
+        return nanos.get() / 1000000;
+    }
+
+    RubyHash toStatsHash(final ThreadContext context) {
+        final Ruby runtime = context.runtime;
+        final RubyHash stats = RubyHash.newHash(runtime);
+        final RubyHash queries = RubyHash.newHash(runtime);
+        for ( int i = 0; i < KINDS.length; i++ ) {
+            queries.op_aset(context, runtime.newSymbol(KINDS[i]), runtime.newFixnum(counts.get(i)));
+        }
+        stats.op_aset(context, runtime.newSymbol("queries"), queries);
+        stats.op_aset(context, runtime.newSymbol("rows"), runtime.newFixnum(rows.get()));
+        stats.op_aset(context, runtime.newSymbol("bytes"), runtime.newFixnum(bytes.get()));
+        // times in (fractional) milliseconds :
+        stats.op_aset(context, runtime.newSymbol("execute_time"), runtime.newFloat(executeTime.get() / 1e6));
+        stats.op_aset(context, runtime.newSymbol("fetch_time"), runtime.newFloat(fetchTime.get() / 1e6));
+        stats.op_aset(context, runtime.newSymbol("driver_time"), runtime.newFloat((executeTime.get() + fetchTime.get()) / 1e6));
+        stats.op_aset(context, runtime.newSymbol("conversion_time"), runtime.newFloat(conversionTime.get() / 1e6));
+        stats.op_aset(context, runtime.newSymbol("reconnects"), runtime.newFixnum(reconnects.get()));
+        stats.op_aset(context, runtime.newSymbol("retries"), runtime.newFixnum(retries.get()));
+        stats.op_aset(context, runtime.newSymbol("statement_cache_hits"), runtime.newFixnum(cacheHits.get()));
+        stats.op_aset(context, runtime.newSymbol("statement_cache_misses"), runtime.newFixnum(cacheMisses.get()));
+        stats.op_aset(context, runtime.newSymbol("statement_cache_evictions"), runtime.newFixnum(cacheEvictions.get()));
+        return stats;
+    }
+
+}
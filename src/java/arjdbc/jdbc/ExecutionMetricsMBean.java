@@ -0,0 +1,32 @@
+package arjdbc.jdbc;
+
+/**
+ * JMX management interface for {@link ExecutionMetrics}.
+ * Times are reported in milliseconds.
+ */
+public interface ExecutionMetricsMBean {
+
+    long getExecuteCount();
+    long getQueryCount();
+    long getInsertCount();
+    long getUpdateCount();
+    long getBatchCount();
+
+    long getRowsMapped();
+    long getBytesConverted();
+
+    long getExecuteTime();
+    long getFetchTime();
+    long getDriverTime();
+    long getConversionTime();
+
+    long getReconnects();
+    long getRetries();
+
+    long getStatementCacheHits();
+    long getStatementCacheMisses();
+    long getStatementCacheEvictions();
+
+    void reset();
+
+}
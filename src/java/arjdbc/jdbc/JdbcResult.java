@@ -18,28 +18,41 @@ import org.jruby.runtime.builtin.IRubyObject;
  * This is a base Result class to be returned as the "raw" result.
  * It should be overridden for specific adapters to manage type maps
  * and provide any additional methods needed.
+ *
+ * When the connection is configured with <code>columnar_results: true</code>
+ * values are kept in (mostly primitive) {@link ColumnValues} and only turned
+ * into Ruby objects once read, e.g. using {@link #getValues(ThreadContext)}.
+ * With <code>lazy_results: true</code> the AR result converts rows on access.
  */
 public class JdbcResult extends RubyObject {
     // Should these be private with accessors?
-    protected final RubyArray values;
+    protected RubyArray values; // lazy (on columnar results)
     protected RubyHash[] tuples;
+    private ColumnValues[] columnValues;
+    private int rowCount;
 
     protected final int[] columnTypes;
     protected RubyString[] columnNames;
     protected final RubyJdbcConnection connection;
+    private final ResultColumns resultColumns; // (shared) when from a cached statement
 
     protected JdbcResult(ThreadContext context, RubyClass clazz, RubyJdbcConnection connection, ResultSet resultSet) throws SQLException {
         super(context.runtime, clazz);
 
-        values = context.runtime.newArray();
         this.connection = connection;
 
-        final ResultSetMetaData resultMetaData = resultSet.getMetaData();
-        final int columnCount = resultMetaData.getColumnCount();
-        // FIXME: if we support MSSQL we may need to change how we deal with omitting elements
-        columnNames = new RubyString[columnCount];
-        columnTypes = new int[columnCount];
-        extractColumnInfo(context, resultMetaData);
+        this.resultColumns = connection.getResultColumns(resultSet);
+        if (resultColumns != null) { // column info does not change between executions
+            columnNames = resultColumns.getNames(context, connection.getStringCache());
+            columnTypes = resultColumns.types;
+        } else {
+            final ResultSetMetaData resultMetaData = resultSet.getMetaData();
+            final int columnCount = resultMetaData.getColumnCount();
+            // FIXME: if we support MSSQL we may need to change how we deal with omitting elements
+            columnNames = new RubyString[columnCount];
+            columnTypes = new int[columnCount];
+            extractColumnInfo(context, resultMetaData);
+        }
         processResultSet(context, resultSet);
     }
 
@@ -64,7 +77,7 @@ public class JdbcResult extends RubyObject {
         for (int i = 1; i <= columnCount; i++) { // metadata is one-based
             // This appears to not be used by Postgres, MySQL, or SQLite so leaving it off for now
             //name = caseConvertIdentifierForRails(connection, name);
-            columnNames[i - 1] = RubyJdbcConnection.STRING_CACHE.get(context, resultMetaData.getColumnLabel(i));
+            columnNames[i - 1] = connection.getCachedString(context, resultMetaData.getColumnLabel(i));
             columnTypes[i - 1] = resultMetaData.getColumnType(i);
         }
     }
@@ -76,11 +89,63 @@ public class JdbcResult extends RubyObject {
         return columnNames;
     }
 
+    /**
+     * @return the number of rows in this result
+     */
+    protected int getRowCount() {
+        return values != null ? values.size() : rowCount;
+    }
+
+    /**
+     * Returns the rows, converting any pending (columnar) values on first access.
+     * @param context current thread context
+     * @return an array of row arrays
+     */
+    protected RubyArray getValues(final ThreadContext context) {
+        if ( values == null ) {
+            final ColumnValues[] columnValues = this.columnValues;
+            final int columnCount = columnValues.length;
+            final IRubyObject[] rows = new IRubyObject[rowCount];
+            for ( int r = 0; r < rows.length; r++ ) {
+                final IRubyObject[] row = new IRubyObject[columnCount];
+                for ( int i = 0; i < columnCount; i++ ) {
+                    row[i] = columnValues[i].get(context, r);
+                }
+                rows[r] = RubyArray.newArrayNoCopy(context.runtime, row);
+            }
+            values = RubyArray.newArrayNoCopy(context.runtime, rows);
+            this.columnValues = null; // no longer needed
+        }
+        return values;
+    }
+
+    /**
+     * Returns values of a single column, on columnar results this does not convert other columns.
+     * @param context current thread context
+     * @param index the (zero based) column index
+     * @return an array of column values
+     */
+    protected RubyArray getColumnValues(final ThreadContext context, final int index) {
+        if ( values == null ) {
+            final ColumnValues column = columnValues[index];
+            final IRubyObject[] result = new IRubyObject[rowCount];
+            for ( int r = 0; r < result.length; r++ ) result[r] = column.get(context, r);
+            return RubyArray.newArrayNoCopy(context.runtime, result);
+        }
+        final int rowCount = values.size();
+        final IRubyObject[] result = new IRubyObject[rowCount];
+        for ( int r = 0; r < rowCount; r++ ) {
+            result[r] = ((RubyArray) values.eltInternal(r)).eltInternal(index);
+        }
+        return RubyArray.newArrayNoCopy(context.runtime, result);
+    }
+
     /**
      * Builds an array of hashes with column names to column values
      * @param context current thread context
      */
     protected void populateTuples(final ThreadContext context) {
+        final RubyArray values = getValues(context);
         int columnCount = columnNames.length;
         tuples = new RubyHash[values.size()];
 
@@ -101,20 +166,78 @@ public class JdbcResult extends RubyObject {
      * @throws SQLException throws!
      */
     private void processResultSet(final ThreadContext context, final ResultSet resultSet) throws SQLException {
+        final Object event = FlightEvents.begin(FlightEvents.RESULT_MAPPING);
+        try {
+            processResultSetImpl(context, resultSet);
+        }
+        finally {
+            if ( event != null ) connection.mapped(event, getRowCount(), columnNames.length);
+        }
+    }
+
+    private void processResultSetImpl(final ThreadContext context, final ResultSet resultSet) throws SQLException {
         Ruby runtime = context.runtime;
         int columnCount = columnNames.length;
+        final RubyJdbcConnection.ColumnConverter[] converters = connection.newColumnConverters(columnTypes);
+
+        if (connection.isColumnarResults() || connection.isLazyResults()) {
+            final ColumnValues[] columnValues = new ColumnValues[columnCount];
+            for (int i = 0; i < columnCount; i++) columnValues[i] = converters[i].newColumnValues();
 
+            final ExecutionMetrics metrics = connection.getMetrics();
+            final long start = metrics == null ? 0 : System.nanoTime();
+            int rowCount = 0;
+            while (resultSet.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    columnValues[i].read(context, resultSet, i + 1); // Result Set is 1 based
+                }
+                rowCount++;
+            }
+            if ( metrics != null ) metrics.mapped(rowCount, 0, System.nanoTime() - start, 0); // converted lazily
+            this.columnValues = columnValues;
+            this.rowCount = rowCount;
+            return;
+        }
+
+        final RubyArray values = this.values = runtime.newArray();
+        final ExecutionMetrics metrics = connection.getMetrics();
+        if ( metrics != null ) {
+            processResultSet(context, resultSet, converters, metrics); return;
+        }
         while (resultSet.next()) {
             final IRubyObject[] row = new IRubyObject[columnCount];
 
             for (int i = 0; i < columnCount; i++) {
-                row[i] = connection.jdbcToRuby(context, runtime, i + 1, columnTypes[i], resultSet); // Result Set is 1 based
+                row[i] = converters[i].toRuby(context, runtime, resultSet, i + 1); // Result Set is 1 based
             }
 
             values.append(RubyArray.newArrayNoCopy(context.runtime, row));
         }
     }
 
+    // same as above while recording (fetch vs conversion) metrics
+    private void processResultSet(final ThreadContext context, final ResultSet resultSet,
+        final RubyJdbcConnection.ColumnConverter[] converters, final ExecutionMetrics metrics) throws SQLException {
+        final Ruby runtime = context.runtime;
+        final int columnCount = columnNames.length;
+        long fetch = 0, conversion = 0, bytes = 0; int rows = 0;
+        long time = System.nanoTime();
+        while (resultSet.next()) {
+            final long fetched = System.nanoTime(); fetch += fetched - time;
+            final IRubyObject[] row = new IRubyObject[columnCount];
+
+            for (int i = 0; i < columnCount; i++) {
+                row[i] = converters[i].toRuby(context, runtime, resultSet, i + 1); // Result Set is 1 based
+            }
+
+            values.append(RubyArray.newArrayNoCopy(runtime, row));
+            time = System.nanoTime(); conversion += time - fetched;
+            bytes += ExecutionMetrics.byteSize(row); rows++;
+        }
+        fetch += System.nanoTime() - time;
+        metrics.mapped(rows, bytes, fetch, conversion);
+    }
+
     /**
      * Creates an <code>ActiveRecord::Result</code> with the data from this result
      * @param context current thread context
@@ -124,7 +247,11 @@ public class JdbcResult extends RubyObject {
     public IRubyObject toARResult(final ThreadContext context) throws SQLException {
         final RubyClass Result = RubyJdbcConnection.getResult(context.runtime);
         // FIXME: Is this broken?  no copy of an array AR::Result can modify?  or should it be frozen?
-        final RubyArray rubyColumnNames = RubyArray.newArrayNoCopy(context.runtime, getColumnNames());
-        return Result.newInstance(context, rubyColumnNames, values, columnTypeMap(context), Block.NULL_BLOCK);
+        final RubyArray rubyColumnNames = resultColumns != null ? resultColumns.newNamesArray(context, connection.getStringCache()) :
+                RubyArray.newArrayNoCopy(context.runtime, getColumnNames());
+        if (values == null && connection.isLazyResults()) {
+            return LazyRows.newLazyResult(context, rubyColumnNames, columnValues, rowCount, columnTypeMap(context));
+        }
+        return Result.newInstance(context, rubyColumnNames, getValues(context), columnTypeMap(context), Block.NULL_BLOCK);
     }
 }
@@ -0,0 +1,100 @@
+package arjdbc.jdbc;
+
+import org.jruby.Ruby;
+import org.jruby.RubyArray;
+import org.jruby.RubyClass;
+import org.jruby.RubyNumeric;
+import org.jruby.RubyObject;
+import org.jruby.anno.JRubyMethod;
+import org.jruby.runtime.Block;
+import org.jruby.runtime.ObjectAllocator;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+
+/**
+ * Rows backing a lazy <code>ActiveRecord::Result</code> (<code>ArJdbc::LazyResult</code>).
+ *
+ * Values are kept (as read from the JDBC result set) in {@link ColumnValues}
+ * and a row is only converted into a Ruby array once accessed.
+ */
+public class LazyRows extends RubyObject {
+
+    private static final long serialVersionUID = 8261657684473197624L;
+
+    private ColumnValues[] columnValues;
+    private final IRubyObject[] rows;
+    private RubyArray allRows;
+
+    static RubyClass createLazyRowsClass(final Ruby runtime, final RubyClass jdbcConnection) {
+        final RubyClass LazyRows = jdbcConnection.defineClassUnder("LazyRows", runtime.getObject(), ObjectAllocator.NOT_ALLOCATABLE_ALLOCATOR);
+        LazyRows.defineAnnotatedMethods(LazyRows.class);
+        return LazyRows;
+    }
+
+    protected LazyRows(final Ruby runtime, final ColumnValues[] columnValues, final int rowCount) {
+        super(runtime, (RubyClass) RubyJdbcConnection.getJdbcConnection(runtime).getConstantAt("LazyRows"));
+        this.columnValues = columnValues;
+        this.rows = new IRubyObject[rowCount];
+    }
+
+    /**
+     * Creates a new (lazy) <code>ActiveRecord::Result</code>.
+     * @param context current thread context
+     * @param columns column names
+     * @param columnValues (read) column values
+     * @param rowCount number of rows read
+     * @param columnTypes the column type map or nil
+     * @return a <code>ArJdbc::LazyResult</code>
+     */
+    public static IRubyObject newLazyResult(final ThreadContext context, final RubyArray columns,
+        final ColumnValues[] columnValues, final int rowCount, final IRubyObject columnTypes) {
+        final Ruby runtime = context.runtime;
+        final RubyClass LazyResult = (RubyClass) runtime.getModule("ArJdbc").getConstantAt("LazyResult");
+        final LazyRows rows = new LazyRows(runtime, columnValues, rowCount);
+        if ( columnTypes == null || columnTypes.isNil() ) {
+            return LazyResult.newInstance(context, columns, rows, Block.NULL_BLOCK);
+        }
+        return LazyResult.newInstance(context, columns, rows, columnTypes, Block.NULL_BLOCK);
+    }
+
+    @JRubyMethod(name = { "length", "size" })
+    public IRubyObject length(final ThreadContext context) {
+        return context.runtime.newFixnum(rows.length);
+    }
+
+    @JRubyMethod(name = "[]", required = 1)
+    public IRubyObject aref(final ThreadContext context, final IRubyObject index) {
+        int i = RubyNumeric.fix2int(index);
+        if ( i < 0 ) i += rows.length;
+        if ( i < 0 || i >= rows.length ) return context.nil;
+        return row(context, i);
+    }
+
+    /**
+     * @param context current thread context
+     * @return all rows (as an array of arrays)
+     */
+    @JRubyMethod(name = "to_a")
+    public IRubyObject to_a(final ThreadContext context) {
+        if ( allRows == null ) {
+            for ( int i = 0; i < rows.length; i++ ) row(context, i);
+            allRows = RubyArray.newArrayNoCopy(context.runtime, rows);
+            columnValues = null; // all converted
+        }
+        return allRows;
+    }
+
+    private IRubyObject row(final ThreadContext context, final int index) {
+        IRubyObject row = rows[index];
+        if ( row == null ) {
+            final ColumnValues[] columnValues = this.columnValues;
+            final IRubyObject[] values = new IRubyObject[columnValues.length];
+            for ( int c = 0; c < values.length; c++ ) {
+                values[c] = columnValues[c].get(context, index);
+            }
+            rows[index] = row = RubyArray.newArrayNoCopy(context.runtime, values);
+        }
+        return row;
+    }
+
+}
@@ -0,0 +1,553 @@
+package arjdbc.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jruby.Finalizable;
+import org.jruby.Ruby;
+import org.jruby.RubyHash;
+import org.jruby.runtime.ThreadContext;
+
+/**
+ * A (built-in) connection pool on top of a {@link DriverConnectionFactory}.
+ *
+ * Connections handed out are proxies, closing them returns the (physical)
+ * connection to the pool, thus a reconnect does not pay for a new connection
+ * setup (TCP + authentication). Idle connections are kept in a LIFO deque,
+ * capacity is guarded by a fair semaphore (waiting for a connection times out
+ * after the checkout timeout). A background task evicts idle (and expired)
+ * connections, validates the idle ones and keeps the minimum idle count.
+ * Statements created on a checked out connection return it (not the physical
+ * connection) from <code>getConnection()</code>. Pools are shut down when the
+ * runtime tears down.
+ *
+ * @see RubyJdbcConnection#pool_stats(ThreadContext)
+ */
+final class PooledConnectionFactory implements ConnectionFactory {
+
+    static final int DEFAULT_MAX_SIZE = 5;
+
+    private final ConnectionFactory factory;
+
+    final int maxSize;
+    final int minIdle;
+    final long idleTimeout; // ms, 0 - never evict idle
+    final long maxLifetime; // ms, 0 - unlimited
+    final long validationInterval; // ms, 0 - no background validation
+    final int validationTimeout; // seconds
+    final long checkoutTimeout; // ms
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Entry> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong waitTime = new AtomicLong(); // nanos
+    private final AtomicLong maxWaitTime = new AtomicLong(); // nanos
+
+    private volatile boolean shutdown;
+    private ScheduledFuture<?> housekeeping;
+
+    PooledConnectionFactory(final ConnectionFactory factory,
+        final int maxSize, final int minIdle, final long idleTimeout, final long maxLifetime,
+        final long validationInterval, final int validationTimeout, final long checkoutTimeout) {
+        if ( maxSize <= 0 ) throw new IllegalArgumentException("pool max_size: " + maxSize + " must be positive");
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(Math.max(minIdle, 0), maxSize);
+        this.idleTimeout = idleTimeout;
+        this.maxLifetime = maxLifetime;
+        this.validationInterval = validationInterval;
+        this.validationTimeout = validationTimeout;
+        this.checkoutTimeout = checkoutTimeout;
+        this.permits = new Semaphore(maxSize, true); // fair - waiters are served in order
+    }
+
+    /**
+     * Starts the background (housekeeping) task.
+     * @return this pool
+     */
+    PooledConnectionFactory start() {
+        long period = 30 * 1000;
+        if ( validationInterval > 0 ) period = Math.min(period, validationInterval);
+        if ( idleTimeout > 0 ) period = Math.min(period, Math.max(idleTimeout / 2, 1000));
+        housekeeping = housekeeper().scheduleWithFixedDelay(new Runnable() {
+            public void run() { housekeep(); }
+        }, period, period, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Checks out a connection from the pool, waiting (up to the checkout
+     * timeout) if all connections are in use.
+     * @return a pooled connection, closing it returns it back to the pool
+     * @throws SQLTransientConnectionException on a checkout timeout
+     */
+    @Override
+    public Connection newConnection() throws SQLException {
+        final Object event = FlightEvents.begin(FlightEvents.CONNECTION_ACQUIRE);
+        try {
+            return checkoutConnection();
+        }
+        finally {
+            if ( event != null ) FlightEvents.CONNECTION_ACQUIRE.commit(event, toString(), true);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "pool[" + factory + "]"; // DriverConnectionFactory#toString() hides credentials
+    }
+
+    private Connection checkoutConnection() throws SQLException {
+        if ( shutdown ) throw new SQLException("connection pool has been shut down");
+
+        final long start = System.nanoTime();
+        final boolean acquired;
+        try {
+            acquired = permits.tryAcquire(checkoutTimeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+        if ( ! acquired ) {
+            timeouts.incrementAndGet();
+            throw new SQLTransientConnectionException("could not obtain a connection within " +
+                checkoutTimeout + "ms (pool max_size: " + maxSize + ", active: " + activeCount.get() + ")");
+        }
+
+        try {
+            final Entry entry = checkout();
+            activeCount.incrementAndGet();
+            borrows.incrementAndGet();
+            return entry.newProxy();
+        }
+        catch (SQLException|RuntimeException|Error e) {
+            permits.release(); throw e;
+        }
+    }
+
+    private Entry checkout() throws SQLException {
+        Entry entry;
+        while ( ( entry = idle.pollFirst() ) != null ) {
+            idleCount.decrementAndGet();
+            final long now = System.currentTimeMillis();
+            if ( isExpired(entry, now) ) { discard(entry); continue; }
+            // connections used (or validated) within the validation interval are trusted,
+            // a broken connection fails on use (and withConnection re-connects)
+            if ( validationInterval > 0 && now - Math.max(entry.lastUsed, entry.lastValidated) > validationInterval ) {
+                entry.lastValidated = now;
+                if ( ! isValid(entry) ) { discard(entry); continue; }
+            }
+            return entry;
+        }
+        return newEntry();
+    }
+
+    private Entry newEntry() throws SQLException {
+        final Entry entry = new Entry(factory.newConnection());
+        totalCount.incrementAndGet();
+        created.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Returns a checked out connection, resetting its (transaction) state.
+     */
+    final void release(final Entry entry) {
+        activeCount.decrementAndGet();
+        try {
+            if ( shutdown || entry.broken || isExpired(entry, System.currentTimeMillis()) ||
+                totalCount.get() > maxSize || ! reset(entry) ) {
+                discard(entry);
+            }
+            else {
+                entry.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(entry); idleCount.incrementAndGet();
+            }
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    private static boolean reset(final Entry entry) {
+        final Connection connection = entry.connection;
+        try {
+            if ( connection.isClosed() ) return false;
+            if ( ! connection.getAutoCommit() ) {
+                connection.rollback(); connection.setAutoCommit(true);
+            }
+            if ( connection.isReadOnly() != entry.readOnly ) {
+                connection.setReadOnly(entry.readOnly);
+            }
+            if ( connection.getTransactionIsolation() != entry.isolation ) {
+                connection.setTransactionIsolation(entry.isolation);
+            }
+            connection.clearWarnings();
+            return true;
+        }
+        catch (SQLException e) {
+            return false; // broken connection
+        }
+    }
+
+    private boolean isExpired(final Entry entry, final long now) {
+        return maxLifetime > 0 && now - entry.createdAt > maxLifetime;
+    }
+
+    private boolean isValid(final Entry entry) {
+        try {
+            return entry.connection.isValid(validationTimeout);
+        }
+        catch (SQLException e) { return false; }
+    }
+
+    private void discard(final Entry entry) {
+        totalCount.decrementAndGet();
+        closed.incrementAndGet();
+        try { entry.connection.close(); }
+        catch (Exception e) { /* ignore */ }
+    }
+
+    private void recordWait(final long nanos) {
+        waitTime.addAndGet(nanos);
+        long max;
+        while ( nanos > ( max = maxWaitTime.get() ) ) {
+            if ( maxWaitTime.compareAndSet(max, nanos) ) break;
+        }
+    }
+
+    /**
+     * Evicts idle (and expired) connections, validates idle connections and
+     * tops up the pool to the minimum idle count.
+     */
+    final void housekeep() {
+        if ( shutdown ) return;
+        final long now = System.currentTimeMillis();
+        for ( final Iterator<Entry> it = idle.descendingIterator(); it.hasNext(); ) {
+            final Entry entry = it.next(); // least recently used first
+            final boolean expired = isExpired(entry, now);
+            final boolean evict = expired || ( idleTimeout > 0 &&
+                now - entry.lastUsed > idleTimeout && idleCount.get() > minIdle );
+            final boolean validate = ! evict && validationInterval > 0 &&
+                now - entry.lastValidated > validationInterval;
+            if ( ! evict && ! validate ) continue;
+            if ( ! idle.removeFirstOccurrence(entry) ) continue; // checked out meanwhile
+            idleCount.decrementAndGet();
+            if ( ! evict ) {
+                entry.lastValidated = now;
+                if ( isValid(entry) ) {
+                    idle.offerLast(entry); idleCount.incrementAndGet(); continue;
+                }
+            }
+            discard(entry);
+        }
+        // fill up to the minimum idle count (without exceeding max size) :
+        while ( ! shutdown && idleCount.get() < minIdle && permits.tryAcquire() ) {
+            try {
+                if ( totalCount.get() >= maxSize ) break;
+                final Entry entry = newEntry();
+                idle.offerLast(entry); idleCount.incrementAndGet();
+            }
+            catch (SQLException e) { break; } // re-tried on next run
+            finally { permits.release(); }
+        }
+    }
+
+    /**
+     * Shuts down the pool, idle connections are closed immediately while
+     * active connections once returned.
+     */
+    void shutdown() {
+        shutdown = true;
+        final ScheduledFuture<?> housekeeping = this.housekeeping;
+        if ( housekeeping != null ) housekeeping.cancel(false);
+        Entry entry;
+        while ( ( entry = idle.pollFirst() ) != null ) {
+            idleCount.decrementAndGet(); discard(entry);
+        }
+    }
+
+    /**
+     * Marks the (physical) connection of a pooled connection as configured.
+     * @param connection a connection checked out from a pool
+     * @return true if not configured before (and thus needs to be configured)
+     */
+    static boolean markConfigured(final Connection connection) {
+        if ( ! Proxy.isProxyClass(connection.getClass()) ) return false;
+        final InvocationHandler handler = Proxy.getInvocationHandler(connection);
+        if ( ! ( handler instanceof Handle ) ) return false;
+        final Entry entry = ((Handle) handler).entry;
+        synchronized (entry) {
+            if ( entry.configured ) return false;
+            return entry.configured = true;
+        }
+    }
+
+    int getActiveCount() { return activeCount.get(); }
+
+    int getIdleCount() { return idleCount.get(); }
+
+    RubyHash toStatsHash(final ThreadContext context) {
+        final Ruby runtime = context.runtime;
+        final RubyHash stats = RubyHash.newHash(runtime);
+        final long borrows = this.borrows.get();
+        stats.op_aset(context, runtime.newSymbol("active"), runtime.newFixnum(activeCount.get()));
+        stats.op_aset(context, runtime.newSymbol("idle"), runtime.newFixnum(idleCount.get()));
+        stats.op_aset(context, runtime.newSymbol("size"), runtime.newFixnum(totalCount.get()));
+        stats.op_aset(context, runtime.newSymbol("max_size"), runtime.newFixnum(maxSize));
+        stats.op_aset(context, runtime.newSymbol("min_idle"), runtime.newFixnum(minIdle));
+        stats.op_aset(context, runtime.newSymbol("waiters"), runtime.newFixnum(permits.getQueueLength()));
+        stats.op_aset(context, runtime.newSymbol("borrows"), runtime.newFixnum(borrows));
+        stats.op_aset(context, runtime.newSymbol("created"), runtime.newFixnum(created.get()));
+        stats.op_aset(context, runtime.newSymbol("closed"), runtime.newFixnum(closed.get()));
+        stats.op_aset(context, runtime.newSymbol("timeouts"), runtime.newFixnum(timeouts.get()));
+        // wait times in (fractional) milliseconds :
+        stats.op_aset(context, runtime.newSymbol("wait_time"), runtime.newFloat(waitTime.get() / 1e6));
+        stats.op_aset(context, runtime.newSymbol("max_wait_time"), runtime.newFloat(maxWaitTime.get() / 1e6));
+        final long attempts = borrows + timeouts.get();
+        stats.op_aset(context, runtime.newSymbol("avg_wait_time"),
+            runtime.newFloat(attempts == 0 ? 0.0 : waitTime.get() / 1e6 / attempts));
+        return stats;
+    }
+
+    private static final Class<?>[] PROXY_INTERFACES = new Class<?>[] { Connection.class };
+
+    private final class Entry {
+
+        final Connection connection;
+        final long createdAt;
+        final boolean readOnly;
+        final int isolation;
+        volatile long lastUsed;
+        volatile long lastValidated;
+        volatile boolean broken;
+        boolean configured; // (async) session configuration applied
+
+        Entry(final Connection connection) throws SQLException {
+            this.connection = connection;
+            this.createdAt = this.lastUsed = this.lastValidated = System.currentTimeMillis();
+            this.readOnly = connection.isReadOnly();
+            this.isolation = connection.getTransactionIsolation();
+        }
+
+        Connection newProxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                PROXY_INTERFACES, new Handle(this));
+        }
+
+    }
+
+    /**
+     * A checked out (logical) connection.
+     */
+    private final class Handle implements InvocationHandler {
+
+        private final Entry entry;
+        private volatile boolean closed;
+
+        Handle(final Entry entry) { this.entry = entry; }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch ( method.getName() ) {
+                case "close":
+                    synchronized (this) {
+                        if ( closed ) return null;
+                        closed = true;
+                    }
+                    release(entry); return null;
+                case "isClosed":
+                    if ( closed ) return Boolean.TRUE;
+                    break;
+                case "abort":
+                    entry.broken = true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "pooled " + entry.connection;
+            }
+            checkNotClosed();
+            try {
+                final Object result = method.invoke(entry.connection, args);
+                // statements hand out the (physical) connection using getConnection()
+                if ( result instanceof Statement ) return newStatementProxy((Statement) result, (Connection) proxy);
+                return result;
+            }
+            catch (InvocationTargetException e) {
+                final Throwable cause = e.getCause();
+                if ( cause instanceof SQLException ) {
+                    final String state = ((SQLException) cause).getSQLState();
+                    // connection exception (class 08) - do not return it to the pool
+                    if ( state != null && state.startsWith("08") ) entry.broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        final void checkNotClosed() throws SQLException {
+            if ( closed ) throw new SQLException("connection has been closed (returned to pool)", "08003");
+        }
+
+        private Statement newStatementProxy(final Statement statement, final Connection connection) {
+            final Class<?> type;
+            if ( statement instanceof CallableStatement ) type = CallableStatement.class;
+            else if ( statement instanceof PreparedStatement ) type = PreparedStatement.class;
+            else type = Statement.class;
+            return (Statement) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { type }, new StatementHandle(this, statement, connection));
+        }
+
+    }
+
+    /**
+     * A statement of a checked out connection, returns the pooled (logical)
+     * connection from <code>getConnection()</code>.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+
+        private final Handle handle;
+        private final Statement statement;
+        private final Connection connection;
+
+        StatementHandle(final Handle handle, final Statement statement, final Connection connection) {
+            this.handle = handle; this.statement = statement; this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch ( method.getName() ) {
+                case "getConnection":
+                    return connection;
+                case "close":
+                case "isClosed":
+                    break; // allowed once the connection got returned
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return statement.toString();
+                default:
+                    handle.checkNotClosed();
+            }
+            try {
+                return method.invoke(statement, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+    /**
+     * Shuts down all (per runtime) pools when the runtime tears down.
+     * @param runtime
+     * @param pools
+     */
+    static void shutdownOnTeardown(final Ruby runtime, final Map<String, PooledConnectionFactory> pools) {
+        runtime.addInternalFinalizer(new PoolsShutdown(pools));
+    }
+
+    // NOTE: a runtime (internal) finalizer, run on teardown - not a GC finalizer
+    private static final class PoolsShutdown implements Finalizable {
+
+        private final Map<String, PooledConnectionFactory> pools;
+
+        PoolsShutdown(final Map<String, PooledConnectionFactory> pools) {
+            this.pools = pools;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation") // Finalizable#finalize overrides Object#finalize
+        public void finalize() {
+            for ( final PooledConnectionFactory pool : pools.values() ) pool.shutdown();
+            pools.clear();
+        }
+
+    }
+
+    /**
+     * @param factory
+     * @param options pool options
+     * @return a (per runtime) pool key, not containing the (plain) credentials
+     */
+    static String poolKey(final DriverConnectionFactory factory, final String options) {
+        final StringBuilder config = new StringBuilder();
+        config.append(factory.url).append('\u0000').append(factory.username).append('\u0000').append(factory.password);
+        // connections of the same URL might differ by (driver) properties e.g. prepareThreshold
+        final DriverWrapper driver = factory.getDriverWrapper();
+        config.append('\u0000').append(driver.getDriverInstance().getClass().getName());
+        final TreeMap<String, String> properties = new TreeMap<>();
+        for ( final Map.Entry<Object, Object> entry : driver.getProperties().entrySet() ) {
+            properties.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+        }
+        for ( final Map.Entry<String, String> entry : properties.entrySet() ) {
+            config.append('\u0000').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(config.toString().getBytes(StandardCharsets.UTF_8));
+            return new BigInteger(1, digest).toString(36) + '/' + options;
+        }
+        catch (NoSuchAlgorithmException e) { // SHA-256 is always available
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ScheduledExecutorService housekeeper;
+
+    /**
+     * @return a (shared) executor for background tasks, using a single daemon thread
+     */
+    static synchronized ScheduledExecutorService housekeeper() {
+        if ( housekeeper == null ) {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(final Runnable task) {
+                    final Thread thread = new Thread(task, "arjdbc-housekeeper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            housekeeper = executor;
+        }
+        return housekeeper;
+    }
+
+}
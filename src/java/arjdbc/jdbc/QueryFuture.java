@@ -0,0 +1,192 @@
+package arjdbc.jdbc;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jruby.Ruby;
+import org.jruby.RubyClass;
+import org.jruby.RubyNumeric;
+import org.jruby.RubyObject;
+import org.jruby.anno.JRubyMethod;
+import org.jruby.exceptions.RaiseException;
+import org.jruby.runtime.ObjectAllocator;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+import org.jruby.util.SafePropertyAccessor;
+
+/**
+ * A (pending) result of a query executed asynchronously.
+ *
+ * Queries run on a bounded (per runtime) executor, the value is awaited using
+ * <code>value</code> which raises (database) errors the same way as if the query
+ * was executed synchronously. Cancelling a running query cancels its statement.
+ *
+ * @see RubyJdbcConnection#execute_query_async(ThreadContext, IRubyObject[])
+ */
+public class QueryFuture extends RubyObject {
+
+    private static final long serialVersionUID = 2784249659845191438L;
+
+    private final RubyJdbcConnection connection;
+    private volatile Future<IRubyObject> future;
+    private volatile Statement statement; // while executing
+    private volatile boolean cancelled;
+
+    static RubyClass createQueryFutureClass(final Ruby runtime, final RubyClass jdbcConnection) {
+        final RubyClass QueryFuture = jdbcConnection.defineClassUnder("QueryFuture", runtime.getObject(), ObjectAllocator.NOT_ALLOCATABLE_ALLOCATOR);
+        QueryFuture.defineAnnotatedMethods(QueryFuture.class);
+        return QueryFuture;
+    }
+
+    QueryFuture(final Ruby runtime, final RubyJdbcConnection connection) {
+        super(runtime, (RubyClass) RubyJdbcConnection.getJdbcConnection(runtime).getConstantAt("QueryFuture"));
+        this.connection = connection;
+    }
+
+    final QueryFuture submit(final java.util.concurrent.Callable<IRubyObject> task) {
+        this.future = getExecutor(getRuntime()).submit(task);
+        return this;
+    }
+
+    /**
+     * Runs the task on the current thread (the future is done once returned).
+     * @param task
+     * @return this future
+     */
+    final QueryFuture run(final java.util.concurrent.Callable<IRubyObject> task) {
+        final FutureTask<IRubyObject> future = new FutureTask<IRubyObject>(task);
+        this.future = future;
+        future.run();
+        return this;
+    }
+
+    /**
+     * Sets the currently executing statement (null once done).
+     * @param statement
+     */
+    final void setStatement(final Statement statement) throws SQLException {
+        this.statement = statement;
+        if ( statement != null && cancelled ) statement.cancel(); // cancelled before executed
+    }
+
+    /**
+     * Waits for the query to complete.
+     * @param context
+     * @param args an optional timeout (in seconds)
+     * @return the query result
+     */
+    @JRubyMethod(name = "value", optional = 1)
+    public IRubyObject value(final ThreadContext context, final IRubyObject[] args) {
+        final IRubyObject timeout = args.length > 0 ? args[0] : context.nil;
+        try {
+            if ( timeout == context.nil ) return future.get();
+            final long millis = (long) ( RubyNumeric.num2dbl(timeout) * 1000 );
+            return future.get(millis, TimeUnit.MILLISECONDS);
+        }
+        catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if ( cause instanceof RaiseException ) throw (RaiseException) cause;
+            return connection.handleException(context, cause);
+        }
+        catch (CancellationException e) {
+            return connection.handleException(context, new SQLException("query cancelled", "57014"));
+        }
+        catch (TimeoutException e) {
+            return connection.handleException(context, new SQLTimeoutException("timed out waiting for query result"));
+        }
+        catch (InterruptedException e) {
+            cancel(context);
+            throw context.runtime.newThreadError("interrupted while waiting for query result");
+        }
+    }
+
+    /**
+     * Cancels the query, a running statement gets cancelled.
+     * @param context
+     * @return true if the query had not completed yet
+     */
+    @JRubyMethod(name = "cancel")
+    public IRubyObject cancel(final ThreadContext context) {
+        if ( future.isDone() ) return context.runtime.getFalse();
+        cancelled = true;
+        future.cancel(false); // if not started
+        final Statement statement = this.statement;
+        if ( statement != null ) {
+            try { statement.cancel(); }
+            catch (SQLException e) { RubyJdbcConnection.debugMessage(context.runtime, "statement cancel failed: ", e); }
+        }
+        return context.runtime.getTrue();
+    }
+
+    @JRubyMethod(name = { "done?", "complete?" })
+    public IRubyObject done_p(final ThreadContext context) {
+        return context.runtime.newBoolean( future.isDone() );
+    }
+
+    @JRubyMethod(name = "cancelled?")
+    public IRubyObject cancelled_p(final ThreadContext context) {
+        return context.runtime.newBoolean( cancelled );
+    }
+
+    private static ExecutorService getExecutor(final Ruby runtime) {
+        final RubyClass JdbcConnection = RubyJdbcConnection.getJdbcConnection(runtime);
+        synchronized (JdbcConnection) {
+            ExecutorService executor = (ExecutorService) JdbcConnection.getInternalVariable("async_executor");
+            if ( executor == null ) {
+                final int threads = getThreadCount(runtime);
+                final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), newThreadFactory());
+                pool.allowCoreThreadTimeOut(true);
+                JdbcConnection.setInternalVariable("async_executor", executor = pool);
+            }
+            return executor;
+        }
+    }
+
+    private static int getThreadCount(final Ruby runtime) {
+        final int defaultCount = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final String size = SafePropertyAccessor.getProperty("arjdbc.async.threads");
+        if ( size == null ) return defaultCount;
+        try {
+            final int threads = Integer.parseInt(size.trim());
+            if ( threads > 0 ) return threads;
+        }
+        catch (NumberFormatException e) { /* warned below */ }
+        runtime.getWarnings().warn("invalid arjdbc.async.threads: '" + size + "' (using " + defaultCount + ")");
+        return defaultCount;
+    }
+
+    // virtual threads when available (Java 21+), otherwise daemon (platform) threads
+    private static ThreadFactory newThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        }
+        catch (Exception e) { /* fallback to platform threads */ }
+        catch (LinkageError e) { /* fallback to platform threads */ }
+
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            public Thread newThread(final Runnable task) {
+                final Thread thread = new Thread(task, "arjdbc-async-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,111 @@
+package arjdbc.jdbc;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.jruby.RubyArray;
+import org.jruby.RubyString;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+
+import arjdbc.util.StringCache;
+
+/**
+ * Column layout of results returned by a (cached) prepared statement.
+ *
+ * The layout is kept along with the statement (in the {@link StatementCache})
+ * so that repeated executions do not need to re-build column data and names,
+ * it is validated (labels and types) against each result's meta-data.
+ */
+final class ResultColumns {
+
+    private final String[] labels;
+    final int[] types;
+
+    // NOTE: lazily set (racy but idempotent) :
+    private RubyJdbcConnection.ColumnData[] columns;
+    private IRubyObject[] columnNames;
+    private RubyString[] names;
+
+    private ResultColumns(final String[] labels, final int[] types) {
+        this.labels = labels; this.types = types;
+    }
+
+    static ResultColumns newResultColumns(final ResultSetMetaData metaData) throws SQLException {
+        final int columnCount = metaData.getColumnCount();
+        final String[] labels = new String[columnCount];
+        final int[] types = new int[columnCount];
+        for ( int i = 0; i < columnCount; i++ ) { // metadata is one-based
+            labels[i] = metaData.getColumnLabel(i + 1);
+            types[i] = metaData.getColumnType(i + 1);
+        }
+        return new ResultColumns(labels, types);
+    }
+
+    /**
+     * @param metaData the result meta-data
+     * @return whether the result columns still match this layout
+     * @throws SQLException
+     */
+    boolean matches(final ResultSetMetaData metaData) throws SQLException {
+        final String[] labels = this.labels;
+        if ( metaData.getColumnCount() != labels.length ) return false;
+        for ( int i = 0; i < labels.length; i++ ) {
+            if ( metaData.getColumnType(i + 1) != types[i] ) return false;
+            final String label = metaData.getColumnLabel(i + 1);
+            if ( label != labels[i] && ! labels[i].equals(label) ) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the (extracted) column data, null if not yet set
+     * @see RubyJdbcConnection#extractColumns(ThreadContext, java.sql.Connection, java.sql.ResultSet, boolean)
+     */
+    RubyJdbcConnection.ColumnData[] getColumns() {
+        return columns;
+    }
+
+    void setColumns(final RubyJdbcConnection.ColumnData[] columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @return a new array of (the extracted) column names, names are shared (frozen) strings
+     */
+    RubyArray newColumnsArray(final ThreadContext context) {
+        IRubyObject[] columnNames = this.columnNames;
+        if ( columnNames == null ) {
+            final RubyJdbcConnection.ColumnData[] columns = this.columns;
+            columnNames = new IRubyObject[columns.length];
+            for ( int i = 0; i < columnNames.length; i++ ) columnNames[i] = columns[i].getName(context);
+            this.columnNames = columnNames;
+        }
+        // NOTE: each result gets its own (mutable) array e.g. result.columns.delete('raw_rnum_')
+        return RubyArray.newArrayNoCopy(context.runtime, columnNames.clone());
+    }
+
+    /**
+     * @return column names (as labeled)
+     */
+    RubyString[] getNames(final ThreadContext context, final StringCache stringCache) {
+        RubyString[] names = this.names;
+        if ( names == null ) {
+            names = new RubyString[labels.length];
+            for ( int i = 0; i < names.length; i++ ) {
+                names[i] = stringCache.get(context, labels[i]);
+            }
+            this.names = names;
+        }
+        return names;
+    }
+
+    /**
+     * @return a new array of column names (as labeled), names are shared (frozen) strings
+     */
+    RubyArray newNamesArray(final ThreadContext context, final StringCache stringCache) {
+        final RubyString[] names = getNames(context, stringCache);
+        return RubyArray.newArrayNoCopy(context.runtime, names.clone()); // names are shared
+    }
+
+}
@@ -61,6 +61,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import arjdbc.util.StringHelper;
 import org.joda.time.DateTime;
@@ -82,6 +84,7 @@ import org.jruby.RubyNumeric;
 import org.jruby.RubyObject;
 import org.jruby.RubyString;
 import org.jruby.RubySymbol;
+import org.jruby.RubyThread;
 import org.jruby.RubyTime;
 import org.jruby.anno.JRubyMethod;
 import org.jruby.exceptions.RaiseException;
@@ -102,7 +105,9 @@ import org.jruby.util.SafePropertyAccessor;
 import org.jruby.util.TypeConverter;
 
 import arjdbc.util.DateTimeUtils;
+import arjdbc.util.JavaTimeUtils;
 import arjdbc.util.ObjectSupport;
+import arjdbc.util.SqlFingerprint;
 import arjdbc.util.StringCache;
 
 import static arjdbc.jdbc.DataSourceConnectionFactory.*;
@@ -128,9 +133,27 @@ public class RubyJdbcConnection extends RubyObject {
     private boolean lazy = false; // final once set on initialize
     private boolean jndi; // final once set on initialize
     private boolean configureConnection = true; // final once initialized
+    private boolean columnarResults = false; // final once initialized
+    private boolean lazyResults = false; // final once initialized
+    private int dictionaryStrings = 0; // max distinct (dictionary) strings per column, 0 - off
+    private int statementTimeout = 0; // (seconds) applied to executed statements, 0 - no timeout
+    private boolean statementTimeoutSet = false; // whether a timeout was ever set
+    private boolean cancelOnInterrupt = true; // final once initialized
+    private ExecutionMetrics metrics; // null unless enabled (final once initialized)
+    private StatementStats statementStats; // null unless enabled (final once initialized)
+    private int javaTime; // 0 - unknown (try), 1 - driver supports java.time, -1 - off
+    private StatementCache statementCache; // null when not caching statements
+    private final StringCache stringCache; // (per runtime) cache of column/table names
+
+    private long aliveWindow = 0; // (nanos) skip validation when last successfully used within, 0 - off
+    private volatile long lastAlive; // System.nanoTime() of the last successful use, 0 - unknown
+    private final AtomicLong aliveValidations = new AtomicLong();
+    private final AtomicLong aliveSkipped = new AtomicLong();
+    private final AtomicLong aliveFailures = new AtomicLong();
 
     protected RubyJdbcConnection(Ruby runtime, RubyClass metaClass) {
         super(runtime, metaClass);
+        this.stringCache = getStringCache(runtime);
     }
 
     private static final ObjectAllocator ALLOCATOR = new ObjectAllocator() {
@@ -143,9 +166,31 @@ public class RubyJdbcConnection extends RubyObject {
         final RubyClass JdbcConnection = getConnectionAdapters(runtime).
             defineClassUnder("JdbcConnection", runtime.getObject(), ALLOCATOR);
         JdbcConnection.defineAnnotatedMethods(RubyJdbcConnection.class);
+        JdbcConnection.setInternalVariable("string_cache", new StringCache(StringCache.getCapacity(runtime))); // per runtime
+        final ConcurrentHashMap<String, PooledConnectionFactory> pools = new ConcurrentHashMap<>();
+        JdbcConnection.setInternalVariable("connection_pools", pools);
+        PooledConnectionFactory.shutdownOnTeardown(runtime, pools);
+        LazyRows.createLazyRowsClass(runtime, JdbcConnection);
+        QueryFuture.createQueryFutureClass(runtime, JdbcConnection);
         return JdbcConnection;
     }
 
+    /**
+     * @param runtime
+     * @return the (shared) string cache for the given runtime
+     */
+    public static StringCache getStringCache(final Ruby runtime) {
+        return (StringCache) getJdbcConnection(runtime).getInternalVariable("string_cache");
+    }
+
+    /**
+     * @return string cache statistics (hits, misses, evictions, hit_rate, size and capacity)
+     */
+    @JRubyMethod(name = "string_cache_stats", meta = true)
+    public static IRubyObject string_cache_stats(final ThreadContext context, final IRubyObject self) {
+        return getStringCache(context.runtime).toStatsHash(context);
+    }
+
     @Deprecated
     public static RubyClass getJdbcConnectionClass(final Ruby runtime) {
         return getConnectionAdapters(runtime).getClass("JdbcConnection");
@@ -571,6 +616,145 @@ public class RubyJdbcConnection extends RubyObject {
         else {
             this.configureConnection = value != context.runtime.getFalse();
         }
+
+        value = getConfigValue(context, "columnar_results");
+        this.columnarResults = value != context.nil && value != context.runtime.getFalse();
+        value = getConfigValue(context, "lazy_results");
+        this.lazyResults = value != context.nil && value != context.runtime.getFalse();
+
+        value = getConfigValue(context, "metrics");
+        if ( value == context.nil ? METRICS : value.isTrue() ) {
+            this.metrics = ExecutionMetrics.newMetrics(context.runtime, getMetaClass());
+        }
+        value = getConfigValue(context, "statement_stats");
+        if ( value == context.nil ? STATEMENT_STATS : value.isTrue() ) {
+            this.statementStats = StatementStats.getStatementStats(context.runtime);
+        }
+
+        this.statementCache = newStatementCache(context);
+
+        value = getConfigValue(context, "dictionary_strings");
+        this.dictionaryStrings = dictionaryStrings(value);
+
+        value = getConfigValue(context, "java_time");
+        if ( ! DateTimeUtils.JAVA_TIME || value == context.runtime.getFalse() ) this.javaTime = -1;
+
+        setStatementTimeout(context, getConfigValue(context, "statement_timeout"));
+        value = getConfigValue(context, "cancel_on_interrupt");
+        this.cancelOnInterrupt = value != context.runtime.getFalse();
+
+        value = getConfigValue(context, "connection_alive_window");
+        if ( value == context.nil ) this.aliveWindow = 0;
+        else {
+            final double window = toDouble(context, "connection_alive_window", value);
+            if ( window < 0 ) throw context.runtime.newArgumentError("invalid connection_alive_window: " + value.inspect());
+            this.aliveWindow = (long) ( window * 1e9 );
+        }
+    }
+
+    private static int dictionaryStrings(final IRubyObject value) {
+        if ( value == null || value.isNil() || value == value.getRuntime().getFalse() ) return 0;
+        if ( value == value.getRuntime().getTrue() ) return StringDictionary.DEFAULT_MAX_SIZE;
+        return Math.max(0, RubyNumeric.fix2int(value));
+    }
+
+    /**
+     * @return the maximum number of distinct strings per (dictionary encoded) column, 0 when off
+     * @see StringDictionary
+     */
+    @JRubyMethod(name = "dictionary_strings")
+    public IRubyObject dictionary_strings(final ThreadContext context) {
+        return context.runtime.newFixnum(dictionaryStrings);
+    }
+
+    /**
+     * Turns dictionary encoding of (low-cardinality) string columns on/off.
+     * @param context
+     * @param value true, false or the max number of distinct strings per column
+     * @return value
+     */
+    @JRubyMethod(name = "dictionary_strings=", required = 1)
+    public IRubyObject set_dictionary_strings(final ThreadContext context, final IRubyObject value) {
+        this.dictionaryStrings = dictionaryStrings(value);
+        return value;
+    }
+
+    // prepared statements are cached when using prepared_statements: true and a statement_limit > 0
+    private StatementCache newStatementCache(final ThreadContext context) {
+        IRubyObject value = getConfigValue(context, "prepared_statements");
+        if ( value == context.nil || value == context.runtime.getFalse() ) return null;
+        if ( value instanceof RubyString && "false".equals(value.toString()) ) return null;
+
+        value = getConfigValue(context, "statement_limit");
+        final int limit = value == context.nil ? StatementCache.DEFAULT_LIMIT : toInt(context, "statement_limit", value);
+        return limit > 0 ? new StatementCache(limit, metrics) : null;
+    }
+
+    /**
+     * Returns a prepared statement from the (per connection) statement cache.
+     * Cached statements should not be closed, only have their parameters cleared.
+     * @param connection the current connection
+     * @param sql the statement SQL
+     * @param generatedKeys whether the statement should return generated keys
+     * @return a cached statement or null if statements are not being cached
+     * @throws SQLException if preparing the statement fails
+     */
+    protected final PreparedStatement getCachedStatement(final Connection connection,
+        final String sql, final boolean generatedKeys) throws SQLException {
+        final StatementCache statementCache = this.statementCache;
+        if ( statementCache == null ) return null;
+        return statementCache.get(connection, sql, generatedKeys);
+    }
+
+    /**
+     * @return whether prepared statements are being cached
+     */
+    @JRubyMethod(name = "statement_cache?")
+    public IRubyObject statement_cache_p(final ThreadContext context) {
+        return context.runtime.newBoolean( statementCache != null );
+    }
+
+    /**
+     * @return statement cache statistics (hits, misses, evictions, size and limit) or nil
+     */
+    @JRubyMethod(name = "statement_cache_stats")
+    public IRubyObject statement_cache_stats(final ThreadContext context) {
+        final StatementCache statementCache = this.statementCache;
+        return statementCache == null ? context.nil : statementCache.toStatsHash(context);
+    }
+
+    @JRubyMethod(name = "clear_statement_cache")
+    public IRubyObject clear_statement_cache(final ThreadContext context) {
+        final StatementCache statementCache = this.statementCache;
+        if ( statementCache != null ) statementCache.clear();
+        return context.nil;
+    }
+
+    @JRubyMethod(name = "delete_cached_statement", required = 1)
+    public IRubyObject delete_cached_statement(final ThreadContext context, final IRubyObject sql) {
+        final StatementCache statementCache = this.statementCache;
+        if ( statementCache == null ) return context.runtime.getFalse();
+        return context.runtime.newBoolean( statementCache.delete( sqlString(sql) ) );
+    }
+
+    /**
+     * Whether (raw) results should keep values in columns, converting to Ruby on read.
+     * Configured using <code>columnar_results: true</code>.
+     * @return true if results are columnar
+     */
+    protected final boolean isColumnarResults() {
+        return columnarResults;
+    }
+
+    /**
+     * Whether <code>ActiveRecord::Result</code>s should only convert rows once accessed.
+     * Configured using <code>lazy_results: true</code>.
+     * Numeric, boolean, string and decimal columns (and PostgreSQL's temporal ones)
+     * keep raw values, other columns are still converted while reading rows.
+     * @return true if results are lazy
+     */
+    protected final boolean isLazyResults() {
+        return lazyResults;
     }
 
     @JRubyMethod(name = "adapter")
@@ -693,7 +877,58 @@ public class RubyJdbcConnection extends RubyObject {
         }
         final Connection connection = getConnection();
         if ( connection == null ) return context.runtime.getFalse(); // unlikely
-        return context.runtime.newBoolean( isConnectionValid(context, connection) );
+        final long lastAlive = this.lastAlive;
+        if ( aliveWindow > 0 && lastAlive != 0 && System.nanoTime() - lastAlive < aliveWindow ) {
+            aliveSkipped.incrementAndGet();
+            return context.runtime.getTrue(); // recently (successfully) used
+        }
+        return context.runtime.newBoolean( validateConnection(context, connection) );
+    }
+
+    /**
+     * @param args pass true for metrics aggregated for all connections (of this class)
+     * @return execution metrics (statement counts, rows, bytes and times) or nil if not enabled
+     * @see ExecutionMetrics
+     */
+    @JRubyMethod(name = "execution_metrics", optional = 1)
+    public IRubyObject execution_metrics(final ThreadContext context, final IRubyObject[] args) {
+        final ExecutionMetrics metrics = this.metrics;
+        if ( metrics == null ) return context.nil;
+        final boolean aggregate = args.length > 0 && args[0].isTrue();
+        return ( aggregate ? metrics.getAggregate() : metrics ).toStatsHash(context);
+    }
+
+    /**
+     * @return execution metrics when enabled, null otherwise
+     */
+    final ExecutionMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static final boolean METRICS = Boolean.parseBoolean( SafePropertyAccessor.getProperty("arjdbc.metrics") );
+    private static final boolean STATEMENT_STATS = Boolean.parseBoolean( SafePropertyAccessor.getProperty("arjdbc.statement_stats") );
+
+    /**
+     * @return connection validation statistics (validations performed, skipped and failed)
+     * @see #active_p(ThreadContext)
+     */
+    @JRubyMethod(name = "validation_stats")
+    public IRubyObject validation_stats(final ThreadContext context) {
+        final Ruby runtime = context.runtime;
+        final RubyHash stats = RubyHash.newHash(runtime);
+        stats.op_aset(context, runtime.newSymbol("validations"), runtime.newFixnum(aliveValidations.get()));
+        stats.op_aset(context, runtime.newSymbol("skipped"), runtime.newFixnum(aliveSkipped.get()));
+        stats.op_aset(context, runtime.newSymbol("failures"), runtime.newFixnum(aliveFailures.get()));
+        return stats;
+    }
+
+    private boolean validateConnection(final ThreadContext context, final Connection connection) {
+        aliveValidations.incrementAndGet();
+        if ( isConnectionValid(context, connection) ) {
+            lastAlive = System.nanoTime(); return true;
+        }
+        aliveFailures.incrementAndGet(); lastAlive = 0;
+        return false;
     }
 
     @JRubyMethod(name = "disconnect!")
@@ -704,6 +939,8 @@ public class RubyJdbcConnection extends RubyObject {
 
     @JRubyMethod(name = "reconnect!")
     public synchronized IRubyObject reconnect(final ThreadContext context) {
+        if ( metrics != null ) metrics.reconnected();
+        final Object event = FlightEvents.begin(FlightEvents.RECONNECT);
         try {
             connectImpl( ! lazy ); connected = true;
         }
@@ -711,10 +948,15 @@ public class RubyJdbcConnection extends RubyObject {
             debugStackTrace(context, e);
             handleException(context, e);
         }
+        finally {
+            if ( event != null ) FlightEvents.RECONNECT.commit(event, getAdapterName(), "reconnect!");
+        }
         return context.nil;
     }
 
     private void connectImpl(final boolean forceConnection) throws SQLException {
+        // a pooled connection is returned before checking out a new one :
+        if ( connectionFactory instanceof PooledConnectionFactory ) setConnection(null);
         setConnection( forceConnection ? newConnection() : null );
         if ( forceConnection ) configureConnection();
     }
@@ -795,7 +1037,7 @@ public class RubyJdbcConnection extends RubyObject {
     @JRubyMethod(name = "execute", required = 1)
     public IRubyObject execute(final ThreadContext context, final IRubyObject sql) {
         final String query = sqlString(sql);
-        return withConnection(context, new Callable<IRubyObject>() {
+        return withStatementStats(context, query, null, new Callable<IRubyObject>() {
             public IRubyObject call(final Connection connection) throws SQLException {
                 Statement statement = null;
                 try {
@@ -803,7 +1045,7 @@ public class RubyJdbcConnection extends RubyObject {
 
                     // For DBs that do support multiple statements, lets return the last result set
                     // to be consistent with AR
-                    boolean hasResultSet = doExecute(statement, query);
+                    boolean hasResultSet = executeStatement(context, statement, query, false, ExecutionMetrics.EXECUTE);
                     int updateCount = statement.getUpdateCount();
 
                     IRubyObject result = context.nil; // If no results, return nil
@@ -839,6 +1081,45 @@ public class RubyJdbcConnection extends RubyObject {
         });
     }
 
+    /**
+     * Executes using {@link #withConnection(ThreadContext, Callable)} and records
+     * the statement's stats (when <code>statement_stats</code> are enabled).
+     * @param context
+     * @param query the statement SQL
+     * @param binds bind values (for prepared statements) or null
+     * @param block the execution
+     * @return the result
+     * @see StatementStats
+     */
+    protected final IRubyObject withStatementStats(final ThreadContext context,
+        final String query, final IRubyObject binds, final Callable<IRubyObject> block) {
+        final StatementStats stats = this.statementStats;
+        if ( stats == null ) return withConnection(context, block);
+
+        final long start = System.nanoTime();
+        IRubyObject result = null;
+        try {
+            return result = withConnection(context, block);
+        }
+        finally {
+            stats.record(context, fingerprint(query), query, binds, System.nanoTime() - start, resultRows(context, result), result == null);
+        }
+    }
+
+    /**
+     * @return the row count of a (mapped) result, the update count or -1 if failed (null)
+     */
+    private static long resultRows(final ThreadContext context, final IRubyObject result) {
+        if ( result == null ) return -1;
+        if ( result instanceof RubyFixnum ) return ((RubyFixnum) result).getLongValue(); // update count
+        if ( result instanceof JdbcResult ) return ((JdbcResult) result).getRowCount();
+        if ( result == context.nil ) return 0;
+        if ( result instanceof RubyArray ) return ((RubyArray) result).size();
+        // ActiveRecord::Result (or ArJdbc::LazyResult) :
+        if ( result.respondsTo("length") ) return RubyNumeric.num2long(result.callMethod(context, "length"));
+        return 0;
+    }
+
     protected Statement createStatement(final ThreadContext context, final Connection connection)
         throws SQLException {
         final Statement statement = connection.createStatement();
@@ -866,6 +1147,164 @@ public class RubyJdbcConnection extends RubyObject {
         return statement.execute(query);
     }
 
+    /**
+     * Executes a statement (applying the statement timeout).
+     * Unless turned off (<code>cancel_on_interrupt: false</code>), when the Ruby
+     * thread gets interrupted while executing (e.g. by <code>Timeout</code> or
+     * <code>Thread#raise</code>) the statement is cancelled, the query does not
+     * keep running on the server (and the connection is freed right away).
+     * @param context
+     * @param statement the statement
+     * @param sql the SQL (prepared or to execute)
+     * @param prepared whether the statement is a prepared statement
+     * @param kind the kind of statement e.g. {@link ExecutionMetrics#QUERY},
+     *             {@link ExecutionMetrics#EXECUTE} executes using {@link #doExecute(Statement, String)}
+     * @return true if the first result is a <code>ResultSet</code>
+     * @throws SQLException
+     */
+    protected final boolean executeStatement(final ThreadContext context,
+        final Statement statement, final String sql, final boolean prepared, final int kind) throws SQLException {
+        return executeStatement(context, statement, sql, prepared, kind, false) > 0;
+    }
+
+    /**
+     * Executes an update statement (applying the statement timeout) using
+     * <code>executeUpdate</code>, thus raising if the statement returns rows.
+     * Same as {@link #executeStatement(ThreadContext, Statement, String, boolean, int)}
+     * a Ruby thread interrupt cancels the statement.
+     * @param context
+     * @param statement the statement
+     * @param sql the SQL (prepared or to execute)
+     * @param prepared whether the statement is a prepared statement
+     * @return the update count
+     * @throws SQLException
+     */
+    protected final int executeUpdateStatement(final ThreadContext context,
+        final Statement statement, final String sql, final boolean prepared) throws SQLException {
+        return executeStatement(context, statement, sql, prepared, ExecutionMetrics.UPDATE, true);
+    }
+
+    private int executeStatement(final ThreadContext context, final Statement statement,
+        final String sql, final boolean prepared, final int kind, final boolean update) throws SQLException {
+        applyStatementTimeout(statement);
+        final long start = metrics == null ? 0 : System.nanoTime();
+        final Object event = FlightEvents.begin(FlightEvents.QUERY);
+        final String executeSQL = prepared ? null : sql;
+        final boolean doExecute = kind == ExecutionMetrics.EXECUTE;
+        try {
+            if ( ! cancelOnInterrupt ) return executeStatement(statement, executeSQL, doExecute, update);
+
+            final StatementExecution execution = new StatementExecution(executeSQL, doExecute, update);
+            final Integer result;
+            try {
+                // raises if Ruby thread interrupted
+                result = context.getThread().executeTask(context, statement, execution);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("interrupted while executing statement", e);
+            }
+            if ( execution.error != null ) throw execution.error;
+            return result;
+        }
+        finally {
+            executed(kind, sql, start, event);
+        }
+    }
+
+    private void executed(final int kind, final String sql, final long start, final Object event) {
+        if ( metrics != null ) metrics.executed(kind, System.nanoTime() - start);
+        if ( event != null ) {
+            FlightEvents.QUERY.commit(event, getAdapterName(), ExecutionMetrics.kindName(kind), fingerprint(sql));
+        }
+    }
+
+    /**
+     * SQL fingerprint used for statement stats and (flight) events.
+     * Adapters whose quoting differs from the SQL standard should override.
+     * @param sql the statement SQL
+     * @return the fingerprint
+     * @see SqlFingerprint
+     */
+    protected String fingerprint(final String sql) {
+        return SqlFingerprint.fingerprint(sql);
+    }
+
+    private String getAdapterName() {
+        return getMetaClass().getRealClass().getName();
+    }
+
+    // @return the update count (if update) or 1 when the first result is a result set, 0 otherwise
+    private int executeStatement(final Statement statement, final String sql,
+        final boolean doExecute, final boolean update) throws SQLException {
+        if ( update ) {
+            if ( sql == null ) return ((PreparedStatement) statement).executeUpdate();
+            return statement.executeUpdate(sql);
+        }
+        final boolean result;
+        if ( sql == null ) result = ((PreparedStatement) statement).execute();
+        else result = doExecute ? doExecute(statement, sql) : statement.execute(sql);
+        return result ? 1 : 0;
+    }
+
+    final void applyStatementTimeout(final Statement statement) throws SQLException {
+        final int timeout = statementTimeout;
+        // once a timeout has been set (cached) statements need a reset back to 0
+        if ( timeout > 0 || statementTimeoutSet ) statement.setQueryTimeout(timeout);
+    }
+
+    private final class StatementExecution implements RubyThread.Task<Statement, Integer> {
+
+        private final String sql;
+        private final boolean doExecute;
+        private final boolean update;
+        SQLException error;
+
+        StatementExecution(final String sql, final boolean doExecute, final boolean update) {
+            this.sql = sql; this.doExecute = doExecute; this.update = update;
+        }
+
+        @Override
+        public Integer run(final ThreadContext context, final Statement statement) {
+            try { return executeStatement(statement, sql, doExecute, update); }
+            catch (SQLException e) { error = e; return 0; }
+        }
+
+        @Override // called from the interrupting thread
+        public void wakeup(final RubyThread thread, final Statement statement) {
+            try { statement.cancel(); }
+            catch (Exception e) { debugMessage(getRuntime(), "failed to cancel statement: ", e); }
+        }
+
+    }
+
+    /**
+     * @return the statement (query) timeout in seconds, 0 means no timeout
+     */
+    @JRubyMethod(name = "statement_timeout")
+    public IRubyObject statement_timeout(final ThreadContext context) {
+        return context.runtime.newFixnum(statementTimeout);
+    }
+
+    /**
+     * Sets the timeout (in seconds) applied to executed statements.
+     * @param context
+     * @param timeout seconds, nil or 0 to not time out
+     * @return timeout
+     */
+    @JRubyMethod(name = "statement_timeout=")
+    public IRubyObject set_statement_timeout(final ThreadContext context, final IRubyObject timeout) {
+        setStatementTimeout(context, timeout);
+        return timeout;
+    }
+
+    private void setStatementTimeout(final ThreadContext context, final IRubyObject timeout) {
+        final int seconds = timeout == null || timeout.isNil() ? 0 : // JDBC timeouts are in seconds
+            (int) Math.min(Math.ceil( toDouble(context, "statement_timeout", timeout) ), Integer.MAX_VALUE);
+        if ( seconds > 0 ) statementTimeoutSet = true;
+        this.statementTimeout = Math.max(seconds, 0);
+    }
+
     protected IRubyObject mapExecuteResult(final ThreadContext context,
             final Connection connection, final ResultSet resultSet) throws SQLException{
 
@@ -888,7 +1327,12 @@ public class RubyJdbcConnection extends RubyObject {
                 try {
 
                     statement = createStatement(context, connection);
-                    statement.executeUpdate(query, Statement.RETURN_GENERATED_KEYS);
+                    final long start = metrics == null ? 0 : System.nanoTime();
+                    final Object event = FlightEvents.begin(FlightEvents.QUERY);
+                    try {
+                        statement.executeUpdate(query, Statement.RETURN_GENERATED_KEYS);
+                    }
+                    finally { executed(ExecutionMetrics.INSERT, query, start, event); }
                     return mapGeneratedKeys(context, connection, statement);
 
                 } catch (final SQLException e) {
@@ -915,18 +1359,26 @@ public class RubyJdbcConnection extends RubyObject {
             public IRubyObject call(final Connection connection) throws SQLException {
                 PreparedStatement statement = null;
                 final String query = sqlString(sql);
+                final PreparedStatement cachedStatement = getCachedStatement(connection, query, true);
                 try {
 
-                    statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+                    if ( cachedStatement != null ) statement = cachedStatement;
+                    else statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
                     setStatementParameters(context, connection, statement, (RubyArray) binds);
-                    statement.executeUpdate();
+                    final long start = metrics == null ? 0 : System.nanoTime();
+                    final Object event = FlightEvents.begin(FlightEvents.QUERY);
+                    try {
+                        statement.executeUpdate();
+                    }
+                    finally { executed(ExecutionMetrics.INSERT, query, start, event); }
                     return mapGeneratedKeys(context, connection, statement);
 
                 } catch (final SQLException e) {
                     debugErrorSQL(context, query);
                     throw e;
                 } finally {
-                    close(statement);
+                    if ( cachedStatement != null ) clearParameters(cachedStatement);
+                    else close(statement);
                 }
             }
         });
@@ -949,8 +1401,7 @@ public class RubyJdbcConnection extends RubyObject {
                 try {
                     statement = createStatement(context, connection);
 
-                    final int rowCount = statement.executeUpdate(query);
-                    return context.runtime.newFixnum(rowCount);
+                    return context.runtime.newFixnum(executeUpdateStatement(context, statement, query, false));
                 } catch (final SQLException e) {
                     debugErrorSQL(context, query);
                     throw e;
@@ -976,21 +1427,132 @@ public class RubyJdbcConnection extends RubyObject {
             public IRubyObject call(final Connection connection) throws SQLException {
                 PreparedStatement statement = null;
                 final String query = sqlString(sql);
+                final PreparedStatement cachedStatement = getCachedStatement(connection, query, false);
                 try {
-                    statement = connection.prepareStatement(query);
+                    if ( cachedStatement != null ) statement = cachedStatement;
+                    else statement = connection.prepareStatement(query);
                     setStatementParameters(context, connection, statement, (RubyArray) binds);
-                    final int rowCount = statement.executeUpdate();
-                    return context.runtime.newFixnum(rowCount);
+                    return context.runtime.newFixnum(executeUpdateStatement(context, statement, query, true));
                 } catch (final SQLException e) {
                     debugErrorSQL(context, query);
                     throw e;
                 } finally {
-                    close(statement);
+                    if ( cachedStatement != null ) clearParameters(cachedStatement);
+                    else close(statement);
+                }
+            }
+        });
+    }
+
+    /**
+     * Executes a prepared (insert/update/delete) statement for each of the given binds
+     * using JDBC batches, thus without a database round-trip per executed statement.
+     * Options (a trailing Hash) :
+     * <ul>
+     *     <li>batch_size - number of statements sent to the database at once</li>
+     *     <li>generated_keys - if true the (AR) result of the generated keys is returned as well</li>
+     * </ul>
+     * Once (part of) the batch got sent to the database a failure is not re-tried.
+     *
+     * @param context which context this method is executing on.
+     * @param args (sql, binds_list) or (sql, binds_list, options)
+     * @return an array of update counts (nil when unknown) or with generated keys
+     * a pair of <code>[ update_counts, generated_keys ]</code> (keys nil if not supported)
+     */
+    @JRubyMethod(required = 2, optional = 1)
+    public IRubyObject execute_batch(final ThreadContext context, final IRubyObject[] args) {
+        final String query = sqlString( args[0] );
+        final RubyArray bindsList = (RubyArray) TypeConverter.checkArrayType(args[1]);
+        final RubyHash options = args.length > 2 && ! args[2].isNil() ? (RubyHash) TypeConverter.checkHashType(context.runtime, args[2]) : null;
+
+        final int batchSize = intOption(context, options, "batch_size", DEFAULT_BATCH_SIZE);
+        final boolean generatedKeys = booleanOption(context, options, "generated_keys");
+
+        return withConnection(context, new OnceCallable<IRubyObject>() {
+            public IRubyObject call(final Connection connection) throws SQLException {
+                final Ruby runtime = context.runtime;
+                final int size = bindsList.size();
+                final RubyArray updateCounts = RubyArray.newArray(runtime, size);
+                final RubyArray keys = generatedKeys ? RubyArray.newArray(runtime, size) : null;
+                ColumnData[] keyColumns = null;
+
+                PreparedStatement statement = getCachedStatement(connection, query, generatedKeys);
+                final boolean cached = statement != null;
+                try {
+                    if ( ! cached ) {
+                        statement = generatedKeys ?
+                            connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS) :
+                            connection.prepareStatement(query);
+                    }
+
+                    for ( int i = 0; i < size; ) {
+                        final int end = Math.min(i + batchSize, size);
+                        for ( ; i < end; i++ ) {
+                            final RubyArray binds = (RubyArray) TypeConverter.checkArrayType(bindsList.eltInternal(i));
+                            setStatementParameters(context, connection, statement, binds);
+                            statement.addBatch();
+                        }
+
+                        final long start = metrics == null ? 0 : System.nanoTime();
+                        final Object event = FlightEvents.begin(FlightEvents.QUERY);
+                        final int[] counts;
+                        started(); // statements might get (partially) executed
+                        try {
+                            counts = statement.executeBatch();
+                        }
+                        finally { executed(ExecutionMetrics.BATCH, query, start, event); }
+                        for ( final int count : counts ) {
+                            updateCounts.append( count < 0 ? context.nil : runtime.newFixnum(count) );
+                        }
+
+                        if ( keys != null ) keyColumns = mapBatchGeneratedKeys(context, connection, statement, keyColumns, keys);
+                    }
+
+                    if ( keys != null ) {
+                        final IRubyObject keysResult = keyColumns == null ? context.nil : newResult(context, keyColumns, keys);
+                        return RubyArray.newArray(runtime, updateCounts, keysResult);
+                    }
+                    return updateCounts;
+                }
+                catch (final SQLException e) {
+                    debugErrorSQL(context, query);
+                    throw e;
+                }
+                finally {
+                    if ( cached ) {
+                        try { statement.clearBatch(); }
+                        catch (SQLException e) { debugStackTrace(context, e); }
+                        clearParameters(statement);
+                    }
+                    else close(statement);
                 }
             }
         });
     }
 
+    protected static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private ColumnData[] mapBatchGeneratedKeys(final ThreadContext context, final Connection connection,
+        final Statement statement, ColumnData[] columns, final RubyArray keys) throws SQLException {
+        if ( ! supportsGeneratedKeys(connection) ) return columns;
+
+        ResultSet genKeys = null;
+        try {
+            genKeys = statement.getGeneratedKeys();
+            if ( genKeys == null ) return columns;
+            if ( columns == null ) columns = extractColumns(context, connection, genKeys, false);
+            final ColumnConverter[] converters = newColumnConverters(columns);
+            while ( genKeys.next() ) {
+                keys.append( mapRow(context, context.runtime, columns, converters, genKeys) );
+            }
+            return columns;
+        }
+        catch (SQLFeatureNotSupportedException e) {
+            return columns; // statement.getGeneratedKeys() not supported with batches
+        }
+        finally { close(genKeys); }
+    }
+
     /**
      * This is the same as execute_query but it will return a list of hashes.
      *
@@ -1033,28 +1595,29 @@ public class RubyJdbcConnection extends RubyObject {
 
     private IRubyObject doExecuteQueryRaw(final ThreadContext context,
         final String query, final int maxRows, final Block block, final RubyArray binds) {
-        return withConnection(context, new Callable<IRubyObject>() {
+        // NOTE: once rows got yielded a failure must not re-run the query (and yield again)
+        return withConnection(context, new OnceCallable<IRubyObject>() {
             public IRubyObject call(final Connection connection) throws SQLException {
                 Statement statement = null; boolean hasResult;
                 try {
                     if ( binds == null || binds.isEmpty()) { // plain statement
                         statement = createStatement(context, connection);
                         statement.setMaxRows(maxRows); // zero means there is no limit
-                        hasResult = statement.execute(query);
+                        hasResult = executeStatement(context, statement, query, false, ExecutionMetrics.QUERY);
                     }
                     else {
                         final PreparedStatement prepStatement;
                         statement = prepStatement = connection.prepareStatement(query);
                         statement.setMaxRows(maxRows); // zero means there is no limit
                         setStatementParameters(context, connection, prepStatement, binds);
-                        hasResult = prepStatement.execute();
+                        hasResult = executeStatement(context, prepStatement, query, true, ExecutionMetrics.QUERY);
                     }
 
                     if (block.isGiven()) {
                         if (hasResult) {
                             // yield(id1, name1) ... row 1 result data
                             // yield(id2, name2) ... row 2 result data
-                            return yieldResultRows(context, connection, statement.getResultSet(), block);
+                            return yieldResultRows(context, connection, statement.getResultSet(), block, this);
                         }
                         return context.nil;
                     }
@@ -1074,79 +1637,238 @@ public class RubyJdbcConnection extends RubyObject {
         });
     }
 
-    protected static String sqlString(final IRubyObject sql) {
-        return sql instanceof RubyString ? ((RubyString) sql).decodeString() : sql.convertToString().decodeString();
-    }
-
     /**
-     * Executes a query and returns the (AR) result
+     * Streams a (large) query result, rows are yielded (as hashes) while being
+     * fetched from the database thus memory use is bounded by the fetch size.
+     * Options (a trailing Hash) :
+     * <ul>
+     *     <li>fetch_size - number of rows the driver should fetch at a time</li>
+     *     <li>batch_size - if given an array of (up to batch size) rows gets yielded</li>
+     * </ul>
+     * NOTE: depending on the driver the connection should not be used (for other
+     * statements) from within the block, e.g. MySQL streaming does not allow so.
      *
-     * @param context which context this method is executing on
-     * @param sql the query to execute
-     * @return a Ruby <code>ActiveRecord::Result</code> instance
-     * @throws SQLException when a database error occurs
+     * @param context which context this method is executing on.
+     * @param args (sql), (sql, binds), (sql, binds, options) or (sql, options)
+     * @param block to yield rows (or batches of rows) to
+     * @return the number of rows yielded
      */
-    @JRubyMethod(required = 1)
-    public IRubyObject execute_query(final ThreadContext context, final IRubyObject sql) {
-        return withConnection(context, new Callable<IRubyObject>() {
+    @JRubyMethod(required = 1, optional = 2)
+    public IRubyObject stream_query(final ThreadContext context, final IRubyObject[] args, final Block block) {
+        if ( ! block.isGiven() ) throw context.runtime.newArgumentError("stream_query requires a block");
+
+        final String query = sqlString( args[0] );
+        RubyArray binds = null; RubyHash options = null;
+        for ( int i = 1; i < args.length; i++ ) {
+            if ( args[i] instanceof RubyHash ) options = (RubyHash) args[i];
+            else if ( ! args[i].isNil() ) binds = (RubyArray) TypeConverter.checkArrayType(args[i]);
+        }
+
+        final int fetchSize = intOption(context, options, "fetch_size", DEFAULT_STREAM_FETCH_SIZE);
+        final int batchSize = intOption(context, options, "batch_size", 0);
+
+        return doStreamQuery(context, query, binds, fetchSize, batchSize, block);
+    }
+
+    protected static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+
+    private static int intOption(final ThreadContext context, final RubyHash options,
+        final String name, final int defaultValue) {
+        if ( options == null ) return defaultValue;
+        final IRubyObject value = options.fastARef(context.runtime.newSymbol(name));
+        if ( value == null || value.isNil() ) return defaultValue;
+        final int intValue = RubyNumeric.fix2int(value);
+        if ( intValue <= 0 ) throw context.runtime.newArgumentError(name + " must be positive");
+        return intValue;
+    }
+
+    private static boolean booleanOption(final ThreadContext context, final RubyHash options, final String name) {
+        if ( options == null ) return false;
+        final IRubyObject value = options.fastARef(context.runtime.newSymbol(name));
+        return value != null && value.isTrue();
+    }
+
+    private IRubyObject doStreamQuery(final ThreadContext context, final String query,
+        final RubyArray binds, final int fetchSize, final int batchSize, final Block block) {
+        // NOTE: once rows got yielded a failure must not re-run the query (and yield again)
+        return withConnection(context, new OnceCallable<IRubyObject>() {
             public IRubyObject call(final Connection connection) throws SQLException {
-                Statement statement = null;
-                final String query = sqlString(sql);
+                final boolean toggleAutoCommit = streamRequiresTransaction() && connection.getAutoCommit();
+                Statement statement = null; ResultSet resultSet = null; boolean success = false;
                 try {
-                    statement = createStatement(context, connection);
+                    if ( toggleAutoCommit ) connection.setAutoCommit(false);
 
-                    // At least until AR 5.1 #exec_query still gets called for things that don't return results in some cases :(
-                    if (statement.execute(query)) {
-                        return mapQueryResult(context, connection, statement.getResultSet());
+                    if ( binds == null || binds.isEmpty() ) { // plain statement
+                        statement = createStatement(context, connection);
+                        configureStreamingStatement(connection, statement, fetchSize);
+                        resultSet = statement.executeQuery(query);
+                    }
+                    else {
+                        final PreparedStatement prepStatement;
+                        statement = prepStatement = connection.prepareStatement(query);
+                        configureStreamingStatement(connection, statement, fetchSize);
+                        setStatementParameters(context, connection, prepStatement, binds);
+                        resultSet = prepStatement.executeQuery();
                     }
 
-                    return context.nil;
-
-                } catch (final SQLException e) {
+                    final long count = yieldStreamRows(context, connection, resultSet, batchSize, block, this);
+                    success = true;
+                    return context.runtime.newFixnum(count);
+                }
+                catch (final SQLException e) {
                     debugErrorSQL(context, query);
                     throw e;
-                } finally {
+                }
+                finally {
+                    close(resultSet);
                     close(statement);
+                    if ( toggleAutoCommit ) restoreAutoCommit(context, connection, success);
                 }
             }
         });
     }
 
-    // Called from exec_query in abstract/database_statements
-    /**
-     * Executes a query and returns the (AR) result.  There are three parameters:
-     * <ul>
-     *     <li>sql - String of sql</li>
-     *     <li>binds - Array of bindings for a prepared statement</li>
-     *     <li>cached_statement - A prepared statement object that should be used instead of creating a new statement</li>
-     * </ul>
-     *
-     * @param context which context this method is executing on.
+    private void restoreAutoCommit(final ThreadContext context, final Connection connection, final boolean commit) {
+        try {
+            if ( ! commit ) connection.rollback();
+            connection.setAutoCommit(true); // commits
+        }
+        catch (SQLException e) {
+            debugStackTrace(context, e); // connection is likely broken
+        }
+    }
+
+    private long yieldStreamRows(final ThreadContext context, final Connection connection,
+        final ResultSet resultSet, final int batchSize, final Block block,
+        final OnceCallable<?> once) throws SQLException {
+        final Ruby runtime = context.runtime;
+        final ColumnData[] columns = extractColumns(context, connection, resultSet, false);
+        final ColumnConverter[] converters = newColumnConverters(columns);
+
+        long count = 0;
+        if ( batchSize > 0 ) {
+            RubyArray batch = RubyArray.newArray(runtime, batchSize);
+            while ( resultSet.next() ) {
+                batch.append( mapRawRow(context, runtime, columns, converters, resultSet) );
+                count++;
+                if ( batch.size() == batchSize ) {
+                    once.started();
+                    block.yield(context, batch);
+                    batch = RubyArray.newArray(runtime, batchSize);
+                }
+            }
+            if ( ! batch.isEmpty() ) {
+                once.started();
+                block.yield(context, batch);
+            }
+        }
+        else {
+            while ( resultSet.next() ) {
+                final IRubyObject row = mapRawRow(context, runtime, columns, converters, resultSet);
+                once.started();
+                block.yield(context, row);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Configures a statement for streaming results, by default sets the fetch size.
+     * Adapters with drivers needing special setup to stream should override.
+     * @param connection the connection
+     * @param statement the statement to be executed
+     * @param fetchSize the (requested) fetch size
+     * @throws SQLException
+     */
+    protected void configureStreamingStatement(final Connection connection, final Statement statement,
+        final int fetchSize) throws SQLException {
+        statement.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Whether the driver only streams results (uses a cursor) within a transaction.
+     * @return false by default
+     */
+    protected boolean streamRequiresTransaction() {
+        return false;
+    }
+
+    protected static String sqlString(final IRubyObject sql) {
+        return sql instanceof RubyString ? ((RubyString) sql).decodeString() : sql.convertToString().decodeString();
+    }
+
+    /**
+     * Executes a query and returns the (AR) result
+     *
+     * @param context which context this method is executing on
+     * @param sql the query to execute
+     * @return a Ruby <code>ActiveRecord::Result</code> instance
+     * @throws SQLException when a database error occurs
+     */
+    @JRubyMethod(required = 1)
+    public IRubyObject execute_query(final ThreadContext context, final IRubyObject sql) {
+        final String query = sqlString(sql);
+        return withStatementStats(context, query, null, new Callable<IRubyObject>() {
+            public IRubyObject call(final Connection connection) throws SQLException {
+                Statement statement = null;
+                try {
+                    statement = createStatement(context, connection);
+
+                    // At least until AR 5.1 #exec_query still gets called for things that don't return results in some cases :(
+                    if (executeStatement(context, statement, query, false, ExecutionMetrics.QUERY)) {
+                        return mapQueryResult(context, connection, statement.getResultSet());
+                    }
+
+                    return context.nil;
+
+                } catch (final SQLException e) {
+                    debugErrorSQL(context, query);
+                    throw e;
+                } finally {
+                    close(statement);
+                }
+            }
+        });
+    }
+
+    // Called from exec_query in abstract/database_statements
+    /**
+     * Executes a query and returns the (AR) result.  There are three parameters:
+     * <ul>
+     *     <li>sql - String of sql</li>
+     *     <li>binds - Array of bindings for a prepared statement</li>
+     *     <li>prepare - whether the statement should be (re-)used from the statement cache</li>
+     * </ul>
+     *
+     * @param context which context this method is executing on.
      * @param sql the query to execute.
      * @param binds an array of values to be set as parameters
-     * @param cachedStatement a wrapped <code>PreparedStatement</code> to use instead of creating a new <code>Statement</code>
+     * @param prepare if true the statement gets cached (when statement caching is on)
      * @return a Ruby <code>ActiveRecord::Result</code> instance
      * @throws SQLException when a database error occurs
      */
     @JRubyMethod(required = 3)
     public IRubyObject execute_prepared_query(final ThreadContext context, final IRubyObject sql,
-        final IRubyObject binds, final IRubyObject cachedStatement) {
-        return withConnection(context, new Callable<IRubyObject>() {
+        final IRubyObject binds, final IRubyObject prepare) {
+        final String query = sql.convertToString().getUnicodeValue();
+        return withStatementStats(context, query, binds, new Callable<IRubyObject>() {
             public IRubyObject call(final Connection connection) throws SQLException {
-                final boolean cached = !(cachedStatement == null || cachedStatement.isNil());
-                final String query = sql.convertToString().getUnicodeValue();
+                final PreparedStatement cachedStatement = prepare != null && prepare.isTrue() ?
+                        getCachedStatement(connection, query, false) : null;
+                final boolean cached = cachedStatement != null;
                 PreparedStatement statement = null;
 
                 try {
                     if (cached) {
-                        statement = (PreparedStatement) JavaEmbedUtils.rubyToJava(cachedStatement);
+                        statement = cachedStatement;
                     } else {
                         statement = connection.prepareStatement(query);
                     }
 
                     setStatementParameters(context, connection, statement, (RubyArray) binds);
 
-                    if (statement.execute()) {
+                    if (executeStatement(context, statement, query, true, ExecutionMetrics.QUERY)) {
                         ResultSet resultSet = statement.getResultSet();
                         IRubyObject results = mapQueryResult(context, connection, resultSet);
 
@@ -1165,7 +1887,7 @@ public class RubyJdbcConnection extends RubyObject {
                     throw e;
                 } finally {
                     if ( cached ) {
-                        statement.clearParameters();
+                        clearParameters(statement);
                     } else {
                         close(statement);
                     }
@@ -1174,12 +1896,152 @@ public class RubyJdbcConnection extends RubyObject {
         });
     }
 
+    /**
+     * Executes a query asynchronously (on a background thread), the statement
+     * execution and result mapping do not block the caller.
+     * Requires the connection to be pooled (<code>jdbc_pool</code>), the query
+     * runs on a separate connection checked out from the pool, thus several
+     * queries might run concurrently. A pooled connection gets configured (same
+     * as this connection) on the caller's thread before its first async use.
+     * Without a pool the query is executed synchronously (the returned future
+     * is already done), as this connection must not be shared with another thread.
+     *
+     * @param context which context this method is executing on
+     * @param args the query SQL and (optional) binds
+     * @return a future, its <code>value</code> is an <code>ActiveRecord::Result</code>
+     * @see QueryFuture
+     */
+    @JRubyMethod(name = "execute_query_async", required = 1, optional = 1)
+    public IRubyObject execute_query_async(final ThreadContext context, final IRubyObject[] args) {
+        final String query = sqlString(args[0]);
+        final IRubyObject binds = args.length > 1 ? args[1] : context.nil;
+        final Ruby runtime = context.runtime;
+        final QueryFuture future = new QueryFuture(runtime, this);
+
+        final ConnectionFactory factory = this.connectionFactory;
+        if ( ! ( factory instanceof PooledConnectionFactory ) ) {
+            return future.run(new java.util.concurrent.Callable<IRubyObject>() {
+                public IRubyObject call() {
+                    return withConnection(context, new Callable<IRubyObject>() {
+                        public IRubyObject call(final Connection connection) throws SQLException {
+                            return executeQueryAsync(context, future, connection, query, binds);
+                        }
+                    });
+                }
+            });
+        }
+
+        final Connection connection;
+        try {
+            connection = factory.newConnection();
+            configurePooledConnection(connection);
+        }
+        catch (SQLException e) {
+            return handleException(context, e);
+        }
+        try {
+            return future.submit(new java.util.concurrent.Callable<IRubyObject>() {
+                public IRubyObject call() throws SQLException {
+                    try {
+                        return executeQueryAsync(runtime.getCurrentContext(), future, connection, query, binds);
+                    }
+                    finally {
+                        close(connection); // returned to the pool
+                    }
+                }
+            });
+        }
+        catch (RuntimeException e) { // rejected
+            close(connection); throw e;
+        }
+    }
+
+    /**
+     * Configures a (pooled) connection the same way as this connection, once per
+     * physical connection. The adapter's <code>configure_connection</code> is run
+     * (on the current thread) while the given connection is temporarily set.
+     */
+    private void configurePooledConnection(final Connection connection) throws SQLException {
+        if ( ! PooledConnectionFactory.markConfigured(connection) ) return;
+        try {
+            synchronized (this) {
+                final Connection current = getConnectionImpl();
+                dataWrapStruct(connection);
+                try {
+                    configureConnection();
+                }
+                finally {
+                    final Connection used = getConnectionImpl();
+                    if ( used != connection ) close(used); // re-connected meanwhile
+                    dataWrapStruct(current);
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            close(connection); throw e;
+        }
+    }
+
+    private IRubyObject executeQueryAsync(final ThreadContext context, final QueryFuture future,
+        final Connection connection, final String query, final IRubyObject binds) throws SQLException {
+        Statement statement = null;
+        try {
+            final boolean hasResult;
+            if ( binds instanceof RubyArray && ! ((RubyArray) binds).isEmpty() ) {
+                final PreparedStatement prepared = connection.prepareStatement(query);
+                future.setStatement(statement = prepared);
+                applyStatementTimeout(prepared);
+                setStatementParameters(context, connection, prepared, (RubyArray) binds);
+                hasResult = prepared.execute();
+            }
+            else {
+                future.setStatement(statement = createStatement(context, connection));
+                applyStatementTimeout(statement);
+                hasResult = statement.execute(query);
+            }
+            if ( ! hasResult ) return context.nil;
+            return mapQueryResult(context, connection, statement.getResultSet());
+        }
+        catch (final SQLException e) {
+            debugErrorSQL(context, query);
+            throw e;
+        }
+        finally {
+            future.setStatement(null);
+            close(statement);
+        }
+    }
+
     protected IRubyObject mapQueryResult(final ThreadContext context,
         final Connection connection, final ResultSet resultSet) throws SQLException {
+        final ResultColumns resultColumns = getResultColumns(resultSet);
+        if ( resultColumns != null ) { // result of a cached statement
+            ColumnData[] columns = resultColumns.getColumns();
+            if ( columns == null ) {
+                columns = extractColumns(context, connection, resultSet, false);
+                resultColumns.setColumns(columns);
+            }
+            return mapToResult(context, resultSet, columns, resultColumns.newColumnsArray(context));
+        }
         final ColumnData[] columns = extractColumns(context, connection, resultSet, false);
         return mapToResult(context, connection, resultSet, columns);
     }
 
+    /**
+     * Column layout for results of a cached (prepared) statement, these stay the
+     * same between executions (and are only validated against the meta-data).
+     * @param resultSet the result set
+     * @return the result columns or null if the result is not from a cached statement
+     * @throws SQLException
+     */
+    final ResultColumns getResultColumns(final ResultSet resultSet) throws SQLException {
+        final StatementCache statementCache = this.statementCache;
+        if ( statementCache == null ) return null;
+        final Statement statement = resultSet.getStatement();
+        if ( statement == null ) return null;
+        return statementCache.getResultColumns(statement, resultSet.getMetaData());
+    }
+
     /**
      * @deprecated please do not use this method
      */
@@ -1248,11 +2110,10 @@ public class RubyJdbcConnection extends RubyObject {
         final List<RubyString> keyNames = new ArrayList<RubyString>();
         try {
             resultSet = metaData.getPrimaryKeys(table.catalog, table.schema, table.name);
-            final Ruby runtime = context.runtime;
             while ( resultSet.next() ) {
                 String columnName = resultSet.getString(PRIMARY_KEYS_COLUMN_NAME);
                 columnName = caseConvertIdentifierForRails(connection, columnName);
-                keyNames.add( RubyString.newUnicodeString(runtime, columnName) );
+                keyNames.add( getCachedString(context, columnName) );
             }
         }
         finally { close(resultSet); }
@@ -1419,7 +2280,7 @@ public class RubyJdbcConnection extends RubyObject {
                         indexName = caseConvertIdentifierForRails(metaData, indexName);
 
                         final String columnName = indexInfoSet.getString(INDEX_INFO_COLUMN_NAME);
-                        final RubyString rubyColumnName = cachedString(
+                        final RubyString rubyColumnName = getCachedString(
                                 context, caseConvertIdentifierForRails(metaData, columnName)
                         );
                         if ( primaryKeys.contains(rubyColumnName) ) continue;
@@ -1434,8 +2295,8 @@ public class RubyJdbcConnection extends RubyObject {
                             final boolean nonUnique = indexInfoSet.getBoolean(INDEX_INFO_NON_UNIQUE);
 
                             IRubyObject[] args = new IRubyObject[] {
-                                cachedString(context, indexTableName), // table_name
-                                cachedString(context, indexName), // index_name
+                                getCachedString(context, indexTableName), // table_name
+                                getCachedString(context, indexName), // index_name
                                 nonUnique ? runtime.getFalse() : runtime.getTrue(), // unique
                                 currentColumns = RubyArray.newArray(runtime, 4) // [] column names
                                 // orders, (since AR 3.2) where, type, using (AR 4.0)
@@ -1509,8 +2370,8 @@ public class RubyJdbcConnection extends RubyObject {
                         final String onUpdate = extractForeignKeyRule( fkInfoSet.getInt("UPDATE_RULE") );
                         if ( onUpdate != null ) options.op_aset(context, runtime.newSymbol("on_update"), runtime.newSymbol(onUpdate));
 
-                        IRubyObject from_table = cachedString(context, fkTableName);
-                        IRubyObject to_table = cachedString(context, pkTableName);
+                        IRubyObject from_table = getCachedString(context, fkTableName);
+                        IRubyObject to_table = getCachedString(context, pkTableName);
                         fKeys.add( FKDefinition.newInstance(context, from_table, to_table, options, Block.NULL_BLOCK) ); // ForeignKeyDefinition.new
                     }
 
@@ -1816,11 +2677,11 @@ public class RubyJdbcConnection extends RubyObject {
         if ( driver_instance != null && ! driver_instance.isNil() ) {
             final Object driverInstance = driver_instance.toJava(Object.class);
             if ( driverInstance instanceof DriverWrapper ) {
-                setConnectionFactory(factory = new DriverConnectionFactory(
+                setConnectionFactory(factory = newPooledFactory(context, new DriverConnectionFactory(
                         (DriverWrapper) driverInstance, jdbcURL,
                         ( username.isNil() ? null : username.toString() ),
                         ( password.isNil() ? null : password.toString() )
-                ));
+                )));
                 return factory;
             }
             else {
@@ -1837,10 +2698,83 @@ public class RubyJdbcConnection extends RubyObject {
         final String pass = password.isNil() ? null : password.toString();
 
         final DriverWrapper driverWrapper = newDriverWrapper(context, driver.toString());
-        setConnectionFactory(factory = new DriverConnectionFactory(driverWrapper, jdbcURL, user, pass));
+        setConnectionFactory(factory = newPooledFactory(context, new DriverConnectionFactory(driverWrapper, jdbcURL, user, pass)));
         return factory;
     }
 
+    /**
+     * Wraps the driver factory with a (shared) connection pool when configured
+     * e.g. <code>jdbc_pool: { max_size: 10, min_idle: 2, idle_timeout: 300 }</code>
+     * (or simply <code>jdbc_pool: true</code>), time-outs are in seconds.
+     * Pools are shared (per runtime) between connections of the same configuration.
+     */
+    private ConnectionFactory newPooledFactory(final ThreadContext context, final DriverConnectionFactory factory) {
+        final IRubyObject pool = getConfigValue(context, "jdbc_pool");
+        if ( pool == context.nil || pool == context.runtime.getFalse() ) return factory;
+        final RubyHash options = pool instanceof RubyHash ? (RubyHash) pool : null;
+
+        long maxSize = poolOption(context, options, "max_size", -1, 1);
+        if ( maxSize < 0 ) { // AR's pool: size by default
+            final IRubyObject size = getConfigValue(context, "pool");
+            maxSize = size == context.nil ? PooledConnectionFactory.DEFAULT_MAX_SIZE : toInt(context, "pool", size);
+        }
+        final long minIdle = poolOption(context, options, "min_idle", 0, 1);
+        final long idleTimeout = poolOption(context, options, "idle_timeout", 600, 1000);
+        final long maxLifetime = poolOption(context, options, "max_lifetime", 1800, 1000);
+        final long validationInterval = poolOption(context, options, "validation_interval", 30, 1000);
+        final long validationTimeout = poolOption(context, options, "validation_timeout", 5, 1);
+        long checkoutTimeout = poolOption(context, options, "checkout_timeout", -1, 1000);
+        if ( checkoutTimeout < 0 ) {
+            final IRubyObject timeout = getConfigValue(context, "checkout_timeout");
+            checkoutTimeout = timeout == context.nil ? 5000 :
+                (long) ( toDouble(context, "checkout_timeout", timeout) * 1000 );
+        }
+
+        final String key = PooledConnectionFactory.poolKey(factory,
+            maxSize + "," + minIdle + ',' + idleTimeout + ',' + maxLifetime + ',' +
+            validationInterval + ',' + validationTimeout + ',' + checkoutTimeout);
+        final ConcurrentHashMap<String, PooledConnectionFactory> pools = getConnectionPools(context.runtime);
+        PooledConnectionFactory pooled = pools.get(key);
+        if ( pooled == null ) {
+            synchronized (pools) {
+                pooled = pools.get(key);
+                if ( pooled == null ) {
+                    pooled = new PooledConnectionFactory(factory, (int) maxSize, (int) minIdle,
+                        idleTimeout, maxLifetime, validationInterval, (int) validationTimeout, checkoutTimeout);
+                    pools.put(key, pooled.start());
+                }
+            }
+        }
+        return pooled;
+    }
+
+    private static long poolOption(final ThreadContext context, final RubyHash options,
+        final String name, final long defaultValue, final int scale) {
+        if ( options == null ) return scale * defaultValue;
+        IRubyObject value = options.fastARef(context.runtime.newSymbol(name));
+        if ( value == null ) value = options.fastARef(context.runtime.newString(name));
+        if ( value == null || value.isNil() ) return defaultValue < 0 ? defaultValue : scale * defaultValue;
+        return (long) ( toDouble(context, "jdbc_pool " + name, value) * scale );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentHashMap<String, PooledConnectionFactory> getConnectionPools(final Ruby runtime) {
+        return (ConcurrentHashMap<String, PooledConnectionFactory>) getJdbcConnection(runtime).getInternalVariable("connection_pools");
+    }
+
+    /**
+     * @return connection pool statistics (active, idle, size, waiters, wait times etc.) or nil if not pooled
+     * @see PooledConnectionFactory
+     */
+    @JRubyMethod(name = "pool_stats")
+    public IRubyObject pool_stats(final ThreadContext context) {
+        final ConnectionFactory factory = this.connectionFactory;
+        if ( factory instanceof PooledConnectionFactory ) {
+            return ((PooledConnectionFactory) factory).toStatsHash(context);
+        }
+        return context.nil;
+    }
+
     protected DriverWrapper newDriverWrapper(final ThreadContext context, final String driver) throws RaiseException {
         try {
             return new DriverWrapper(context.runtime, driver, resolveDriverProperties(context));
@@ -1970,187 +2904,632 @@ public class RubyJdbcConnection extends RubyObject {
         else {
             setDriverFactory(context); return false;
         }
-    }
+    }
+
+    @JRubyMethod(name = "jndi?", alias = "jndi_connection?")
+    public RubyBoolean jndi_p(final ThreadContext context) {
+        return context.runtime.newBoolean( isJndi() );
+    }
+
+    protected boolean isJndi() { return this.jndi; }
+
+    @JRubyMethod(name = "config")
+    public IRubyObject config() { return getConfig(); }
+
+    public IRubyObject getConfig() { return this.config; }
+
+    protected final IRubyObject getConfigValue(final ThreadContext context, final String key) {
+        final IRubyObject config = getConfig();
+        final RubySymbol keySym = context.runtime.newSymbol(key);
+        if ( config instanceof RubyHash ) {
+            final IRubyObject value = ((RubyHash) config).fastARef(keySym);
+            return value == null ? context.nil : value;
+        }
+        return config.callMethod(context, "[]", keySym);
+    }
+
+    /**
+     * @param context
+     * @param name the (config) name used in the error message
+     * @param value a numeric or a (numeric) string
+     * @return the value as a double
+     * @throws ArgumentError if the value is not a number
+     */
+    static double toDouble(final ThreadContext context, final String name, final IRubyObject value) {
+        if ( value instanceof RubyNumeric ) return RubyNumeric.num2dbl(value);
+        try {
+            final double result = Double.parseDouble(value.toString().trim());
+            if ( ! Double.isNaN(result) ) return result;
+        }
+        catch (NumberFormatException e) { /* raise below */ }
+        throw context.runtime.newArgumentError("invalid " + name + ": " + value.inspect());
+    }
+
+    /**
+     * @param context
+     * @param name the (config) name used in the error message
+     * @param value an integer or an (integer) string
+     * @return the value as an int
+     * @throws ArgumentError if the value is not an integer
+     */
+    static int toInt(final ThreadContext context, final String name, final IRubyObject value) {
+        if ( value instanceof RubyInteger ) return RubyNumeric.num2int(value);
+        try {
+            return Integer.parseInt(value.toString().trim());
+        }
+        catch (NumberFormatException e) {
+            throw context.runtime.newArgumentError("invalid " + name + ": " + value.inspect());
+        }
+    }
+
+    protected final IRubyObject setConfigValue(final ThreadContext context,
+                                               final String key, final IRubyObject value) {
+        final IRubyObject config = getConfig();
+        final RubySymbol keySym = context.runtime.newSymbol(key);
+        if ( config instanceof RubyHash ) {
+            return ((RubyHash) config).op_aset(context, keySym, value);
+        }
+        return config.callMethod(context, "[]=", new IRubyObject[] { keySym, value });
+    }
+
+    protected final IRubyObject setConfigValueIfNotSet(final ThreadContext context,
+                                                       final String key, final IRubyObject value) {
+        final IRubyObject config = getConfig();
+        final RubySymbol keySym = context.runtime.newSymbol(key);
+        if ( config instanceof RubyHash ) {
+            final IRubyObject setValue = ((RubyHash) config).fastARef(keySym);
+            if ( setValue != null ) return setValue;
+            return ((RubyHash) config).op_aset(context, keySym, value);
+        }
+
+        final IRubyObject setValue = config.callMethod(context, "[]", keySym);
+        if ( setValue != context.nil ) return setValue;
+        return config.callMethod(context, "[]=", new IRubyObject[] { keySym, value });
+    }
+
+    private static String toStringOrNull(final IRubyObject arg) {
+        return arg.isNil() ? null : arg.toString();
+    }
+
+    protected final IRubyObject getAdapter() { return this.adapter; }
+
+    protected RubyClass getJdbcColumnClass(final ThreadContext context) {
+        return (RubyClass) getAdapter().callMethod(context, "jdbc_column_class");
+    }
+
+    protected ConnectionFactory getConnectionFactory() throws RaiseException {
+        if ( connectionFactory == null ) {
+            // NOTE: only for (backwards) compatibility (to be deleted) :
+            IRubyObject connection_factory = getInstanceVariable("@connection_factory");
+            if ( connection_factory == null ) {
+                throw getRuntime().newRuntimeError("@connection_factory not set");
+            }
+            connectionFactory = (ConnectionFactory) connection_factory.toJava(ConnectionFactory.class);
+        }
+        return connectionFactory;
+    }
+
+    public void setConnectionFactory(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    protected Connection newConnection() throws SQLException {
+        return getConnectionFactory().newConnection();
+    }
+
+    private static String[] getTypes(final IRubyObject typeArg) {
+        if ( typeArg instanceof RubyArray ) {
+            final RubyArray typesArr = (RubyArray) typeArg;
+            final String[] types = new String[typesArr.size()];
+            for ( int i = 0; i < types.length; i++ ) {
+                types[i] = typesArr.eltInternal(i).toString();
+            }
+            return types;
+        }
+        return new String[] { typeArg.toString() }; // expect a RubyString
+    }
+
+    /**
+     * Maps a query result into a <code>ActiveRecord</code> result.
+     * @param context
+     * @param connection
+     * @param resultSet
+     * @param columns
+     * @return expected to return a <code>ActiveRecord::Result</code>
+     * @throws SQLException
+     */
+    protected IRubyObject mapToResult(final ThreadContext context, final Connection connection,
+                                      final ResultSet resultSet, final ColumnData[] columns) throws SQLException {
+        return mapToResult(context, resultSet, columns, null);
+    }
+
+    private IRubyObject mapToResult(final ThreadContext context, final ResultSet resultSet,
+        final ColumnData[] columns, RubyArray columnNames) throws SQLException {
+        final Ruby runtime = context.runtime;
+        final ColumnConverter[] converters = newColumnConverters(columns);
+        if ( columnNames == null ) columnNames = columnsToArray(context, columns);
+
+        if ( lazyResults ) return mapToLazyResult(context, resultSet, columns, columnNames, converters);
+
+        final RubyArray resultRows = runtime.newArray();
+
+        final Object event = FlightEvents.begin(FlightEvents.RESULT_MAPPING);
+        final ExecutionMetrics metrics = this.metrics;
+        if ( metrics == null ) {
+            while (resultSet.next()) {
+                resultRows.append(mapRow(context, runtime, columns, converters, resultSet));
+            }
+        }
+        else {
+            long fetch = 0, conversion = 0, bytes = 0; int rows = 0;
+            long time = System.nanoTime();
+            while (resultSet.next()) {
+                final long fetched = System.nanoTime(); fetch += fetched - time;
+                final RubyArray row = (RubyArray) mapRow(context, runtime, columns, converters, resultSet);
+                resultRows.append(row);
+                time = System.nanoTime(); conversion += time - fetched;
+                bytes += ExecutionMetrics.byteSize(row.toJavaArrayMaybeUnsafe()); rows++;
+            }
+            fetch += System.nanoTime() - time;
+            metrics.mapped(rows, bytes, fetch, conversion);
+        }
+        if ( event != null ) mapped(event, resultRows.size(), columns.length);
+
+        return getResult(runtime).newInstance(context, columnNames, resultRows, Block.NULL_BLOCK); // Result.new
+    }
+
+    /**
+     * Commits a (JFR) result mapping event.
+     */
+    final void mapped(final Object event, final int rows, final int columns) {
+        FlightEvents.RESULT_MAPPING.commit(event, getAdapterName(), rows, columns);
+    }
+
+    private IRubyObject mapToLazyResult(final ThreadContext context, final ResultSet resultSet,
+        final ColumnData[] columns, final RubyArray columnNames, final ColumnConverter[] converters) throws SQLException {
+        final ColumnValues[] columnValues = new ColumnValues[columns.length];
+        for ( int i = 0; i < columns.length; i++ ) columnValues[i] = converters[i].newColumnValues();
+
+        final Object event = FlightEvents.begin(FlightEvents.RESULT_MAPPING);
+        final ExecutionMetrics metrics = this.metrics;
+        int rowCount = 0;
+        if ( metrics == null ) {
+            while (resultSet.next()) {
+                readRow(context, resultSet, columns, columnValues);
+                rowCount++;
+            }
+        }
+        else { // reading values (columns converted eagerly) counts as conversion
+            long fetch = 0, conversion = 0;
+            long time = System.nanoTime();
+            while (resultSet.next()) {
+                final long fetched = System.nanoTime(); fetch += fetched - time;
+                readRow(context, resultSet, columns, columnValues);
+                time = System.nanoTime(); conversion += time - fetched;
+                rowCount++;
+            }
+            fetch += System.nanoTime() - time;
+            metrics.mapped(rowCount, 0, fetch, conversion); // (lazily converted) bytes not known
+        }
+        if ( event != null ) mapped(event, rowCount, columns.length);
+
+        return LazyRows.newLazyResult(context, columnNames, columnValues, rowCount, null);
+    }
+
+    private static void readRow(final ThreadContext context, final ResultSet resultSet,
+        final ColumnData[] columns, final ColumnValues[] columnValues) throws SQLException {
+        for ( int i = 0; i < columns.length; i++ ) {
+            columnValues[i].read(context, resultSet, columns[i].index);
+        }
+    }
+
+    /**
+     * Converts a single column value, prefer resolving a {@link ColumnConverter}
+     * once (per result set) using {@link #newColumnConverter(int)} when mapping rows.
+     */
+    protected IRubyObject jdbcToRuby(
+        final ThreadContext context, final Ruby runtime,
+        final int column, final int type, final ResultSet resultSet)
+        throws SQLException {
+        return newColumnConverter(type).toRuby(context, runtime, resultSet, column);
+    }
+
+    /**
+     * Converts a (JDBC) column value into a Ruby value.
+     *
+     * Resolved (per column) once for a result set - thus the row mapping loop
+     * does not need to switch on the JDBC type for every value it converts.
+     * @see RubyJdbcConnection#newColumnConverter(int)
+     */
+    protected abstract class ColumnConverter {
+
+        public abstract IRubyObject toRuby(final ThreadContext context, final Ruby runtime,
+            final ResultSet resultSet, final int column) throws SQLException;
+
+        /**
+         * Column storage for (columnar) results, by default values are converted eagerly.
+         * Converters that can keep values in primitive form should override.
+         * @return new column values
+         */
+        public ColumnValues newColumnValues() {
+            return new ColumnValues.Converted(this);
+        }
+
+        /**
+         * Returns a (dictionary) converter sharing identical values within a column,
+         * only string converters (that can do so) are expected to override.
+         * @param maxSize maximum number of distinct values (before giving up)
+         * @return a new converter (or this if not supported)
+         * @see StringDictionary
+         */
+        public ColumnConverter withDictionary(final int maxSize) {
+            return this;
+        }
+
+    }
+
+    /**
+     * Resolves the converter to be used for a column of the given JDBC type.
+     * Adapters needing custom conversions for a (JDBC) type should override.
+     * @param type the JDBC type (as reported by the result set meta-data)
+     * @return a column converter
+     */
+    protected ColumnConverter newColumnConverter(final int type) {
+        switch (type) {
+        case Types.BLOB:
+        case Types.BINARY:
+        case Types.VARBINARY:
+        case Types.LONGVARBINARY:
+            return new StreamConverter();
+        case Types.CLOB:
+        case Types.NCLOB: // JDBC 4.0
+            return new ReaderConverter();
+        case Types.LONGVARCHAR:
+        case Types.LONGNVARCHAR: // JDBC 4.0
+            return new ReaderConverter();
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.INTEGER:
+            return new IntegerConverter();
+        case Types.REAL:
+        case Types.FLOAT:
+        case Types.DOUBLE:
+            return new DoubleConverter();
+        case Types.BIGINT:
+            return new BigIntegerConverter();
+        case Types.NUMERIC:
+        case Types.DECIMAL:
+            return new DecimalConverter();
+        case Types.DATE:
+            return new DateConverter();
+        case Types.TIME:
+            return new TimeConverter();
+        case Types.TIMESTAMP:
+            return new TimestampConverter();
+        case Types.BIT:
+            return new BitConverter();
+        case Types.BOOLEAN:
+            return new BooleanConverter();
+        case Types.SQLXML: // JDBC 4.0
+            return new XmlConverter();
+        case Types.ARRAY: // we handle JDBC Array into (Ruby) []
+            return new ArrayConverter();
+        case Types.NULL:
+            return new NullConverter();
+        // NOTE: (JDBC) exotic stuff just cause it's so easy with JRuby :)
+        case Types.JAVA_OBJECT:
+        case Types.OTHER:
+            return new ObjectConverter();
+        // (default) String
+        case Types.CHAR:
+        case Types.VARCHAR:
+        case Types.NCHAR: // JDBC 4.0
+        case Types.NVARCHAR: // JDBC 4.0
+        default:
+            return new StringConverter();
+        }
+        // NOTE: not mapped types :
+        //case Types.DISTINCT:
+        //case Types.STRUCT:
+        //case Types.REF:
+        //case Types.DATALINK:
+    }
+
+    /**
+     * Builds the (row mapping) plan for the given columns.
+     * @param columns
+     * @return converters matching the given columns
+     */
+    protected final ColumnConverter[] newColumnConverters(final ColumnData[] columns) {
+        final ColumnConverter[] converters = new ColumnConverter[columns.length];
+        final boolean legacy = isJdbcToRubyOverridden(getClass());
+        for ( int i = 0; i < columns.length; i++ ) {
+            final int type = columns[i].type;
+            converters[i] = legacy ? new JdbcToRubyConverter(type) : newColumnConverter(type);
+            if ( dictionaryStrings > 0 ) converters[i] = converters[i].withDictionary(dictionaryStrings);
+        }
+        return converters;
+    }
+
+    final ColumnConverter[] newColumnConverters(final int[] columnTypes) {
+        final ColumnConverter[] converters = new ColumnConverter[columnTypes.length];
+        final boolean legacy = isJdbcToRubyOverridden(getClass());
+        for ( int i = 0; i < columnTypes.length; i++ ) {
+            final int type = columnTypes[i];
+            converters[i] = legacy ? new JdbcToRubyConverter(type) : newColumnConverter(type);
+            if ( dictionaryStrings > 0 ) converters[i] = converters[i].withDictionary(dictionaryStrings);
+        }
+        return converters;
+    }
+
+    // NOTE: (external) adapters might still be overriding jdbcToRuby, in which case we keep using it
+    private static boolean isJdbcToRubyOverridden(final Class<?> klass) {
+        return isOverridden(klass, RubyJdbcConnection.class, "jdbcToRuby",
+            ThreadContext.class, Ruby.class, int.class, int.class, ResultSet.class);
+    }
+
+    /**
+     * Whether a <code>xxxToRuby(context, runtime, resultSet, column)</code> conversion method
+     * has been overridden (below the given class), converters use this to decide whether
+     * they can keep values in a (primitive) columnar form.
+     * @param declaringClass the class (in the hierarchy) declaring the method
+     * @param name the conversion method name
+     * @return true if a sub-class re-defines the method
+     */
+    protected final boolean isConverterOverridden(final Class<?> declaringClass, final String name) {
+        return isOverridden(getClass(), declaringClass, name,
+            ThreadContext.class, Ruby.class, ResultSet.class, int.class);
+    }
+
+    private static boolean isOverridden(final Class<?> klass, final Class<?> declaringClass,
+        final String name, final Class<?>... parameterTypes) {
+        final String key = klass.getName() + ':' + declaringClass.getName() + '#' + name;
+        Boolean overridden = overriddenMethods.get(key);
+        if ( overridden == null ) {
+            overridden = Boolean.FALSE;
+            for ( Class<?> k = klass; k != declaringClass && k != null; k = k.getSuperclass() ) {
+                try {
+                    k.getDeclaredMethod(name, parameterTypes);
+                    overridden = Boolean.TRUE; break;
+                }
+                catch (NoSuchMethodException e) { /* continue */ }
+                catch (SecurityException e) { break; }
+            }
+            overriddenMethods.put(key, overridden);
+        }
+        return overridden.booleanValue();
+    }
+
+    private static final Map<String, Boolean> overriddenMethods = new ConcurrentHashMap<>(16);
+
+    private final class JdbcToRubyConverter extends ColumnConverter {
+
+        private final int type;
+
+        JdbcToRubyConverter(final int type) { this.type = type; }
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return jdbcToRuby(context, runtime, column, type, resultSet);
+        }
+
+    }
+
+    private final class StreamConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            try {
+                return streamToRuby(context, runtime, resultSet, column);
+            }
+            catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+
+    }
+
+    private final class ReaderConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            try {
+                return readerToRuby(context, runtime, resultSet, column);
+            }
+            catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+
+    }
+
+    private final class IntegerConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return integerToRuby(context, runtime, resultSet, column);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            if ( isConverterOverridden(RubyJdbcConnection.class, "integerToRuby") ) {
+                return super.newColumnValues();
+            }
+            return new ColumnValues.Longs();
+        }
+
+    }
+
+    private final class DoubleConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return doubleToRuby(context, runtime, resultSet, column);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            if ( isConverterOverridden(RubyJdbcConnection.class, "doubleToRuby") ) {
+                return super.newColumnValues();
+            }
+            return new ColumnValues.Doubles();
+        }
+
+    }
+
+    private final class BigIntegerConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return bigIntegerToRuby(context, runtime, resultSet, column);
+        }
+
+    }
+
+    private final class DecimalConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return decimalToRuby(context, runtime, resultSet, column);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            if ( isConverterOverridden(RubyJdbcConnection.class, "decimalToRuby") ) {
+                return super.newColumnValues();
+            }
+            return new ColumnValues.Decimals();
+        }
 
-    @JRubyMethod(name = "jndi?", alias = "jndi_connection?")
-    public RubyBoolean jndi_p(final ThreadContext context) {
-        return context.runtime.newBoolean( isJndi() );
     }
 
-    protected boolean isJndi() { return this.jndi; }
+    private final class DateConverter extends ColumnConverter {
 
-    @JRubyMethod(name = "config")
-    public IRubyObject config() { return getConfig(); }
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return dateToRuby(context, runtime, resultSet, column);
+        }
 
-    public IRubyObject getConfig() { return this.config; }
+    }
 
-    protected final IRubyObject getConfigValue(final ThreadContext context, final String key) {
-        final IRubyObject config = getConfig();
-        final RubySymbol keySym = context.runtime.newSymbol(key);
-        if ( config instanceof RubyHash ) {
-            final IRubyObject value = ((RubyHash) config).fastARef(keySym);
-            return value == null ? context.nil : value;
+    private final class TimeConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return timeToRuby(context, runtime, resultSet, column);
         }
-        return config.callMethod(context, "[]", keySym);
+
     }
 
-    protected final IRubyObject setConfigValue(final ThreadContext context,
-                                               final String key, final IRubyObject value) {
-        final IRubyObject config = getConfig();
-        final RubySymbol keySym = context.runtime.newSymbol(key);
-        if ( config instanceof RubyHash ) {
-            return ((RubyHash) config).op_aset(context, keySym, value);
+    private final class TimestampConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return timestampToRuby(context, runtime, resultSet, column);
         }
-        return config.callMethod(context, "[]=", new IRubyObject[] { keySym, value });
+
     }
 
-    protected final IRubyObject setConfigValueIfNotSet(final ThreadContext context,
-                                                       final String key, final IRubyObject value) {
-        final IRubyObject config = getConfig();
-        final RubySymbol keySym = context.runtime.newSymbol(key);
-        if ( config instanceof RubyHash ) {
-            final IRubyObject setValue = ((RubyHash) config).fastARef(keySym);
-            if ( setValue != null ) return setValue;
-            return ((RubyHash) config).op_aset(context, keySym, value);
+    private final class BitConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return bitToRuby(context, runtime, resultSet, column);
         }
 
-        final IRubyObject setValue = config.callMethod(context, "[]", keySym);
-        if ( setValue != context.nil ) return setValue;
-        return config.callMethod(context, "[]=", new IRubyObject[] { keySym, value });
     }
 
-    private static String toStringOrNull(final IRubyObject arg) {
-        return arg.isNil() ? null : arg.toString();
-    }
+    private final class BooleanConverter extends ColumnConverter {
 
-    protected final IRubyObject getAdapter() { return this.adapter; }
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return booleanToRuby(context, runtime, resultSet, column);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            if ( isConverterOverridden(RubyJdbcConnection.class, "booleanToRuby") || ( rawBoolean != null && rawBoolean.booleanValue() ) ) {
+                return super.newColumnValues();
+            }
+            return new ColumnValues.Booleans();
+        }
 
-    protected RubyClass getJdbcColumnClass(final ThreadContext context) {
-        return (RubyClass) getAdapter().callMethod(context, "jdbc_column_class");
     }
 
-    protected ConnectionFactory getConnectionFactory() throws RaiseException {
-        if ( connectionFactory == null ) {
-            // NOTE: only for (backwards) compatibility (to be deleted) :
-            IRubyObject connection_factory = getInstanceVariable("@connection_factory");
-            if ( connection_factory == null ) {
-                throw getRuntime().newRuntimeError("@connection_factory not set");
-            }
-            connectionFactory = (ConnectionFactory) connection_factory.toJava(ConnectionFactory.class);
+    private final class XmlConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return xmlToRuby(context, runtime, resultSet, column);
         }
-        return connectionFactory;
+
     }
 
-    public void setConnectionFactory(ConnectionFactory connectionFactory) {
-        this.connectionFactory = connectionFactory;
+    private final class ArrayConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return arrayToRuby(context, runtime, resultSet, column);
+        }
+
     }
 
-    protected Connection newConnection() throws SQLException {
-        return getConnectionFactory().newConnection();
+    private final class NullConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) {
+            return context.nil;
+        }
+
     }
 
-    private static String[] getTypes(final IRubyObject typeArg) {
-        if ( typeArg instanceof RubyArray ) {
-            final RubyArray typesArr = (RubyArray) typeArg;
-            final String[] types = new String[typesArr.size()];
-            for ( int i = 0; i < types.length; i++ ) {
-                types[i] = typesArr.eltInternal(i).toString();
-            }
-            return types;
+    private final class ObjectConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return objectToRuby(context, runtime, resultSet, column);
         }
-        return new String[] { typeArg.toString() }; // expect a RubyString
+
     }
 
-    /**
-     * Maps a query result into a <code>ActiveRecord</code> result.
-     * @param context
-     * @param connection
-     * @param resultSet
-     * @param columns
-     * @return expected to return a <code>ActiveRecord::Result</code>
-     * @throws SQLException
-     */
-    protected IRubyObject mapToResult(final ThreadContext context, final Connection connection,
-                                      final ResultSet resultSet, final ColumnData[] columns) throws SQLException {
-        final Ruby runtime = context.runtime;
+    private final class StringConverter extends ColumnConverter {
 
-        final RubyArray resultRows = runtime.newArray();
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return stringToRuby(context, runtime, resultSet, column);
+        }
 
-        while (resultSet.next()) {
-            resultRows.append(mapRow(context, runtime, columns, resultSet, this));
+        @Override
+        public ColumnConverter withDictionary(final int maxSize) {
+            if ( isConverterOverridden(RubyJdbcConnection.class, "stringToRuby") ) return this;
+            return new DictionaryStringConverter(maxSize);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            if ( isConverterOverridden(RubyJdbcConnection.class, "stringToRuby") ) {
+                return super.newColumnValues();
+            }
+            return new ColumnValues.Strings();
         }
 
-        return newResult(context, columns, resultRows);
     }
 
-    protected IRubyObject jdbcToRuby(
-        final ThreadContext context, final Ruby runtime,
-        final int column, final int type, final ResultSet resultSet)
-        throws SQLException {
+    private final class DictionaryStringConverter extends ColumnConverter {
 
-        try {
-            switch (type) {
-            case Types.BLOB:
-            case Types.BINARY:
-            case Types.VARBINARY:
-            case Types.LONGVARBINARY:
-                return streamToRuby(context, runtime, resultSet, column);
-            case Types.CLOB:
-            case Types.NCLOB: // JDBC 4.0
-                return readerToRuby(context, runtime, resultSet, column);
-            case Types.LONGVARCHAR:
-            case Types.LONGNVARCHAR: // JDBC 4.0
-                return readerToRuby(context, runtime, resultSet, column);
-            case Types.TINYINT:
-            case Types.SMALLINT:
-            case Types.INTEGER:
-                return integerToRuby(context, runtime, resultSet, column);
-            case Types.REAL:
-            case Types.FLOAT:
-            case Types.DOUBLE:
-                return doubleToRuby(context, runtime, resultSet, column);
-            case Types.BIGINT:
-                return bigIntegerToRuby(context, runtime, resultSet, column);
-            case Types.NUMERIC:
-            case Types.DECIMAL:
-                return decimalToRuby(context, runtime, resultSet, column);
-            case Types.DATE:
-                return dateToRuby(context, runtime, resultSet, column);
-            case Types.TIME:
-                return timeToRuby(context, runtime, resultSet, column);
-            case Types.TIMESTAMP:
-                return timestampToRuby(context, runtime, resultSet, column);
-            case Types.BIT:
-                return bitToRuby(context, runtime, resultSet, column);
-            case Types.BOOLEAN:
-                return booleanToRuby(context, runtime, resultSet, column);
-            case Types.SQLXML: // JDBC 4.0
-                return xmlToRuby(context, runtime, resultSet, column);
-            case Types.ARRAY: // we handle JDBC Array into (Ruby) []
-                return arrayToRuby(context, runtime, resultSet, column);
-            case Types.NULL:
-                return context.nil;
-            // NOTE: (JDBC) exotic stuff just cause it's so easy with JRuby :)
-            case Types.JAVA_OBJECT:
-            case Types.OTHER:
-                return objectToRuby(context, runtime, resultSet, column);
-            // (default) String
-            case Types.CHAR:
-            case Types.VARCHAR:
-            case Types.NCHAR: // JDBC 4.0
-            case Types.NVARCHAR: // JDBC 4.0
-            default:
-                return stringToRuby(context, runtime, resultSet, column);
-            }
-            // NOTE: not mapped types :
-            //case Types.DISTINCT:
-            //case Types.STRUCT:
-            //case Types.REF:
-            //case Types.DATALINK:
+        private final StringDictionary dictionary;
+
+        DictionaryStringConverter(final int maxSize) {
+            this.dictionary = new StringDictionary(maxSize);
         }
-        catch (IOException e) {
-            throw new SQLException(e.getMessage(), e);
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            final String value = resultSet.getString(column);
+            if ( value == null ) return context.nil;
+            return dictionary.get(context, value);
         }
+
     }
 
     /**
@@ -2267,6 +3646,18 @@ public class RubyJdbcConnection extends RubyObject {
         final Ruby runtime, final ResultSet resultSet, final int column)
         throws SQLException {
 
+        if ( javaTime >= 0 && ! isRawDateTime() ) {
+            try {
+                final IRubyObject date = JavaTimeUtils.getDate(context, resultSet, column, getDefaultTimeZone(context));
+                javaTime = 1;
+                if ( date != null ) return date;
+                return resultSet.wasNull() ? context.nil : RubyString.newEmptyString(runtime);
+            }
+            catch (SQLException e) { javaTimeNotSupported(e); }
+            catch (RuntimeException e) { javaTimeNotSupported(e); }
+            catch (AbstractMethodError e) { javaTimeNotSupported(e); } // JDBC < 4.1 driver
+        }
+
         final Date value = resultSet.getDate(column);
         if ( value == null ) {
             // FIXME: Do we really need this wasNull check here?
@@ -2284,6 +3675,18 @@ public class RubyJdbcConnection extends RubyObject {
         final Ruby runtime, final ResultSet resultSet, final int column)
         throws SQLException {
 
+        if ( javaTime >= 0 && ! isRawDateTime() ) {
+            try {
+                final IRubyObject time = JavaTimeUtils.getTime(context, resultSet, column, getDefaultTimeZone(context));
+                javaTime = 1;
+                if ( time != null ) return time;
+                return resultSet.wasNull() ? context.nil : RubyString.newEmptyString(runtime);
+            }
+            catch (SQLException e) { javaTimeNotSupported(e); }
+            catch (RuntimeException e) { javaTimeNotSupported(e); }
+            catch (AbstractMethodError e) { javaTimeNotSupported(e); } // JDBC < 4.1 driver
+        }
+
         final Time value = resultSet.getTime(column);
         if ( value == null ) {
             return resultSet.wasNull() ? context.nil : RubyString.newEmptyString(runtime);
@@ -2300,6 +3703,18 @@ public class RubyJdbcConnection extends RubyObject {
         final Ruby runtime, final ResultSet resultSet, final int column)
         throws SQLException {
 
+        if ( javaTime >= 0 && ! isRawDateTime() ) {
+            try {
+                final IRubyObject time = JavaTimeUtils.getTimestamp(context, resultSet, column, getDefaultTimeZone(context));
+                javaTime = 1;
+                if ( time != null ) return time;
+                return resultSet.wasNull() ? context.nil : RubyString.newEmptyString(runtime);
+            }
+            catch (SQLException e) { javaTimeNotSupported(e); }
+            catch (RuntimeException e) { javaTimeNotSupported(e); }
+            catch (AbstractMethodError e) { javaTimeNotSupported(e); } // JDBC < 4.1 driver
+        }
+
         final Timestamp value = resultSet.getTimestamp(column);
         if ( value == null ) {
             return resultSet.wasNull() ? context.nil : RubyString.newEmptyString(runtime);
@@ -2317,6 +3732,24 @@ public class RubyJdbcConnection extends RubyObject {
         return DateTimeUtils.newTime(context, value, getDefaultTimeZone(context));
     }
 
+    private static boolean isRawDateTime() {
+        return rawDateTime != null && rawDateTime.booleanValue();
+    }
+
+    /**
+     * A failed java.time conversion falls back to decoding the (same) value using
+     * the java.sql types, only connection failures are re-thrown. Unless the driver
+     * already decoded values using java.time, decoding is turned off as the driver
+     * lacks support, otherwise (partial JDBC 4.2 support) only the value falls back.
+     */
+    private <T extends Throwable> void javaTimeNotSupported(final T e) throws T {
+        final String sqlState = e instanceof SQLException ? ((SQLException) e).getSQLState() : null;
+        if ( sqlState != null && sqlState.startsWith("08") ) throw e; // connection failure
+        if ( javaTime > 0 ) return; // e.g. an unsupported column type
+        debugMessage(getRuntime(), "java.time decoding not supported by driver: " + e);
+        javaTime = -1;
+    }
+
     @Deprecated
     protected static RubyString timestampToRubyString(final Ruby runtime, String value) {
         // Timestamp's format: yyyy-mm-dd hh:mm:ss.fffffffff
@@ -2482,8 +3915,10 @@ public class RubyJdbcConnection extends RubyObject {
                 return stringToRuby(context, runtime, resultSet, column);
             }
 
+            final ColumnConverter converter = isJdbcToRubyOverridden(getClass()) ?
+                    new JdbcToRubyConverter(baseType) : newColumnConverter(baseType);
             while ( arrayResult.next() ) {
-                array.append( jdbcToRuby(context, runtime, 2, baseType, arrayResult) );
+                array.append( converter.toRuby(context, runtime, arrayResult, 2) );
             }
             return array;
         }
@@ -2634,6 +4069,9 @@ public class RubyJdbcConnection extends RubyObject {
     protected int jdbcTypeForAttribute(final ThreadContext context,
         final IRubyObject attribute) throws SQLException {
 
+        final BindType bindType = bindTypeFor(context, attribute);
+        if ( bindType != null && bindType.sqlType != null ) return bindType.jdbcType;
+
         final String internedType = internedTypeFor(context, attribute);
         final Integer sqlType = jdbcTypeFor(internedType);
         if ( sqlType != null ) {
@@ -2647,6 +4085,78 @@ public class RubyJdbcConnection extends RubyObject {
         return JDBC_TYPE_FOR.get(type);
     }
 
+    /**
+     * A bind type, as resolved for an <code>ActiveModel::Type</code> instance.
+     * Resolved types are memoized on the (identity of the) type object.
+     */
+    protected static final class BindType {
+
+        private final Class<?> owner; // the connection class resolving the type
+        private final int generation;
+
+        /**
+         * The type's SQL type name (<code>type.type</code>), null if it has none
+         * (in which case the JDBC type is resolved based on the bind value).
+         */
+        public final String sqlType;
+        public final int jdbcType;
+
+        BindType(final Class<?> owner, final int generation, final String sqlType, final int jdbcType) {
+            this.owner = owner; this.generation = generation;
+            this.sqlType = sqlType; this.jdbcType = jdbcType;
+        }
+
+    }
+
+    private static final String BIND_TYPE = "arjdbc_bind_type"; // (internal) type variable name
+
+    private static volatile int bindTypesGeneration = 0;
+
+    /**
+     * Returns the bind type for the given attribute, resolved once per attribute type.
+     * @param context current thread context
+     * @param attribute the bind (an <code>ActiveRecord::Attribute</code>)
+     * @return the (memoized) bind type or null if the attribute type can not be resolved
+     * @throws SQLException
+     * @see #clear_bind_types(ThreadContext)
+     */
+    protected final BindType bindTypeFor(final ThreadContext context, final IRubyObject attribute) throws SQLException {
+        final IRubyObject type = attributeType(context, attribute);
+        if ( ! ( type instanceof RubyBasicObject ) ) return null;
+
+        final RubyBasicObject typeObject = (RubyBasicObject) type;
+        final Object bindType = typeObject.getInternalVariable(BIND_TYPE);
+        if ( bindType != null ) {
+            final BindType resolved = (BindType) bindType;
+            if ( resolved.owner == getClass() && resolved.generation == bindTypesGeneration ) return resolved;
+        }
+        final BindType resolved = resolveBindType(context, attribute);
+        typeObject.setInternalVariable(BIND_TYPE, resolved);
+        return resolved;
+    }
+
+    private BindType resolveBindType(final ThreadContext context, final IRubyObject attribute) throws SQLException {
+        final int generation = bindTypesGeneration;
+        final IRubyObject sqlType = attributeSQLType(context, attribute);
+        if ( sqlType == context.nil ) {
+            return new BindType(getClass(), generation, null, Types.OTHER);
+        }
+        final Integer jdbcType = jdbcTypeFor( internedTypeFor(context, attribute) );
+        return new BindType(getClass(), generation, sqlType.asJavaString(),
+            jdbcType == null ? Types.OTHER : jdbcType.intValue());
+    }
+
+    /**
+     * Invalidates all (memoized) bind types, should be called when the type map gets reloaded.
+     * @param context
+     * @return nil
+     */
+    @JRubyMethod(name = "clear_bind_types")
+    public IRubyObject clear_bind_types(final ThreadContext context) {
+        bindTypesGeneration++; // racy increments are fine - any change invalidates
+        return context.nil;
+    }
+
     // ActiveRecord::Attribute#type (mostly sub-classes e.g. ActiveRecord::Attribute::WithCastValue)
     protected static IRubyObject attributeType(final ThreadContext context, final IRubyObject attribute) {
         // NOTE: a piece of (premature) optimalization - cause we can and AR 5.x does not mind
@@ -2657,6 +4167,19 @@ public class RubyJdbcConnection extends RubyObject {
         return attributeType(context, attribute).callMethod(context, "type");
     }
 
+    /**
+     * @param context
+     * @param attribute
+     * @return the attribute's SQL type name (<code>attribute.type.type</code>) or null
+     * @throws SQLException
+     */
+    protected final String attributeSQLTypeName(final ThreadContext context, final IRubyObject attribute) throws SQLException {
+        final BindType bindType = bindTypeFor(context, attribute);
+        if ( bindType != null ) return bindType.sqlType;
+        final IRubyObject type = attributeSQLType(context, attribute);
+        return type == context.nil ? null : type.asJavaString();
+    }
+
     private final CachingCallSite value_site = new FunctionalCachingCallSite("value"); // AR::Attribute#value
 
     protected String internedTypeFor(final ThreadContext context, final IRubyObject attribute) throws SQLException {
@@ -3017,8 +4540,11 @@ public class RubyJdbcConnection extends RubyObject {
     }
 
     private void setConnection(final Connection connection) {
+        final StatementCache statementCache = this.statementCache;
+        if ( statementCache != null ) statementCache.clear(); // statements belong to the previous connection
         close( getConnectionImpl() ); // close previously open connection if there is one
         dataWrapStruct(connection);
+        lastAlive = connection == null ? 0 : System.nanoTime(); // fresh connections are considered alive
         if ( connection != null ) logDriverUsed(connection);
     }
 
@@ -3156,7 +4682,7 @@ public class RubyJdbcConnection extends RubyObject {
         final RubyArray tables = RubyArray.newArray(context.runtime);
         while ( tablesSet.next() ) {
             String name = tablesSet.getString(TABLES_TABLE_NAME);
-            tables.append( cachedString(context, caseConvertIdentifierForRails(connection, name)) );
+            tables.append( getCachedString(context, caseConvertIdentifierForRails(connection, name)) );
         }
         return tables;
     }
@@ -3223,13 +4749,13 @@ public class RubyJdbcConnection extends RubyObject {
         final RubyArray columns = RubyArray.newArray(runtime);
         while ( results.next() ) {
             final String colName = results.getString(COLUMN_NAME);
-            final RubyString columnName = cachedString(context, caseConvertIdentifierForRails(metaData, colName));
+            final RubyString columnName = getCachedString(context, caseConvertIdentifierForRails(metaData, colName));
             final IRubyObject defaultValue = defaultValueFromResultSet( runtime, results );
-            final RubyString sqlType = cachedString(context, typeFromResultSet(results));
+            final RubyString sqlType = getCachedString(context, typeFromResultSet(results));
             final RubyBoolean nullable = runtime.newBoolean( ! results.getString(IS_NULLABLE).trim().equals("NO") );
 
             final String tabName = results.getString(TABLE_NAME);
-            final RubyString tableName = cachedString(context, caseConvertIdentifierForRails(metaData, tabName));
+            final RubyString tableName = getCachedString(context, caseConvertIdentifierForRails(metaData, tabName));
 
             final IRubyObject type_metadata = getAdapter().callMethod(context, "fetch_type_metadata", sqlType);
 
@@ -3343,30 +4869,32 @@ public class RubyJdbcConnection extends RubyObject {
             final boolean downCase) throws SQLException {
 
         final ColumnData[] columns = extractColumns(context, connection, resultSet, downCase);
+        final ColumnConverter[] converters = newColumnConverters(columns);
 
         final Ruby runtime = context.runtime;
         final RubyArray results = runtime.newArray();
         // [ { 'col1': 1, 'col2': 2 }, { 'col1': 3, 'col2': 4 } ]
 
         while ( resultSet.next() ) {
-            results.append(mapRawRow(context, runtime, columns, resultSet, this));
+            results.append(mapRawRow(context, runtime, columns, converters, resultSet));
         }
         return results;
     }
 
     private IRubyObject yieldResultRows(final ThreadContext context,
             final Connection connection, final ResultSet resultSet,
-            final Block block) throws SQLException {
+            final Block block, final OnceCallable<?> once) throws SQLException {
 
         final ColumnData[] columns = extractColumns(context, connection, resultSet, false);
+        final ColumnConverter[] converters = newColumnConverters(columns);
 
         final Ruby runtime = context.runtime;
         final IRubyObject[] blockArgs = new IRubyObject[columns.length];
         while ( resultSet.next() ) {
             for ( int i = 0; i < columns.length; i++ ) {
-                final ColumnData column = columns[i];
-                blockArgs[i] = jdbcToRuby(context, runtime, column.index, column.type, resultSet);
+                blockArgs[i] = converters[i].toRuby(context, runtime, resultSet, columns[i].index);
             }
+            once.started();
             block.call( context, blockArgs );
         }
 
@@ -3418,10 +4946,18 @@ public class RubyJdbcConnection extends RubyObject {
             boolean autoCommit = true; // retry in-case getAutoCommit throws
             try {
                 if ( retry > 0 ) { // we're retrying running the block
+                    if ( metrics != null ) metrics.retried();
                     if ( reconnectOnRetry ) {
+                        if ( metrics != null ) metrics.reconnected();
                         gotConnection = false;
                         debugMessage(context.runtime, "trying to re-connect using a new connection ...");
-                        connectImpl(true); // force a new connection to be created
+                        final Object event = FlightEvents.begin(FlightEvents.RECONNECT);
+                        try {
+                            connectImpl(true); // force a new connection to be created
+                        }
+                        finally {
+                            if ( event != null ) FlightEvents.RECONNECT.commit(event, getAdapterName(), "retry");
+                        }
                     }
                     else {
                         debugMessage(context.runtime, "re-trying transient failure on same connection ...");
@@ -3435,10 +4971,14 @@ public class RubyJdbcConnection extends RubyObject {
                 }
                 gotConnection = true;
                 autoCommit = connection.getAutoCommit();
-                return block.call(connection);
+                final T result = block.call(connection);
+                lastAlive = System.nanoTime();
+                return result;
             }
             catch (final Exception e) { // SQLException or RuntimeException
-                exception = e;
+                exception = e; lastAlive = 0; // re-validate on next active? check
+
+                if ( block instanceof OnceCallable && ((OnceCallable) block).started ) break;
 
                 if ( i == 0 ) retry = 1;
 
@@ -3451,7 +4991,7 @@ public class RubyJdbcConnection extends RubyObject {
                 else {
                     if ( ! autoCommit ) break; // do not retry if (inside) transactions
 
-                    if ( isConnectionValid(context, getConnectionImpl()) ) {
+                    if ( validateConnection(context, getConnectionImpl()) ) {
                         break; // connection not broken yet failed (do not retry)
                     }
 
@@ -3466,6 +5006,22 @@ public class RubyJdbcConnection extends RubyObject {
         return withConnectionError(context, exception, handleException, gotConnection);
     }
 
+    /**
+     * A block that must not be re-tried (on a re-connect) once it has started
+     * having effects e.g. after rows were yielded or (batch) statements executed.
+     * Failures past {@link #started()} are raised as is.
+     */
+    protected static abstract class OnceCallable<T> implements Callable<T> {
+
+        private boolean started;
+
+        /**
+         * Marks the block as started, from now on it won't be re-tried.
+         */
+        protected final void started() { started = true; }
+
+    }
+
     // NOTE: this is meant to be internal - seeing this from the outside is a sign smt is not right!
     private static class NoConnectionException extends RuntimeException {
 
@@ -3628,7 +5184,11 @@ public class RubyJdbcConnection extends RubyObject {
         return StringHelper.startsWithIgnoreCase(bytes, start);
     }
 
-    // maps a AR::Result row
+    /**
+     * @deprecated resolve converters once using {@link #newColumnConverters(ColumnData[])} and use
+     * {@link #mapRow(ThreadContext, Ruby, ColumnData[], ColumnConverter[], ResultSet)}
+     */
+    @Deprecated
     protected static IRubyObject mapRow(final ThreadContext context, final Ruby runtime,
         final ColumnData[] columns, final ResultSet resultSet,
         final RubyJdbcConnection connection) throws SQLException {
@@ -3643,9 +5203,23 @@ public class RubyJdbcConnection extends RubyObject {
         return RubyArray.newArrayNoCopy(context.runtime, row);
     }
 
+    // maps a AR::Result row
+    protected static IRubyObject mapRow(final ThreadContext context, final Ruby runtime,
+        final ColumnData[] columns, final ColumnConverter[] converters,
+        final ResultSet resultSet) throws SQLException {
+
+        final IRubyObject[] row = new IRubyObject[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            row[i] = converters[i].toRuby(context, runtime, resultSet, columns[i].index);
+        }
+
+        return RubyArray.newArrayNoCopy(context.runtime, row);
+    }
+
     private static IRubyObject mapRawRow(final ThreadContext context, final Ruby runtime,
-        final ColumnData[] columns, final ResultSet resultSet,
-        final RubyJdbcConnection connection) throws SQLException {
+        final ColumnData[] columns, final ColumnConverter[] converters,
+        final ResultSet resultSet) throws SQLException {
 
         final RubyHash row = new RubyHash(runtime, columns.length);
 
@@ -3653,7 +5227,7 @@ public class RubyJdbcConnection extends RubyObject {
             final ColumnData column = columns[i];
             // NOTE: we know keys are always String so maybe we could take it even further ?!
             row.fastASetCheckString(runtime, column.getName(context),
-                connection.jdbcToRuby(context, runtime, column.index, column.type, resultSet)
+                converters[i].toRuby(context, runtime, resultSet, column.index)
             );
         }
 
@@ -3759,11 +5333,34 @@ public class RubyJdbcConnection extends RubyObject {
         return attribute.callMethod(context, "value_for_database");
     }
 
-    // FIXME: This should not be static and will be exposed via api in connection as instance method.
+    /**
+     * @deprecated use {@link #getStringCache(Ruby)} the cache is per runtime
+     */
+    @Deprecated
     public static final StringCache STRING_CACHE = new StringCache();
 
+    /**
+     * @param context
+     * @param str
+     * @return a (frozen) cached string, the same instance is returned for equal strings
+     * @deprecated use {@link #getCachedString(ThreadContext, String)}
+     */
+    @Deprecated
     protected static RubyString cachedString(final ThreadContext context, final String str) {
-        return STRING_CACHE.get(context, str);
+        return getStringCache(context.runtime).get(context, str);
+    }
+
+    /**
+     * @param context
+     * @param str
+     * @return a (frozen) cached string, the same instance is returned for equal strings
+     */
+    protected final RubyString getCachedString(final ThreadContext context, final String str) {
+        return stringCache.get(context, str);
+    }
+
+    final StringCache getStringCache() {
+        return stringCache;
     }
 
     protected static final class ColumnData {
@@ -3792,8 +5389,12 @@ public class RubyJdbcConnection extends RubyObject {
 
         // NOTE: meant temporary for others to update from accesing name
         ColumnData(ThreadContext context, String label, int type, int idx) {
+            this(getStringCache(context.runtime).get(context, label), label, type, idx);
+        }
+
+        ColumnData(RubyString name, String label, int type, int idx) {
             this(label, type, idx);
-            name = cachedString(context, label);
+            this.name = name;
         }
 
         public String getName() {
@@ -3802,7 +5403,7 @@ public class RubyJdbcConnection extends RubyObject {
 
         RubyString getName(final ThreadContext context) {
             if ( name != null ) return name;
-            return name = cachedString(context, label);
+            return name = getStringCache(context.runtime).get(context, label);
         }
 
         @Override
@@ -3830,7 +5431,7 @@ public class RubyJdbcConnection extends RubyObject {
             }
 
             final int columnType = resultMetaData.getColumnType(i);
-            columns[i - 1] = new ColumnData(context, name, columnType, i);
+            columns[i - 1] = new ColumnData(getCachedString(context, name), name, columnType, i);
         }
 
         return columns;
@@ -3859,6 +5460,12 @@ public class RubyJdbcConnection extends RubyObject {
         }
     }
 
+    // for (cached) statements that are being re-used
+    private static void clearParameters(final PreparedStatement statement) {
+        try { statement.clearParameters(); }
+        catch (final Exception e) { /* NOOP */ }
+    }
+
     // DEBUG-ing helpers :
 
     private static boolean debug = Boolean.parseBoolean( SafePropertyAccessor.getProperty("arjdbc.debug") );
@@ -0,0 +1,147 @@
+package arjdbc.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jruby.Ruby;
+import org.jruby.RubyHash;
+import org.jruby.runtime.ThreadContext;
+
+/**
+ * A (per connection) prepared statement cache, keyed by SQL.
+ *
+ * The cache is a bounded LRU, statements are closed once evicted (or when the
+ * cache gets cleared e.g. on reconnect).
+ * Along with a statement the (last seen) {@link ResultColumns} are kept.
+ */
+final class StatementCache {
+
+    static final int DEFAULT_LIMIT = 1000; // same as AR's StatementPool
+
+    // statements prepared with RETURN_GENERATED_KEYS are kept separately
+    private static final String GENERATED_KEYS = "\u0000keys:";
+
+    private final int limit;
+    private final ExecutionMetrics metrics; // null unless enabled
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    // keys are all cached statements (values set once the result is known)
+    private final Map<Statement, ResultColumns> resultColumns = new IdentityHashMap<Statement, ResultColumns>();
+
+    private long hits, misses, evictions;
+
+    StatementCache(final int limit) {
+        this(limit, null);
+    }
+
+    StatementCache(final int limit, final ExecutionMetrics metrics) {
+        this.limit = limit;
+        this.metrics = metrics;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+                if ( size() <= StatementCache.this.limit ) return false;
+                evictions++;
+                if ( metrics != null ) metrics.statementCacheEviction();
+                resultColumns.remove( eldest.getValue() );
+                RubyJdbcConnection.close( eldest.getValue() );
+                return true;
+            }
+        };
+    }
+
+    int getLimit() { return limit; }
+
+    /**
+     * Returns a cached statement (preparing and caching it on a cache miss).
+     * @param connection the connection to prepare the statement on
+     * @param sql the SQL to prepare
+     * @param generatedKeys whether the statement should return generated keys
+     * @return a cached statement, callers should not close it
+     * @throws SQLException if preparing the statement fails
+     */
+    synchronized PreparedStatement get(final Connection connection,
+        final String sql, final boolean generatedKeys) throws SQLException {
+        final String key = generatedKeys ? GENERATED_KEYS + sql : sql;
+        PreparedStatement statement = statements.get(key);
+        if ( statement != null ) {
+            hits++;
+            if ( metrics != null ) metrics.statementCacheHit();
+            return statement;
+        }
+        misses++;
+        if ( metrics != null ) metrics.statementCacheMiss();
+        if ( generatedKeys ) {
+            statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        }
+        else {
+            statement = connection.prepareStatement(sql);
+        }
+        statements.put(key, statement);
+        resultColumns.put(statement, null); // marks the statement as cached
+        return statement;
+    }
+
+    /**
+     * Removes (and closes) statements cached for the given SQL.
+     * @param sql the statement SQL
+     * @return true if a statement was removed
+     */
+    synchronized boolean delete(final String sql) {
+        final PreparedStatement statement = statements.remove(sql);
+        final PreparedStatement keysStatement = statements.remove(GENERATED_KEYS + sql);
+        if ( statement != null ) resultColumns.remove(statement);
+        if ( keysStatement != null ) resultColumns.remove(keysStatement);
+        RubyJdbcConnection.close(statement); RubyJdbcConnection.close(keysStatement);
+        return statement != null || keysStatement != null;
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    synchronized void clear() {
+        for ( final PreparedStatement statement : statements.values() ) {
+            RubyJdbcConnection.close(statement);
+        }
+        statements.clear();
+        resultColumns.clear();
+    }
+
+    /**
+     * Returns the column layout for results of a cached statement.
+     * @param statement the statement (that produced the result)
+     * @param metaData the result meta-data
+     * @return validated result columns or null if the statement is not cached
+     * @throws SQLException
+     */
+    synchronized ResultColumns getResultColumns(final Statement statement,
+        final ResultSetMetaData metaData) throws SQLException {
+        if ( ! resultColumns.containsKey(statement) ) return null; // not a cached statement
+        ResultColumns columns = resultColumns.get(statement);
+        if ( columns == null || ! columns.matches(metaData) ) {
+            resultColumns.put(statement, columns = ResultColumns.newResultColumns(metaData));
+        }
+        return columns;
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    synchronized RubyHash toStatsHash(final ThreadContext context) {
+        final Ruby runtime = context.runtime;
+        final RubyHash stats = RubyHash.newHash(runtime);
+        stats.op_aset(context, runtime.newSymbol("hits"), runtime.newFixnum(hits));
+        stats.op_aset(context, runtime.newSymbol("misses"), runtime.newFixnum(misses));
+        stats.op_aset(context, runtime.newSymbol("evictions"), runtime.newFixnum(evictions));
+        stats.op_aset(context, runtime.newSymbol("size"), runtime.newFixnum(statements.size()));
+        stats.op_aset(context, runtime.newSymbol("limit"), runtime.newFixnum(limit));
+        return stats;
+    }
+
+}
@@ -0,0 +1,312 @@
+package arjdbc.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jruby.Ruby;
+import org.jruby.RubyArray;
+import org.jruby.RubyClass;
+import org.jruby.RubyHash;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+import org.jruby.util.SafePropertyAccessor;
+
+/**
+ * Client side statement statistics (similar to PostgreSQL's <code>pg_stat_statements</code>).
+ *
+ * Statements are grouped by their SQL fingerprint (literals stripped), for each
+ * fingerprint latency and row count histograms are kept. Statements slower than
+ * the threshold are sampled (with their full SQL and binds).
+ *
+ * Stats are kept per runtime (shared by all connections that enabled them with
+ * <code>statement_stats: true</code>) and are readable as <code>ArJdbc.statement_stats</code>.
+ *
+ * Tuning (system properties) :
+ * <ul>
+ * <li><code>arjdbc.statement_stats.max</code> - max number of fingerprints tracked (500)</li>
+ * <li><code>arjdbc.statement_stats.slow_threshold</code> - (ms) slow statement sampling threshold (1000)</li>
+ * <li><code>arjdbc.statement_stats.samples</code> - slow samples kept per fingerprint (5)</li>
+ * </ul>
+ */
+public final class StatementStats {
+
+    private final int maxStatements;
+    private final long slowThreshold; // micros
+    private final int samples;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private StatementStats(final Ruby runtime) { // per runtime
+        this.maxStatements = intProperty(runtime, "arjdbc.statement_stats.max", 500, 1);
+        this.slowThreshold = intProperty(runtime, "arjdbc.statement_stats.slow_threshold", 1000, 0) * 1000L;
+        this.samples = intProperty(runtime, "arjdbc.statement_stats.samples", 5, 0);
+    }
+
+    private static int intProperty(final Ruby runtime, final String name, final int defaultValue, final int minValue) {
+        final String value = SafePropertyAccessor.getProperty(name);
+        if ( value == null ) return defaultValue;
+        try {
+            final int intValue = Integer.parseInt(value.trim());
+            if ( intValue >= minValue ) return intValue;
+        }
+        catch (NumberFormatException e) { /* warned below */ }
+        runtime.getWarnings().warn("invalid " + name + ": '" + value + "' (using " + defaultValue + ")");
+        return defaultValue;
+    }
+
+    /**
+     * @param runtime
+     * @return the (shared) statement stats of given runtime
+     */
+    static StatementStats getStatementStats(final Ruby runtime) {
+        final RubyClass JdbcConnection = RubyJdbcConnection.getJdbcConnection(runtime);
+        synchronized (JdbcConnection) {
+            StatementStats stats = (StatementStats) JdbcConnection.getInternalVariable("statement_stats");
+            if ( stats == null ) {
+                stats = new StatementStats(runtime);
+                JdbcConnection.setInternalVariable("statement_stats", stats);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * @param runtime
+     * @return the stats if any connection has enabled them, null otherwise
+     */
+    public static StatementStats getStatementStatsIfAny(final Ruby runtime) {
+        return (StatementStats) RubyJdbcConnection.getJdbcConnection(runtime).getInternalVariable("statement_stats");
+    }
+
+    /**
+     * Records an executed statement.
+     * @param context
+     * @param fingerprint the statement's SQL fingerprint
+     * @param sql the statement SQL
+     * @param binds bind values (for prepared statements) or null
+     * @param nanos execution time
+     * @param rows rows returned (or updated)
+     * @param failed whether the statement failed
+     */
+    final void record(final ThreadContext context, final String fingerprint, final String sql,
+        final IRubyObject binds, final long nanos, final long rows, final boolean failed) {
+        Entry entry = entries.get(fingerprint);
+        if ( entry == null ) {
+            if ( entries.size() >= maxStatements ) evict();
+            final Entry newEntry = new Entry(samples);
+            entry = entries.putIfAbsent(fingerprint, newEntry);
+            if ( entry == null ) entry = newEntry;
+        }
+        final long micros = nanos / 1000;
+        entry.record(micros, rows, failed);
+        if ( micros >= slowThreshold && samples > 0 ) {
+            final String bindsString = binds == null || binds.isNil() ? null : binds.inspect().toString();
+            entry.sample(new Sample(sql, bindsString, micros, System.currentTimeMillis()));
+        }
+    }
+
+    // evicts (the least executed) 5% of the statements, like pg_stat_statements
+    private synchronized void evict() {
+        if ( entries.size() < maxStatements ) return; // evicted concurrently
+        final List<Map.Entry<String, Entry>> list = new ArrayList<>(entries.entrySet());
+        Collections.sort(list, new Comparator<Map.Entry<String, Entry>>() {
+            public int compare(final Map.Entry<String, Entry> e1, final Map.Entry<String, Entry> e2) {
+                final long c1 = e1.getValue().count.get(), c2 = e2.getValue().count.get();
+                return c1 < c2 ? -1 : ( c1 == c2 ? 0 : 1 );
+            }
+        });
+        final int count = Math.max(1, list.size() / 20);
+        for ( int i = 0; i < count; i++ ) entries.remove(list.get(i).getKey());
+        evicted.addAndGet(count);
+    }
+
+    public void reset() {
+        entries.clear(); evicted.set(0);
+    }
+
+    /**
+     * @return number of fingerprints evicted (since tracking more than the max)
+     */
+    public long getEvicted() { return evicted.get(); }
+
+    /**
+     * @param context
+     * @return a Hash of fingerprint => stats, times are in (fractional) milliseconds
+     */
+    public RubyHash toStatsHash(final ThreadContext context) {
+        final Ruby runtime = context.runtime;
+        final RubyHash stats = RubyHash.newHash(runtime);
+        for ( final Map.Entry<String, Entry> entry : entries.entrySet() ) {
+            stats.op_aset(context, runtime.newString(entry.getKey()), entry.getValue().toStatsHash(context));
+        }
+        return stats;
+    }
+
+    private static final class Entry {
+
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong totalTime = new AtomicLong(); // micros
+        final AtomicLong totalRows = new AtomicLong();
+        final Histogram latency = new Histogram(36); // micros up to ~19 hours
+        final Histogram rows = new Histogram(32);
+
+        private final Sample[] samples;
+        private int nextSample;
+
+        Entry(final int samples) {
+            this.samples = new Sample[samples];
+        }
+
+        final void record(final long micros, final long rowCount, final boolean failed) {
+            count.incrementAndGet();
+            if ( failed ) errors.incrementAndGet();
+            totalTime.addAndGet(micros); latency.record(micros);
+            if ( rowCount >= 0 ) {
+                totalRows.addAndGet(rowCount); rows.record(rowCount);
+            }
+        }
+
+        final synchronized void sample(final Sample sample) {
+            samples[nextSample] = sample; // keeps the last few
+            nextSample = ( nextSample + 1 ) % samples.length;
+        }
+
+        RubyHash toStatsHash(final ThreadContext context) {
+            final Ruby runtime = context.runtime;
+            final RubyHash stats = RubyHash.newHash(runtime);
+            final long count = this.count.get();
+            stats.op_aset(context, runtime.newSymbol("calls"), runtime.newFixnum(count));
+            stats.op_aset(context, runtime.newSymbol("errors"), runtime.newFixnum(errors.get()));
+            stats.op_aset(context, runtime.newSymbol("total_time"), millis(runtime, totalTime.get()));
+            stats.op_aset(context, runtime.newSymbol("mean_time"), millis(runtime, count == 0 ? 0 : totalTime.get() / count));
+            stats.op_aset(context, runtime.newSymbol("min_time"), millis(runtime, latency.min()));
+            stats.op_aset(context, runtime.newSymbol("max_time"), millis(runtime, latency.max()));
+            stats.op_aset(context, runtime.newSymbol("p50_time"), millis(runtime, latency.percentile(50)));
+            stats.op_aset(context, runtime.newSymbol("p95_time"), millis(runtime, latency.percentile(95)));
+            stats.op_aset(context, runtime.newSymbol("p99_time"), millis(runtime, latency.percentile(99)));
+            stats.op_aset(context, runtime.newSymbol("rows"), runtime.newFixnum(totalRows.get()));
+            stats.op_aset(context, runtime.newSymbol("p50_rows"), runtime.newFixnum(rows.percentile(50)));
+            stats.op_aset(context, runtime.newSymbol("p95_rows"), runtime.newFixnum(rows.percentile(95)));
+            stats.op_aset(context, runtime.newSymbol("max_rows"), runtime.newFixnum(rows.max()));
+
+            final RubyArray slow = runtime.newArray();
+            synchronized (this) {
+                for ( int i = 0; i < samples.length; i++ ) {
+                    final Sample sample = samples[ (nextSample + i) % samples.length ]; // oldest first
+                    if ( sample != null ) slow.append(sample.toHash(context));
+                }
+            }
+            stats.op_aset(context, runtime.newSymbol("slow_samples"), slow);
+            return stats;
+        }
+
+    }
+
+    private static final class Sample {
+
+        final String sql, binds;
+        final long micros, at;
+
+        Sample(final String sql, final String binds, final long micros, final long at) {
+            this.sql = sql; this.binds = binds; this.micros = micros; this.at = at;
+        }
+
+        RubyHash toHash(final ThreadContext context) {
+            final Ruby runtime = context.runtime;
+            final RubyHash hash = RubyHash.newHash(runtime);
+            hash.op_aset(context, runtime.newSymbol("sql"), runtime.newString(sql));
+            hash.op_aset(context, runtime.newSymbol("binds"), binds == null ? context.nil : runtime.newString(binds));
+            hash.op_aset(context, runtime.newSymbol("time"), millis(runtime, micros));
+            hash.op_aset(context, runtime.newSymbol("at"), runtime.newTime(at));
+            return hash;
+        }
+
+    }
+
+    private static IRubyObject millis(final Ruby runtime, final long micros) {
+        return runtime.newFloat(micros / 1000.0);
+    }
+
+    /**
+     * A (HdrHistogram like) log-linear histogram, values are bucketed by their
+     * power of 2 and linearly within, with 16 sub-buckets the (relative) error
+     * of a reported value is at most 1/16.
+     */
+    static final class Histogram {
+
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+
+        private final AtomicLongArray counts;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong();
+        private final long maxValue;
+
+        /**
+         * @param maxBits values larger than 2^maxBits are clamped
+         */
+        Histogram(final int maxBits) {
+            this.maxValue = ( 1L << maxBits ) - 1;
+            this.counts = new AtomicLongArray(index(maxValue) + 1);
+        }
+
+        static int index(final long value) {
+            if ( value < SUB_COUNT ) return (int) value;
+            final int exp = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BITS
+            final int sub = (int) ( value >>> (exp - SUB_BITS) ) & (SUB_COUNT - 1);
+            return SUB_COUNT + (exp - SUB_BITS) * SUB_COUNT + sub;
+        }
+
+        // highest value equivalent to the bucket's values
+        static long value(final int index) {
+            if ( index < SUB_COUNT ) return index;
+            final int shift = (index - SUB_COUNT) / SUB_COUNT;
+            final long sub = SUB_COUNT + (index - SUB_COUNT) % SUB_COUNT;
+            return ( (sub + 1) << shift ) - 1;
+        }
+
+        final void record(long value) {
+            if ( value < 0 ) value = 0;
+            else if ( value > maxValue ) value = maxValue;
+            counts.incrementAndGet(index(value));
+            count.incrementAndGet();
+            long m;
+            while ( value < (m = min.get()) && ! min.compareAndSet(m, value) ) { /* retry */ }
+            while ( value > (m = max.get()) && ! max.compareAndSet(m, value) ) { /* retry */ }
+        }
+
+        final long min() {
+            final long min = this.min.get();
+            return min == Long.MAX_VALUE ? 0 : min;
+        }
+
+        final long max() { return max.get(); }
+
+        /**
+         * @param percentile e.g. 99
+         * @return the value at given percentile (0 if none recorded)
+         */
+        final long percentile(final double percentile) {
+            final long total = count.get();
+            if ( total == 0 ) return 0;
+            final long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for ( int i = 0; i < counts.length(); i++ ) {
+                seen += counts.get(i);
+                if ( seen >= target ) return Math.min(value(i), max());
+            }
+            return max();
+        }
+
+    }
+
+}
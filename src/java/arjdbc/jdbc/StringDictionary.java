@@ -0,0 +1,88 @@
+package arjdbc.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jruby.RubyString;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+import org.jruby.util.ByteList;
+
+import static arjdbc.util.StringHelper.newDefaultInternalString;
+
+/**
+ * Dictionary (encoded) strings of a single result column.
+ *
+ * Identical values share the same (frozen) Ruby string, which is a win for
+ * low-cardinality columns (e.g. status or type columns). Once the column turns
+ * out to have too many distinct values the dictionary gives up and values are
+ * converted as usual (a new string per value), these are still frozen so that
+ * all values of a column are (consistently) frozen.
+ */
+public final class StringDictionary {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final int maxSize;
+    private Map<Object, RubyString> strings = new HashMap<>();
+
+    public StringDictionary(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param context current thread context
+     * @param value the (non null) string value
+     * @return a (shared) Ruby string
+     */
+    public RubyString get(final ThreadContext context, final String value) {
+        final Map<Object, RubyString> strings = this.strings;
+        if ( strings == null ) return newFrozenString(newDefaultInternalString(context.runtime, value));
+
+        RubyString str = strings.get(value);
+        if ( str == null ) {
+            str = newDefaultInternalString(context.runtime, value);
+            add(value, str);
+        }
+        return str;
+    }
+
+    /**
+     * @param context current thread context
+     * @param value the (non null) raw value, not to be modified afterwards
+     * @return a (shared) Ruby string
+     */
+    public RubyString get(final ThreadContext context, final byte[] value) {
+        final Map<Object, RubyString> strings = this.strings;
+        if ( strings == null ) return newFrozenString(newDefaultInternalString(context.runtime, value));
+
+        final ByteList key = new ByteList(value, false);
+        RubyString str = strings.get(key);
+        if ( str == null ) {
+            str = newDefaultInternalString(context.runtime, value);
+            add(key, str);
+        }
+        return str;
+    }
+
+    private void add(final Object key, final RubyString str) {
+        str.setFrozen(true);
+        if ( strings.size() >= maxSize ) {
+            strings = null; return; // too many distinct values - give up
+        }
+        strings.put(key, str);
+    }
+
+    private static RubyString newFrozenString(final RubyString str) {
+        str.setFrozen(true);
+        return str;
+    }
+
+    /**
+     * @return whether the dictionary is (still) in use
+     */
+    public boolean isActive() {
+        return strings != null;
+    }
+
+}
@@ -109,7 +109,7 @@ public class MSSQLRubyJdbcConnection extends RubyJdbcConnection {
                     "turning it off using the system property 'arjdbc.mssql.explain_support.disabled=true' " +
                     "or programatically by changing: `ArJdbc::MSSQL::ExplainSupport::DISABLED`");
             }
-            tables.add( cachedString(context, caseConvertIdentifierForRails(connection, name)) );
+            tables.add( getCachedString(context, caseConvertIdentifierForRails(connection, name)) );
         }
         return tables;
     }
@@ -126,12 +126,9 @@ public class MSSQLRubyJdbcConnection extends RubyJdbcConnection {
      * Treat LONGVARCHAR as CLOB on MSSQL for purposes of converting a JDBC value to Ruby.
      */
     @Override
-    protected IRubyObject jdbcToRuby(
-        final ThreadContext context, final Ruby runtime,
-        final int column, int type, final ResultSet resultSet)
-        throws SQLException {
+    protected ColumnConverter newColumnConverter(int type) {
         if ( type == Types.LONGVARCHAR || type == Types.LONGNVARCHAR ) type = Types.CLOB;
-        return super.jdbcToRuby(context, runtime, column, type, resultSet);
+        return super.newColumnConverter(type);
     }
 
     @Override
@@ -29,25 +29,33 @@ import arjdbc.jdbc.Callable;
 import arjdbc.jdbc.DriverWrapper;
 import arjdbc.jdbc.RubyJdbcConnection;
 import arjdbc.util.DateTimeUtils;
+import arjdbc.util.SqlFingerprint;
 
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.Locale;
+import java.util.Map;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
+import org.jcodings.Encoding;
+import org.jcodings.specific.UTF8Encoding;
 import org.jruby.*;
 import org.jruby.anno.JRubyMethod;
 import org.jruby.exceptions.RaiseException;
 import org.jruby.runtime.ObjectAllocator;
 import org.jruby.runtime.ThreadContext;
 import org.jruby.runtime.builtin.IRubyObject;
+import org.jruby.util.ByteList;
 import org.jruby.util.SafePropertyAccessor;
 
 import static arjdbc.util.StringHelper.newString;
@@ -102,7 +110,8 @@ public class MySQLRubyJdbcConnection extends RubyJdbcConnection {
         DriverWrapper driverWrapper = super.newDriverWrapper(context, driver);
 
         final java.sql.Driver jdbcDriver = driverWrapper.getDriverInstance();
-        if ( jdbcDriver.getClass().getName().startsWith("com.mysql.jdbc.") ) {
+        final String driverName = jdbcDriver.getClass().getName();
+        if ( driverName.startsWith("com.mysql.jdbc.") ) {
             final int major = jdbcDriver.getMajorVersion();
             final int minor = jdbcDriver.getMinorVersion();
             if ( major < 5 ) {
@@ -114,11 +123,18 @@ public class MySQLRubyJdbcConnection extends RubyJdbcConnection {
                 // lightweight validation query: "/* ping */ SELECT 1"
                 setConfigValueIfNotSet(context, "connection_alive_sql", context.runtime.newString("/* ping */ SELECT 1"));
             }
-            driverAdapter = new MySQLDriverAdapter(); // short-circuit
         }
-        else {
+        for ( final Map.Entry<Object, Object> entry : driverWrapper.getProperties().entrySet() ) {
+            if ( "useCursorFetch".equalsIgnoreCase(entry.getKey().toString()) ) {
+                useCursorFetch = "true".equalsIgnoreCase(entry.getValue().toString());
+            }
+        }
+        if ( driverName.startsWith("org.mariadb.") ) {
             driverAdapter = new DriverAdapter(); // short-circuit (MariaDB)
         }
+        else {
+            driverAdapter = new MySQLDriverAdapter(); // short-circuit (Connector/J 5.x as well as 8.x)
+        }
 
         return driverWrapper;
     }
@@ -151,22 +167,77 @@ public class MySQLRubyJdbcConnection extends RubyJdbcConnection {
         return checkMySQLConnection(getConnection(true));
     }
 
+    private boolean usingMariaDBDriver() {
+        try {
+            final String driverName = getConnection(true).getMetaData().getDriverName();
+            return driverName != null && driverName.contains("MariaDB");
+        }
+        catch (SQLException ex) {
+            return false;
+        }
+    }
+
     private transient DriverAdapter driverAdapter;
 
-    // NOTE: currently un-used but we'll need it if we attempt to handle fast string extraction
     private DriverAdapter getDriverAdapter() {
         if (driverAdapter == null) {
-            driverAdapter = usingMySQLDriver() ? new MySQLDriverAdapter() : new DriverAdapter();
+            // NOTE: Connector/J 8.x isn't a com.mysql.jdbc.MySQLConnection
+            driverAdapter = usingMySQLDriver() || ! usingMariaDBDriver() ? new MySQLDriverAdapter() : new DriverAdapter();
         }
         return driverAdapter;
     }
 
     private class DriverAdapter { // sensible driver without quirks (MariaDB)
-        // left in for encoding specific extraction from driver - would allow us 'fast' string byte[] extraction
+
+        /**
+         * Whether a (string) column's bytes (as returned by <code>ResultSet#getBytes</code>)
+         * are UTF-8 encoded, MariaDB's driver always talks UTF-8 (utf8mb4) to the server.
+         * @param metaData
+         * @param column
+         * @return true if the column's raw value is UTF-8
+         */
+        boolean isUTF8Column(final ResultSetMetaData metaData, final int column) throws SQLException {
+            return true;
+        }
+
     }
 
     private class MySQLDriverAdapter extends DriverAdapter { // Connector/J (bloated) 5.x version
-        // left in for encoding specific extraction from driver - would allow us 'fast' string byte[] extraction
+
+        private transient Method getColumnCharacterEncoding;
+
+        // Connector/J sets character_set_results = NULL, results come in the column's charset
+        @Override
+        boolean isUTF8Column(final ResultSetMetaData metaData, final int column) throws SQLException {
+            Method getEncoding = getColumnCharacterEncoding;
+            try {
+                if ( getEncoding == null || getEncoding.getDeclaringClass() != metaData.getClass() ) {
+                    getEncoding = metaData.getClass().getMethod("getColumnCharacterEncoding", int.class);
+                    getColumnCharacterEncoding = getEncoding;
+                }
+                return isUTF8Compatible( (String) getEncoding.invoke(metaData, column) );
+            }
+            catch (NoSuchMethodException e) { return false; }
+            catch (IllegalAccessException e) { return false; }
+            catch (InvocationTargetException e) {
+                final Throwable cause = e.getTargetException();
+                if ( cause instanceof SQLException ) throw (SQLException) cause;
+                return false;
+            }
+        }
+
+    }
+
+    // NOTE: Java charset names as returned by the driver e.g. "UTF-8" for utf8mb4
+    private static boolean isUTF8Compatible(final String encoding) {
+        if ( encoding == null ) return false;
+        return "UTF-8".equalsIgnoreCase(encoding) || "UTF8".equalsIgnoreCase(encoding) ||
+               "US-ASCII".equalsIgnoreCase(encoding) || "ASCII".equalsIgnoreCase(encoding);
+    }
+
+    @Override // quote_string escapes using backslashes
+    protected String fingerprint(final String sql) {
+        return SqlFingerprint.fingerprint(sql, true);
     }
 
     @Override
@@ -174,14 +245,118 @@ public class MySQLRubyJdbcConnection extends RubyJdbcConnection {
         return statement.execute(query, Statement.RETURN_GENERATED_KEYS);
     }
 
+    /**
+     * Connector/J only streams (row-by-row) results with a MIN_VALUE fetch size, unless
+     * useCursorFetch=true is set in which case a (positive) fetch size uses a server-side cursor.
+     *
+     * NOTE: while streaming row-by-row (without useCursorFetch) the connection can not be used
+     * to execute other statements (from within the <code>stream_query</code> block) until all
+     * rows have been read, the driver fails such statements.
+     */
     @Override
-    protected IRubyObject jdbcToRuby(final ThreadContext context, final Ruby runtime,
-        final int column, final int type, final ResultSet resultSet) throws SQLException {
-        if ( type == Types.BIT ) {
+    protected void configureStreamingStatement(final Connection connection, final Statement statement,
+        final int fetchSize) throws SQLException {
+        if ( isUseCursorFetch(connection) ) statement.setFetchSize(fetchSize);
+        else statement.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    private boolean useCursorFetch; // properties: { useCursorFetch: true }
+
+    private boolean isUseCursorFetch(final Connection connection) throws SQLException {
+        if ( useCursorFetch ) return true;
+        final String url = connection.getMetaData().getURL(); // jdbc:mysql://...?useCursorFetch=true
+        return url != null && url.toLowerCase(Locale.ENGLISH).contains("usecursorfetch=true");
+    }
+
+    @Override
+    protected ColumnConverter newColumnConverter(final int type) {
+        switch (type) {
+        case Types.BIT:
+            return new BitIntegerConverter();
+        case Types.CHAR:
+        case Types.VARCHAR:
+        case Types.LONGVARCHAR:
+        case Types.NCHAR:
+        case Types.NVARCHAR:
+        case Types.LONGNVARCHAR:
+            if ( isFastStrings() ) return new UTF8StringConverter(type);
+        }
+        return super.newColumnConverter(type);
+    }
+
+    private transient Boolean fastStrings;
+
+    /**
+     * Strings might be extracted as bytes (without decoding them into Java
+     * <code>String</code>s) when Ruby strings are to be UTF-8 (default internal).
+     * Unless disabled with <code>fast_strings: false</code>.
+     */
+    private boolean isFastStrings() {
+        Boolean fastStrings = this.fastStrings;
+        if ( fastStrings == null ) {
+            final Ruby runtime = getRuntime();
+            Encoding encoding = runtime.getDefaultInternalEncoding();
+            if ( encoding == null ) encoding = runtime.getEncodingService().getJavaDefault();
+            if ( encoding != UTF8Encoding.INSTANCE ) fastStrings = Boolean.FALSE;
+            else {
+                final ThreadContext context = runtime.getCurrentContext();
+                fastStrings = getConfigValue(context, "fast_strings") != runtime.getFalse();
+            }
+            this.fastStrings = fastStrings;
+        }
+        return fastStrings.booleanValue();
+    }
+
+    /**
+     * Reads (UTF-8) string columns using <code>ResultSet#getBytes</code> and wraps
+     * the bytes as a Ruby string, thus no (UTF-16) <code>String</code> round-trip.
+     * Whether the column's raw value is UTF-8 is resolved on the first value,
+     * if not values get converted the usual way.
+     */
+    private final class UTF8StringConverter extends ColumnConverter {
+
+        private final int type;
+        private ColumnConverter converter; // fallback
+        private int utf8; // 0 - unknown, 1 - yes, -1 - no
+
+        UTF8StringConverter(final int type) {
+            this.type = type;
+        }
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            if ( utf8 == 0 ) {
+                utf8 = getDriverAdapter().isUTF8Column(resultSet.getMetaData(), column) ? 1 : -1;
+            }
+            if ( utf8 < 0 ) return getConverter().toRuby(context, runtime, resultSet, column);
+
+            final byte[] bytes = resultSet.getBytes(column);
+            if ( bytes == null ) return context.nil;
+            return RubyString.newString(runtime, new ByteList(bytes, UTF8Encoding.INSTANCE, false));
+        }
+
+        @Override
+        public ColumnConverter withDictionary(final int maxSize) {
+            final ColumnConverter converter = getConverter();
+            final ColumnConverter dictionary = converter.withDictionary(maxSize);
+            return dictionary == converter ? this : dictionary;
+        }
+
+        private ColumnConverter getConverter() {
+            if ( converter == null ) converter = MySQLRubyJdbcConnection.super.newColumnConverter(type);
+            return converter;
+        }
+
+    }
+
+    private final class BitIntegerConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
             final int value = resultSet.getInt(column);
             return resultSet.wasNull() ? context.nil : runtime.newFixnum(value);
         }
-        return super.jdbcToRuby(context, runtime, column, type, resultSet);
+
     }
 
     @Override
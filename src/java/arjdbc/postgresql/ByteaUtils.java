@@ -34,47 +34,58 @@ abstract class ByteaUtils {
 
     /*
      * Converts a PG bytea raw value (i.e. the raw binary representation
-     * of the bytea data type) into a java byte[]
+     * of the bytea data type) into a byte list (hex values are decoded
+     * into an exactly sized one).
+     *
+     * @throws IllegalArgumentException on malformed input
      */
     static ByteList toBytes(final byte[] s, final int off, final int len) {
         // Starting with PG 9.0, a new hex format is supported
         // that starts with "\x".  Figure out which format we're
         // dealing with here.
         //
-        if ( s.length < 2 || s[0] != '\\' || s[1] != 'x' ) {
+        if ( len < 2 || s[off] != '\\' || s[off + 1] != 'x' ) {
             return toBytesOctalEscaped(s, off, len);
         }
-        return new ByteList(toBytesHexEscaped(s, off, len), false);
+        return toBytesHexEscaped(s, off, len);
     }
 
-    private static byte[] toBytesHexEscaped(final byte[] s, final int off, final int len) {
-        final byte[] out = new byte[(len - 2) / 2];
-        for (int i = 0; i < out.length; i++) {
-            final int j = off + (2 + i * 2);
-            byte b1 = hexByte( s[j] );
-            byte b2 = hexByte( s[j + 1] );
-            // squid:S3034
-            // Raw byte values should not be used in bitwise operations in combination with shifts
-            out[i] = (byte) ((b1 << 4) | (b2 & 0xff));
+    // hex digit values (-1 for non hex digits)
+    private static final byte[] HEX_VALUES = new byte[256];
+    static {
+        java.util.Arrays.fill(HEX_VALUES, (byte) -1);
+        for ( int i = 0; i < 10; i++ ) HEX_VALUES['0' + i] = (byte) i;
+        for ( int i = 0; i < 6; i++ ) {
+            HEX_VALUES['a' + i] = (byte) (10 + i); HEX_VALUES['A' + i] = (byte) (10 + i);
         }
-        return out;
     }
 
-    private static byte hexByte(final byte b) {
-        // 0-9 == 48-57
-        if (b <= 57) return (byte) (b - 48);
+    // decoded straight into the (pre-sized) byte list - no intermediate byte[]
+    private static ByteList toBytesHexEscaped(final byte[] s, final int off, final int len) {
+        if ( ( len & 1 ) != 0 ) {
+            throw new IllegalArgumentException("invalid hex bytea value: odd number of digits (" + (len - 2) + ")");
+        }
+        final int size = (len - 2) / 2;
+        final ByteList out = new ByteList(size);
+        final byte[] buf = out.unsafeBytes();
 
-        // a-f == 97-102
-        if (b >= 97) return (byte) (b - 97 + 10);
+        for ( int i = 0, j = off + 2; i < size; i++, j += 2 ) {
+            final int hi = HEX_VALUES[ s[j] & 0xFF ];
+            final int lo = HEX_VALUES[ s[j + 1] & 0xFF ];
+            if ( ( hi | lo ) < 0 ) throw invalidHex(s, hi < 0 ? j : j + 1, off);
+            buf[i] = (byte) ( ( hi << 4 ) | lo );
+        }
+        out.setRealSize(size);
+        return out;
+    }
 
-        // A-F == 65-70
-        return (byte) (b - 65 + 10);
+    private static IllegalArgumentException invalidHex(final byte[] s, final int index, final int off) {
+        return new IllegalArgumentException("invalid hex bytea value: unexpected '" + (char) (s[index] & 0xFF) + "' at " + (index - off));
     }
 
     private static final int MAX_3_BUFF_SIZE = 2 * 1024 * 1024;
 
     private static ByteList toBytesOctalEscaped(final byte[] s, final int off, final int len) {
-        final byte[] out;
         final int end = off + len;
         int correctSize = len;
         if ( len > MAX_3_BUFF_SIZE ) {
@@ -83,7 +94,7 @@ abstract class ByteaUtils {
             //
             for ( int i = off; i < end; ++i ) {
                 if ( s[i] == (byte) '\\' ) {
-                    if (s[ ++i ] == (byte) '\\') {
+                    if ( i + 1 < end && s[ ++i ] == (byte) '\\' ) {
                         --correctSize;
                     }
                     else {
@@ -92,32 +103,43 @@ abstract class ByteaUtils {
                     }
                 }
             }
-            out = new byte[correctSize];
-        }
-        else {
-            out = new byte[len];
+            if ( correctSize < 0 ) correctSize = 0; // malformed - reported below
         }
 
+        final ByteList out = new ByteList(correctSize);
+        final byte[] buf = out.unsafeBytes();
+
         int pos = 0;
         for ( int i = off; i < end; i++ ) {
             final byte b = s[i];
             if ( b == (byte) '\\' ) {
+                if ( i + 1 >= end ) throw invalidEscape(s, i, off);
                 final byte b1 = s[++i];
                 if ( b1 == (byte) '\\' ) { // escaped \
-                    out[ pos++ ] = (byte) '\\';
+                    buf[ pos++ ] = (byte) '\\';
                 }
                 else {
-                    int thebyte = (b1 - 48) * 64 + (s[++i] - 48) * 8 + (s[++i] - 48);
-                    if ( thebyte > 127 ) thebyte -= 256;
-                    out[ pos++ ] = (byte) thebyte;
+                    if ( i + 2 >= end || ! isOctal(b1) || ! isOctal(s[i + 1]) || ! isOctal(s[i + 2]) ) {
+                        throw invalidEscape(s, i - 1, off);
+                    }
+                    buf[ pos++ ] = (byte) ( (b1 - '0') * 64 + (s[++i] - '0') * 8 + (s[++i] - '0') );
                 }
             }
             else {
-                out[ pos++ ] = b;
+                buf[ pos++ ] = b;
             }
         }
 
-        return new ByteList(out, 0, pos, false);
+        out.setRealSize(pos);
+        return out;
+    }
+
+    private static boolean isOctal(final byte b) {
+        return b >= '0' && b <= '7';
+    }
+
+    private static IllegalArgumentException invalidEscape(final byte[] s, final int index, final int off) {
+        return new IllegalArgumentException("invalid escaped bytea value: bad escape at " + (index - off));
     }
 
     /*
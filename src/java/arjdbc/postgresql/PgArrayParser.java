@@ -0,0 +1,147 @@
+package arjdbc.postgresql;
+
+import org.jcodings.Encoding;
+import org.jruby.Ruby;
+import org.jruby.RubyArray;
+import org.jruby.RubyString;
+import org.jruby.runtime.builtin.IRubyObject;
+import org.jruby.util.ByteList;
+
+/**
+ * Parses PG array literals e.g. <code>{{1,2},{NULL,"a \"b\""}}</code> into (nested)
+ * Ruby arrays of strings (or nil for NULL elements) - in a single pass over the bytes.
+ *
+ * Same as <code>ActiveRecord::ConnectionAdapters::PostgreSQL::ArrayParser</code>
+ * except that only an unquoted (and unescaped) <code>NULL</code> is nil.
+ * An optional dimension decoration (e.g. <code>[0:1]={1,2}</code>) is skipped.
+ *
+ * NOTE: expects an ASCII compatible encoding where the special characters
+ * (<code>{},"\</code> and the delimiter) are not part of multi-byte sequences,
+ * which is the case with UTF-8 (the encoding the driver receives values in).
+ */
+final class PgArrayParser {
+
+    private final Ruby runtime;
+    private final byte[] bytes;
+    private final int end;
+    private final Encoding encoding;
+    private final byte delimiter;
+
+    private int index;
+
+    private PgArrayParser(final Ruby runtime, final byte[] bytes, final int begin, final int end,
+        final Encoding encoding, final byte delimiter) {
+        this.runtime = runtime; this.bytes = bytes;
+        this.index = begin; this.end = end;
+        this.encoding = encoding; this.delimiter = delimiter;
+    }
+
+    /**
+     * @param runtime
+     * @param string the array literal
+     * @param delimiter element delimiter (',' for all but the box type)
+     * @return a (nested) array
+     */
+    static RubyArray parse(final Ruby runtime, final RubyString string, final byte delimiter) {
+        final ByteList value = string.getByteList();
+        final int begin = value.getBegin();
+        return parse(runtime, value.unsafeBytes(), begin, begin + value.getRealSize(), value.getEncoding(), delimiter);
+    }
+
+    /**
+     * @param runtime
+     * @param bytes the (text) array literal bytes
+     * @param begin
+     * @param end
+     * @param encoding the encoding of returned strings
+     * @param delimiter element delimiter (',' for all but the box type)
+     * @return a (nested) array
+     */
+    static RubyArray parse(final Ruby runtime, final byte[] bytes, final int begin, final int end,
+        final Encoding encoding, final byte delimiter) {
+        final PgArrayParser parser = new PgArrayParser(runtime, bytes, begin, end, encoding, delimiter);
+        while ( parser.index < end && bytes[parser.index] != '{' ) parser.index++; // [1:2]={...}
+        if ( parser.index++ >= end ) return RubyArray.newArray(runtime);
+        return parser.parseArray();
+    }
+
+    // parses elements (after the opening '{') up to and including the closing '}'
+    private RubyArray parseArray() {
+        final RubyArray array = RubyArray.newArray(runtime);
+        while ( index < end ) {
+            final byte b = bytes[index];
+            if ( b == '}' ) {
+                index++; return array;
+            }
+            if ( b == delimiter ) {
+                index++; continue;
+            }
+            if ( b == '{' ) {
+                index++; array.append( parseArray() );
+            }
+            else if ( b == '"' ) {
+                index++; array.append( parseQuoted() );
+            }
+            else {
+                array.append( parseUnquoted() );
+            }
+        }
+        return array; // malformed (not terminated)
+    }
+
+    private IRubyObject parseQuoted() {
+        final int start = index;
+        ByteList escaped = null;
+        int from = start;
+        while ( index < end ) {
+            final byte b = bytes[index];
+            if ( b == '"' ) break;
+            if ( b == '\\' ) {
+                if ( escaped == null ) escaped = new ByteList(index - start + 16);
+                escaped.append(bytes, from, index - from);
+                if ( ++index < end ) escaped.append(bytes[index]);
+                from = index + 1;
+            }
+            index++;
+        }
+        final IRubyObject item = newString(escaped, start, from);
+        index++; // closing '"'
+        // skip (malformed) trailing chars e.g. {"a"b,c}
+        while ( index < end && bytes[index] != delimiter && bytes[index] != '}' ) index++;
+        return item;
+    }
+
+    private IRubyObject parseUnquoted() {
+        final int start = index;
+        ByteList escaped = null;
+        int from = start;
+        while ( index < end ) {
+            final byte b = bytes[index];
+            if ( b == delimiter || b == '}' ) break;
+            if ( b == '\\' ) {
+                if ( escaped == null ) escaped = new ByteList(index - start + 16);
+                escaped.append(bytes, from, index - from);
+                if ( ++index < end ) escaped.append(bytes[index]);
+                from = index + 1;
+            }
+            index++;
+        }
+        if ( escaped == null && index - start == 4 && isNULL(start) ) return runtime.getNil();
+        return newString(escaped, start, from);
+    }
+
+    private boolean isNULL(final int i) {
+        return bytes[i] == 'N' && bytes[i + 1] == 'U' && bytes[i + 2] == 'L' && bytes[i + 3] == 'L';
+    }
+
+    private RubyString newString(final ByteList escaped, final int start, final int from) {
+        final int stop = Math.min(index, end);
+        if ( escaped == null ) {
+            return RubyString.newString(runtime, new ByteList(bytes, start, stop - start, encoding, true));
+        }
+        if ( stop > from ) escaped.append(bytes, from, stop - from);
+        escaped.setEncoding(encoding);
+        return RubyString.newString(runtime, escaped);
+    }
+
+}
@@ -0,0 +1,164 @@
+package arjdbc.postgresql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.GJChronology;
+import org.joda.time.chrono.ISOChronology;
+import org.jruby.Ruby;
+import org.jruby.RubyFloat;
+import org.jruby.RubyTime;
+import org.jruby.javasupport.Java;
+import org.jruby.runtime.Block;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+import org.postgresql.PGResultSetMetaData;
+import org.postgresql.core.Oid;
+import org.postgresql.jdbc.PgResultSet;
+import org.postgresql.jdbc.PgResultSetWrapper;
+
+/**
+ * Decoding of (temporal) values received in PG's binary wire format.
+ *
+ * With binary transfer (server prepared statements) the driver keeps values
+ * of the enabled OIDs in binary format, <code>ResultSet#getBytes</code> returns
+ * those as is. Values are decoded straight into Ruby objects instead of having
+ * the driver format a <code>String</code> (that gets parsed) first.
+ *
+ * NOTE: assumes (the default) integer date-times, float date-times are gone since PG 10.
+ *
+ * @see PostgreSQLRubyJdbcConnection
+ */
+abstract class PgBinaryUtils {
+
+    static final int FORMAT_UNKNOWN = -1;
+    static final int FORMAT_TEXT = 0;
+    static final int FORMAT_BINARY = 1;
+
+    private static final long PG_EPOCH_MILLIS = 946684800000L; // 2000-01-01 00:00:00 UTC
+    private static final long PG_EPOCH_DAY = 10957; // 2000-01-01 (epoch day)
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * @param resultSet
+     * @param column
+     * @return the (wire) format of the column values or FORMAT_UNKNOWN (if not a PG result)
+     * @throws SQLException
+     */
+    static int getFormat(final ResultSet resultSet, final int column) throws SQLException {
+        final ResultSetMetaData metaData = resultSet.getMetaData();
+        if ( metaData instanceof PGResultSetMetaData ) {
+            return ((PGResultSetMetaData) metaData).getFormat(column) == 1 ? FORMAT_BINARY : FORMAT_TEXT;
+        }
+        return FORMAT_UNKNOWN;
+    }
+
+    /**
+     * Same as <code>getFormat(resultSet, column) == FORMAT_BINARY</code> but
+     * without going through the (result set) meta-data.
+     * @param resultSet
+     * @param column
+     * @return whether the column value is in binary format
+     */
+    static boolean isBinary(final ResultSet resultSet, final int column) {
+        return resultSet instanceof PgResultSet && PgResultSetWrapper.isBinary(resultSet, column);
+    }
+
+    /**
+     * @param resultSet
+     * @param column
+     * @return whether a <code>timestamptz</code> column
+     * @throws SQLException
+     */
+    static boolean isTimestampWithZone(final ResultSet resultSet, final int column) throws SQLException {
+        if ( resultSet instanceof PgResultSet ) {
+            return PgResultSetWrapper.getOID(resultSet, column) == Oid.TIMESTAMPTZ;
+        }
+        return "timestamptz".equals(resultSet.getMetaData().getColumnTypeName(column));
+    }
+
+    static int int4(final byte[] bytes, final int offset) {
+        return ( bytes[offset] & 0xFF ) << 24 | ( bytes[offset + 1] & 0xFF ) << 16 |
+               ( bytes[offset + 2] & 0xFF ) << 8 | ( bytes[offset + 3] & 0xFF );
+    }
+
+    static long int8(final byte[] bytes, final int offset) {
+        return ( (long) int4(bytes, offset) << 32 ) | ( int4(bytes, offset + 4) & 0xFFFFFFFFL );
+    }
+
+    /**
+     * Decodes a (binary) <code>timestamp</code> or <code>timestamptz</code> value.
+     * @param context
+     * @param bytes
+     * @param offset
+     * @param withZone whether a timestamptz (micros are UTC) value
+     * @param zone the default zone
+     * @return a Ruby time or (+/-) infinity
+     */
+    static IRubyObject timestamp(final ThreadContext context, final byte[] bytes, final int offset,
+        final boolean withZone, final DateTimeZone zone) {
+        final long micros = int8(bytes, offset);
+        if ( micros == Long.MAX_VALUE ) return RubyFloat.newFloat(context.runtime, RubyFloat.INFINITY);
+        if ( micros == Long.MIN_VALUE ) return RubyFloat.newFloat(context.runtime, -RubyFloat.INFINITY);
+
+        final long millis = floorDiv(micros, 1000);
+        long time = PG_EPOCH_MILLIS + millis;
+        // timestamp (without time zone) values are "local" - same as when parsing
+        if ( ! withZone && zone != DateTimeZone.UTC ) time = zone.convertLocalToUTC(time, false);
+        // NOTE: same as DateTimeUtils.parseDateTime - DateTime has millis and RubyTime the remaining nanos
+        final DateTime dateTime = new DateTime(time, ISOChronology.getInstance(zone));
+        return RubyTime.newTime(context.runtime, dateTime, ( micros - millis * 1000 ) * 1000);
+    }
+
+    /**
+     * Decodes a (binary) <code>date</code> value.
+     * @param context
+     * @param bytes
+     * @param offset
+     * @param zone the default zone
+     * @return a Ruby date or (+/-) infinity
+     */
+    static IRubyObject date(final ThreadContext context, final byte[] bytes, final int offset,
+        final DateTimeZone zone) {
+        final int days = int4(bytes, offset);
+        final Ruby runtime = context.runtime;
+        if ( days == Integer.MAX_VALUE ) return RubyFloat.newFloat(runtime, RubyFloat.INFINITY);
+        if ( days == Integer.MIN_VALUE ) return RubyFloat.newFloat(runtime, -RubyFloat.INFINITY);
+
+        final long millis = ( PG_EPOCH_DAY + days ) * MILLIS_PER_DAY;
+        final Chronology utc = ISOChronology.getInstanceUTC();
+        int year = utc.year().get(millis);
+        if ( year <= 0 ) year--; // GJ has no year 0 ('0001-01-01 BC' is -1)
+        // NOTE: same as DateTimeUtils.parseDate - Date's JODA (ITALY) chronology
+        final DateTime dateTime = new DateTime(year, utc.monthOfYear().get(millis), utc.dayOfMonth().get(millis),
+            0, 0, 0, GJChronology.getInstance(zone));
+        return runtime.getClass("Date").newInstance(context, Java.getInstance(runtime, dateTime), Block.NULL_BLOCK);
+    }
+
+    /**
+     * Decodes a (binary) <code>time</code> or <code>timetz</code> value.
+     * Same as parsing the zone offset of a timetz value is ignored.
+     * @param context
+     * @param bytes
+     * @param offset
+     * @param zone the default zone
+     * @return a (dummy 2000-01-01) Ruby time
+     */
+    static RubyTime time(final ThreadContext context, final byte[] bytes, final int offset,
+        final DateTimeZone zone) {
+        final long micros = int8(bytes, offset);
+        final int millis = (int) ( micros / 1000 );
+        final DateTime dateTime = new DateTime(2000, 1, 1, 0, 0, 0, 0, zone).withMillisOfDay(millis);
+        return RubyTime.newTime(context.runtime, dateTime, ( micros % 1000 ) * 1000);
+    }
+
+    private static long floorDiv(final long x, final long y) { // Math.floorDiv (Java 8)
+        final long r = x / y;
+        return ( x % y != 0 && ( ( x ^ y ) < 0 ) ) ? r - 1 : r;
+    }
+
+}
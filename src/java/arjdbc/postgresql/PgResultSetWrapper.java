@@ -0,0 +1,46 @@
+/*
+ * A class to get to the raw (wire format) values of a PgResultSet,
+ * the current row is only accessible from within the package.
+ */
+package org.postgresql.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class PgResultSetWrapper {
+
+    /**
+     * NOTE: the returned bytes are the driver's buffer - not to be changed.
+     * @param resultSet
+     * @param column
+     * @return the raw value (null if NULL)
+     * @throws SQLException
+     * @throws ClassCastException if not a PgResultSet
+     */
+    public static byte[] getRawValue(final ResultSet resultSet, final int column) throws SQLException {
+        final PgResultSet pgResultSet = (PgResultSet) resultSet;
+        pgResultSet.checkResultSet(column); // sets wasNullFlag
+        return pgResultSet.this_row[column - 1];
+    }
+
+    /**
+     * @param resultSet
+     * @param column
+     * @return whether the value is in binary format
+     * @throws ClassCastException if not a PgResultSet
+     */
+    public static boolean isBinary(final ResultSet resultSet, final int column) {
+        return ((PgResultSet) resultSet).isBinary(column);
+    }
+
+    /**
+     * @param resultSet
+     * @param column
+     * @return the (type) OID of the column
+     * @throws ClassCastException if not a PgResultSet
+     */
+    public static int getOID(final ResultSet resultSet, final int column) {
+        return ((PgResultSet) resultSet).fields[column - 1].getOID();
+    }
+
+}
@@ -27,6 +27,7 @@ import static arjdbc.util.QuotingUtils.quoteCharAndDecorateWith;
 import static arjdbc.util.QuotingUtils.quoteCharWith;
 
 import org.jruby.Ruby;
+import org.jruby.RubyArray;
 import org.jruby.RubyModule;
 import org.jruby.RubyString;
 import org.jruby.anno.JRubyMethod;
@@ -71,7 +72,32 @@ public class PostgreSQLModule {
     @JRubyMethod(name = "unescape_bytea", meta = true)
     public static RubyString unescape_bytea(final ThreadContext context, final IRubyObject self, final IRubyObject escaped) {
         final ByteList bytes = ((RubyString) escaped).getByteList();
-        return RubyString.newString(context.runtime, ByteaUtils.toBytes(bytes.unsafeBytes(), bytes.getBegin(), bytes.getRealSize()));
+        try {
+            return RubyString.newString(context.runtime, ByteaUtils.toBytes(bytes.unsafeBytes(), bytes.getBegin(), bytes.getRealSize()));
+        }
+        catch (IllegalArgumentException e) {
+            throw context.runtime.newArgumentError(e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a PG array literal e.g. <code>{1,NULL,"a b"}</code> into a (nested) array of strings.
+     * @see PgArrayParser
+     */
+    @JRubyMethod(name = "parse_pg_array", meta = true)
+    public static RubyArray parse_pg_array(final ThreadContext context, final IRubyObject self, final IRubyObject string) {
+        return PgArrayParser.parse(context.runtime, string.convertToString(), (byte) ',');
+    }
+
+    @JRubyMethod(name = "parse_pg_array", meta = true)
+    public static RubyArray parse_pg_array(final ThreadContext context, final IRubyObject self,
+        final IRubyObject string, final IRubyObject delimiter) {
+        if ( delimiter.isNil() ) return parse_pg_array(context, self, string);
+        final ByteList delim = delimiter.convertToString().getByteList();
+        if ( delim.getRealSize() != 1 ) {
+            throw context.runtime.newArgumentError("expected a single byte delimiter, got: " + delimiter.inspect());
+        }
+        return PgArrayParser.parse(context.runtime, string.convertToString(), (byte) delim.get(0));
     }
 
 }
@@ -13,6 +13,7 @@ import org.jruby.RubyClass;
 import org.jruby.RubyHash;
 import org.jruby.RubyMethod;
 import org.jruby.RubyModule;
+import org.jruby.RubyNumeric;
 import org.jruby.RubyString;
 import org.jruby.anno.JRubyMethod;
 import org.jruby.runtime.Block;
@@ -133,7 +134,7 @@ public class PostgreSQLResult extends JdbcResult {
      */
     @JRubyMethod
     public IRubyObject length(final ThreadContext context) {
-        return values.length();
+        return context.runtime.newFixnum(getRowCount());
     }
 
     /**
@@ -147,6 +148,7 @@ public class PostgreSQLResult extends JdbcResult {
     @Override
     public IRubyObject toARResult(final ThreadContext context) throws SQLException {
         RubyClass BinaryDataClass = null;
+        RubyArray values = null;
         int rowCount = 0;
 
         // This is destructive, but since this is typically the final
@@ -157,6 +159,7 @@ public class PostgreSQLResult extends JdbcResult {
                 // so AR knows it has already been unescaped
                 if (BinaryDataClass == null) {
                     BinaryDataClass = getBinaryDataClass(context);
+                    values = getValues(context);
                     rowCount = values.getLength();
                 }
                 for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
@@ -178,7 +181,23 @@ public class PostgreSQLResult extends JdbcResult {
      * @return IRubyObject RubyArray of RubyArray of values
      */
     @JRubyMethod
-    public IRubyObject values() {
-        return values;
+    public IRubyObject values(final ThreadContext context) {
+        return getValues(context);
+    }
+
+    /**
+     * Returns an array of the values in a single column.
+     * This is defined in PG::Result, on columnar results other columns are left as is
+     * @param context current thread context
+     * @param index the (zero based) column index
+     * @return IRubyObject RubyArray of values
+     */
+    @JRubyMethod
+    public IRubyObject column_values(final ThreadContext context, final IRubyObject index) {
+        final int i = RubyNumeric.fix2int(index);
+        if (i < 0 || i >= columnNames.length) {
+            throw context.runtime.newIndexError("invalid column number " + i);
+        }
+        return getColumnValues(context, i);
     }
 }
@@ -26,19 +26,24 @@
 package arjdbc.postgresql;
 
 import arjdbc.jdbc.Callable;
+import arjdbc.jdbc.ColumnValues;
 import arjdbc.jdbc.DriverWrapper;
+import arjdbc.jdbc.StringDictionary;
 import arjdbc.postgresql.PostgreSQLResult;
 import arjdbc.util.DateTimeUtils;
 import arjdbc.util.StringHelper;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.lang.StringBuilder;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
@@ -50,19 +55,30 @@ import java.util.UUID;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
+import org.jcodings.Encoding;
+import org.jcodings.specific.UTF8Encoding;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.jruby.*;
 import org.jruby.anno.JRubyMethod;
 import org.jruby.exceptions.RaiseException;
 import org.jruby.javasupport.JavaUtil;
+import org.jruby.runtime.Block;
+import org.jruby.runtime.BlockCallback;
+import org.jruby.runtime.CallBlock;
+import org.jruby.runtime.Helpers;
 import org.jruby.runtime.ObjectAllocator;
+import org.jruby.runtime.Signature;
 import org.jruby.runtime.ThreadContext;
 import org.jruby.runtime.builtin.IRubyObject;
 import org.jruby.util.ByteList;
 
 import org.postgresql.PGConnection;
+import org.postgresql.PGResultSetMetaData;
 import org.postgresql.PGStatement;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyOut;
+import org.postgresql.core.Oid;
 import org.postgresql.geometric.PGbox;
 import org.postgresql.geometric.PGcircle;
 import org.postgresql.geometric.PGline;
@@ -70,6 +86,8 @@ import org.postgresql.geometric.PGlseg;
 import org.postgresql.geometric.PGpath;
 import org.postgresql.geometric.PGpoint;
 import org.postgresql.geometric.PGpolygon;
+import org.postgresql.jdbc.PgResultSet;
+import org.postgresql.jdbc.PgResultSetWrapper;
 import org.postgresql.util.PGInterval;
 import org.postgresql.util.PGobject;
 
@@ -114,11 +132,14 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
     private static final Pattern pointCleanerPattern = Pattern.compile("\\.0\\b");
 
     private RubyClass resultClass;
+    // string arrays get parsed from raw bytes unless stringToRuby is re-defined
+    private final boolean parseStringArrays;
 
     public PostgreSQLRubyJdbcConnection(Ruby runtime, RubyClass metaClass) {
         super(runtime, metaClass);
 
         resultClass = getMetaClass().getClass("Result");
+        parseStringArrays = ! isConverterOverridden(PostgreSQLRubyJdbcConnection.class, "stringToRuby");
     }
 
     public static RubyClass createPostgreSQLJdbcConnectionClass(Ruby runtime, RubyClass jdbcConnection) {
@@ -222,6 +243,259 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
         });
     }
 
+    /**
+     * Bulk loads rows using <code>COPY table (columns) FROM STDIN</code>.
+     * The source is either an IO (read in chunks) or an enumerable yielding
+     * (already formatted) strings or row arrays (formatted as text/csv).
+     * @param context current thread context
+     * @param args (table, columns, source) or (table, columns, source, options)
+     * options: <code>format: :text (default), :csv or :binary</code>
+     * @return the number of rows copied
+     */
+    @JRubyMethod(name = "copy_from", required = 3, optional = 1)
+    public IRubyObject copy_from(final ThreadContext context, final IRubyObject[] args) {
+        final IRubyObject source = args[2];
+        final String format = copyFormat(context, args.length > 3 ? args[3] : context.nil);
+        final String sql = "COPY " + copyTarget(context, args[0], args[1]) + " FROM STDIN" + copyOptions(format);
+
+        // NOTE: not re-tried - the source might have been (partially) consumed
+        return withConnection(context, new OnceCallable<IRubyObject>() {
+            public IRubyObject call(final Connection connection) throws SQLException {
+                started();
+                final CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+                try {
+                    if ( source.respondsTo("read") ) {
+                        final RubyFixnum chunkSize = context.runtime.newFixnum(COPY_CHUNK_SIZE);
+                        IRubyObject chunk;
+                        while ( ! ( chunk = source.callMethod(context, "read", chunkSize) ).isNil() ) {
+                            writeToCopy(copyIn, chunk.convertToString().getByteList());
+                        }
+                    }
+                    else {
+                        final CopyRowWriter writer = new CopyRowWriter(copyIn, format);
+                        try {
+                            Helpers.invoke(context, source, "each", IRubyObject.NULL_ARRAY,
+                                CallBlock.newCallClosure(source, context.runtime.getObject(), Signature.ONE_ARGUMENT, writer, context));
+                        }
+                        catch (CopyFailure e) { throw e.getCause(); }
+                    }
+                    return context.runtime.newFixnum(copyIn.endCopy());
+                }
+                catch (final SQLException e) {
+                    debugErrorSQL(context, sql);
+                    throw e;
+                }
+                finally {
+                    if ( copyIn.isActive() ) {
+                        try { copyIn.cancelCopy(); } catch (SQLException e) { debugStackTrace(context, e); }
+                    }
+                }
+            }
+        });
+    }
+
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Exports data using <code>COPY table (or query) TO STDOUT</code>, the output is streamed
+     * (in chunks) into the given IO (using <code>write</code>) or yielded to the block.
+     * @param context current thread context
+     * @param args (source), (source, io), (source, options) or (source, io, options)
+     * where source is a table name or a (SELECT) query and
+     * options: <code>format: :text (default), :csv or :binary</code>
+     * @param block yielding chunks of data (if no IO is given)
+     * @return the number of rows copied
+     */
+    @JRubyMethod(name = "copy_to", required = 1, optional = 2)
+    public IRubyObject copy_to(final ThreadContext context, final IRubyObject[] args, final Block block) {
+        IRubyObject io = context.nil, options = context.nil;
+        for ( int i = 1; i < args.length; i++ ) {
+            if ( args[i] instanceof RubyHash ) options = args[i];
+            else io = args[i];
+        }
+        if ( io.isNil() && ! block.isGiven() ) {
+            throw context.runtime.newArgumentError("copy_to requires an IO or a block");
+        }
+        final IRubyObject output = io;
+
+        final String format = copyFormat(context, options);
+        final String sql = "COPY " + copySource(context, args[0]) + " TO STDOUT" + copyOptions(format);
+        final boolean binary = "binary".equals(format);
+
+        // NOTE: not re-tried - (partial) output might have been written
+        return withConnection(context, new OnceCallable<IRubyObject>() {
+            public IRubyObject call(final Connection connection) throws SQLException {
+                started();
+                final CopyOut copyOut = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql);
+                try {
+                    ByteList chunk = newCopyChunk(binary);
+                    byte[] bytes;
+                    while ( ( bytes = copyOut.readFromCopy() ) != null ) {
+                        chunk.append(bytes);
+                        if ( chunk.realSize() >= COPY_CHUNK_SIZE ) {
+                            writeFromCopy(context, output, block, chunk);
+                            chunk = newCopyChunk(binary);
+                        }
+                    }
+                    if ( chunk.realSize() > 0 ) writeFromCopy(context, output, block, chunk);
+
+                    return context.runtime.newFixnum(copyOut.getHandledRowCount());
+                }
+                catch (final SQLException e) {
+                    debugErrorSQL(context, sql);
+                    throw e;
+                }
+                finally {
+                    if ( copyOut.isActive() ) {
+                        try { copyOut.cancelCopy(); } catch (SQLException e) { debugStackTrace(context, e); }
+                    }
+                }
+            }
+        });
+    }
+
+    private static ByteList newCopyChunk(final boolean binary) {
+        final ByteList chunk = new ByteList(COPY_CHUNK_SIZE);
+        if ( ! binary ) chunk.setEncoding(UTF8Encoding.INSTANCE); // client_encoding is UTF8
+        return chunk;
+    }
+
+    private static void writeFromCopy(final ThreadContext context, final IRubyObject io, final Block block,
+        final ByteList chunk) {
+        final RubyString str = RubyString.newString(context.runtime, chunk);
+        if ( io.isNil() ) block.yield(context, str);
+        else io.callMethod(context, "write", str);
+    }
+
+    private String copySource(final ThreadContext context, final IRubyObject source) {
+        if ( source instanceof RubyString ) {
+            final String sql = source.asJavaString().trim();
+            for ( int i = 0; i < sql.length(); i++ ) {
+                if ( Character.isWhitespace(sql.charAt(i)) ) return '(' + sql + ')'; // a query
+            }
+        }
+        return copyTarget(context, source, context.nil);
+    }
+
+    private static void writeToCopy(final CopyIn copyIn, final ByteList bytes) throws SQLException {
+        copyIn.writeToCopy(bytes.unsafeBytes(), bytes.begin(), bytes.realSize());
+    }
+
+    private String copyTarget(final ThreadContext context, final IRubyObject table, final IRubyObject columns) {
+        final IRubyObject adapter = adapter(context);
+        final StringBuilder target = new StringBuilder(32);
+        target.append( adapter.callMethod(context, "quote_table_name", table).asJavaString() );
+        if ( ! columns.isNil() ) {
+            final RubyArray columnNames = columns.convertToArray();
+            if ( columnNames.size() > 0 ) {
+                target.append(" (");
+                for ( int i = 0; i < columnNames.size(); i++ ) {
+                    if ( i > 0 ) target.append(", ");
+                    target.append( adapter.callMethod(context, "quote_column_name", columnNames.eltInternal(i)).asJavaString() );
+                }
+                target.append(')');
+            }
+        }
+        return target.toString();
+    }
+
+    private static String copyFormat(final ThreadContext context, final IRubyObject options) {
+        if ( options.isNil() ) return "text";
+        final IRubyObject format = ((RubyHash) options).fastARef(context.runtime.newSymbol("format"));
+        if ( format == null || format.isNil() ) return "text";
+        final String name = format.asJavaString();
+        if ( "text".equals(name) || "csv".equals(name) || "binary".equals(name) ) return name;
+        throw context.runtime.newArgumentError("unsupported COPY format: " + name + " (expected :text, :csv or :binary)");
+    }
+
+    private static String copyOptions(final String format) {
+        return "text".equals(format) ? "" : " WITH (FORMAT " + format + ')';
+    }
+
+    private static final class CopyFailure extends RuntimeException {
+
+        private static final long serialVersionUID = -8531699129511414324L;
+
+        CopyFailure(final SQLException cause) { super(cause); }
+
+        @Override
+        public synchronized SQLException getCause() { return (SQLException) super.getCause(); }
+
+    }
+
+    /**
+     * Writes (yielded) rows into a COPY, strings are written as is while arrays
+     * get formatted as a single text (or CSV) line.
+     */
+    private static final class CopyRowWriter implements BlockCallback {
+
+        private final CopyIn copyIn;
+        private final boolean csv, binary;
+        private final StringBuilder line = new StringBuilder(128);
+
+        CopyRowWriter(final CopyIn copyIn, final String format) {
+            this.copyIn = copyIn;
+            this.csv = "csv".equals(format);
+            this.binary = "binary".equals(format);
+        }
+
+        public IRubyObject call(final ThreadContext context, final IRubyObject[] args, final Block block) {
+            final IRubyObject row = args.length == 1 ? args[0] : RubyArray.newArrayNoCopy(context.runtime, args);
+            try {
+                if ( row instanceof RubyArray && ! binary ) {
+                    final byte[] bytes = formatRow(context, (RubyArray) row).getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                }
+                else {
+                    writeToCopy(copyIn, row.convertToString().getByteList());
+                }
+            }
+            catch (SQLException e) {
+                throw new CopyFailure(e);
+            }
+            return context.nil;
+        }
+
+        private String formatRow(final ThreadContext context, final RubyArray row) {
+            line.setLength(0);
+            for ( int i = 0; i < row.size(); i++ ) {
+                if ( i > 0 ) line.append( csv ? ',' : '\t' );
+                final IRubyObject value = row.eltInternal(i);
+                if ( value.isNil() ) {
+                    if ( ! csv ) line.append("\\N");
+                    continue;
+                }
+                final String str = value.asString().toString();
+                if ( csv ) appendCSV(str); else appendText(str);
+            }
+            return line.append('\n').toString();
+        }
+
+        private void appendCSV(final String str) {
+            if ( str.isEmpty() || str.indexOf(',') >= 0 || str.indexOf('"') >= 0 ||
+                 str.indexOf('\n') >= 0 || str.indexOf('\r') >= 0 ) {
+                line.append('"').append( str.replace("\"", "\"\"") ).append('"');
+            }
+            else {
+                line.append(str);
+            }
+        }
+
+        private void appendText(final String str) {
+            for ( int i = 0; i < str.length(); i++ ) {
+                final char c = str.charAt(i);
+                switch (c) {
+                    case '\\': line.append("\\\\"); break;
+                    case '\t': line.append("\\t"); break;
+                    case '\n': line.append("\\n"); break;
+                    case '\r': line.append("\\r"); break;
+                    default: line.append(c);
+                }
+            }
+        }
+
+    }
+
     private transient RubyClass oidArray; // PostgreSQL::OID::Array
 
     private RubyClass oidArray(final ThreadContext context) {
@@ -260,6 +534,15 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
         return connection;
     }
 
+    /**
+     * The driver only uses a cursor (fetching rows in fetch size chunks) with auto-commit off,
+     * the cursor is closed when the transaction ends.
+     */
+    @Override
+    protected boolean streamRequiresTransaction() {
+        return true;
+    }
+
     @Override
     protected PostgreSQLResult mapExecuteResult(final ThreadContext context, final Connection connection,
                                                 final ResultSet resultSet) throws SQLException {
@@ -402,7 +685,7 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
         final int index, IRubyObject value,
         final IRubyObject attribute, final int type) throws SQLException {
 
-        final String columnType = attributeSQLType(context, attribute).asJavaString();
+        final String columnType = attributeSQLTypeName(context, attribute);
         Double[] pointValues;
 
         switch ( columnType ) {
@@ -567,7 +850,7 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
         final int index, final IRubyObject value,
         final IRubyObject attribute, final int type) throws SQLException {
 
-        if ( attributeSQLType(context, attribute) == context.nil ) {
+        if ( attributeSQLTypeName(context, attribute) == null ) {
             /*
                 We have to check for a uuid here because in some cases
                 (for example,  when doing "exists?" checks, or with legacy binds)
@@ -671,6 +954,247 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
         return super.extractTableName(connection, catalog, schema, tableName);
     }
 
+    @Override
+    protected ColumnConverter newColumnConverter(final int type) {
+        switch (type) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+                return new StringConverter();
+            case Types.BIGINT:
+                return new BigIntegerConverter();
+            case Types.BIT:
+                return new BitConverter();
+            case Types.BINARY:
+                return new ByteaConverter();
+            case Types.DATE:
+                return new TemporalConverter(type, "dateToRuby");
+            case Types.TIME:
+                return new TemporalConverter(type, "timeToRuby");
+            case Types.TIMESTAMP:
+                return new TemporalConverter(type, "timestampToRuby");
+            case Types.ARRAY:
+                if ( isConverterOverridden(PostgreSQLRubyJdbcConnection.class, "arrayToRuby") ) break;
+                return new ArrayConverter();
+        }
+        return super.newColumnConverter(type);
+    }
+
+    private final class StringConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return stringToRuby(context, runtime, resultSet, column);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            if ( isConverterOverridden(PostgreSQLRubyJdbcConnection.class, "stringToRuby") ) {
+                return super.newColumnValues();
+            }
+            return new ColumnValues.Bytes() {
+                @Override
+                protected IRubyObject toRuby(ThreadContext context, byte[] bytes, int offset, int length) {
+                    return StringHelper.newDefaultInternalString(context.runtime, bytes, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public ColumnConverter withDictionary(final int maxSize) {
+            if ( isConverterOverridden(PostgreSQLRubyJdbcConnection.class, "stringToRuby") ) return this;
+            return new DictionaryStringConverter(maxSize);
+        }
+
+    }
+
+    private final class DictionaryStringConverter extends ColumnConverter {
+
+        private final StringDictionary dictionary;
+
+        DictionaryStringConverter(final int maxSize) {
+            this.dictionary = new StringDictionary(maxSize);
+        }
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            final byte[] value = resultSet.getBytes(column);
+            if ( value == null ) return context.nil;
+            return dictionary.get(context, value);
+        }
+
+    }
+
+    private final class BigIntegerConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return bigIntegerToRuby(context, runtime, resultSet, column);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            // NOTE: int8 always fits a long (unlike an unsigned BIGINT)
+            if ( isConverterOverridden(PostgreSQLRubyJdbcConnection.class, "bigIntegerToRuby") ) {
+                return super.newColumnValues();
+            }
+            return new ColumnValues.Longs();
+        }
+
+    }
+
+    private final class BitConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            return bitToRuby(context, runtime, resultSet, column);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            if ( isConverterOverridden(PostgreSQLRubyJdbcConnection.class, "bitToRuby") ||
+                 isConverterOverridden(arjdbc.jdbc.RubyJdbcConnection.class, "booleanToRuby") ||
+                 ( rawBoolean != null && rawBoolean.booleanValue() ) ) {
+                return super.newColumnValues();
+            }
+            return new ColumnValues.Bytes() {
+                @Override
+                protected byte[] readBytes(final ResultSet resultSet, final int column) throws SQLException {
+                    return getTextBytes(resultSet, column); // copied into the slab
+                }
+
+                @Override
+                protected IRubyObject toRuby(ThreadContext context, byte[] bytes, int offset, int length) {
+                    if (length > 1) { // bit(n) string e.g. '0101'
+                        return RubyString.newString(context.runtime, new ByteList(bytes, offset, length, UTF8Encoding.INSTANCE, true));
+                    }
+                    // 't' / 'f' for booleans and '1' / '0' for a bit(1)
+                    return context.runtime.newBoolean(length == 1 && (bytes[offset] == 't' || bytes[offset] == '1'));
+                }
+            };
+        }
+
+    }
+
+    /**
+     * Decodes bytea values from the driver's raw (hex) value bytes, instead of
+     * streaming the bytes decoded by the driver.
+     */
+    private final class ByteaConverter extends ColumnConverter {
+
+        private final boolean overridden; // streamToRuby re-defined by a sub-class
+
+        ByteaConverter() {
+            this.overridden = isConverterOverridden(arjdbc.jdbc.RubyJdbcConnection.class, "streamToRuby");
+        }
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            if ( overridden || ! ( resultSet instanceof PgResultSet ) ) {
+                try {
+                    return streamToRuby(context, runtime, resultSet, column);
+                }
+                catch (IOException e) {
+                    throw new SQLException(e.getMessage(), e);
+                }
+            }
+            final byte[] value = PgResultSetWrapper.getRawValue(resultSet, column);
+            if ( value == null ) return context.nil;
+            if ( PgResultSetWrapper.isBinary(resultSet, column) ) { // binary transfer
+                return RubyString.newString(runtime, new ByteList(value, true));
+            }
+            return RubyString.newString(runtime, ByteaUtils.toBytes(value, 0, value.length));
+        }
+
+    }
+
+    /**
+     * Date/time values are kept as raw bytes and only parsed (or decoded) once read.
+     * Values are in text format, unless received in binary format (server prepared
+     * statements with binary transfer) - the format is resolved once per column.
+     */
+    private final class TemporalConverter extends ColumnConverter {
+
+        private final int type;
+        private final boolean overridden; // xxxToRuby re-defined by a sub-class
+
+        private int format = PgBinaryUtils.FORMAT_UNKNOWN - 1; // not yet resolved
+        private boolean withZone; // timestamptz
+
+        TemporalConverter(final int type, final String method) {
+            this.type = type;
+            this.overridden = isConverterOverridden(PostgreSQLRubyJdbcConnection.class, method);
+        }
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            if ( overridden ) {
+                switch (type) {
+                    case Types.DATE: return dateToRuby(context, runtime, resultSet, column);
+                    case Types.TIME: return timeToRuby(context, runtime, resultSet, column);
+                    default: return timestampToRuby(context, runtime, resultSet, column);
+                }
+            }
+            final byte[] value = readBytes(resultSet, column);
+            return value == null ? context.nil : toRuby(context, value, 0, value.length);
+        }
+
+        @Override
+        public ColumnValues newColumnValues() {
+            if ( overridden ) return super.newColumnValues();
+            return new ColumnValues.Bytes() {
+                @Override
+                protected byte[] readBytes(final ResultSet resultSet, final int column) throws SQLException {
+                    return TemporalConverter.this.readBytes(resultSet, column);
+                }
+
+                @Override
+                protected IRubyObject toRuby(ThreadContext context, byte[] bytes, int offset, int length) {
+                    return TemporalConverter.this.toRuby(context, bytes, offset, length);
+                }
+            };
+        }
+
+        private byte[] readBytes(final ResultSet resultSet, final int column) throws SQLException {
+            if ( format < PgBinaryUtils.FORMAT_UNKNOWN ) {
+                format = PgBinaryUtils.getFormat(resultSet, column);
+                withZone = format == PgBinaryUtils.FORMAT_BINARY && type == Types.TIMESTAMP &&
+                    PgBinaryUtils.isTimestampWithZone(resultSet, column);
+            }
+            if ( format == PgBinaryUtils.FORMAT_UNKNOWN ) return getTextBytes(resultSet, column);
+            return resultSet.getBytes(column); // raw (text or binary) value
+        }
+
+        private IRubyObject toRuby(final ThreadContext context, final byte[] bytes, final int offset, final int length) {
+            if ( format == PgBinaryUtils.FORMAT_BINARY ) {
+                switch (type) {
+                    case Types.DATE: return PgBinaryUtils.date(context, bytes, offset, getDefaultTimeZone(context));
+                    case Types.TIME: return PgBinaryUtils.time(context, bytes, offset, getDefaultTimeZone(context));
+                    default: return PgBinaryUtils.timestamp(context, bytes, offset, withZone, getDefaultTimeZone(context));
+                }
+            }
+            switch (type) {
+                case Types.DATE: return parseDate(context, bytes, offset, length);
+                case Types.TIME: return parseTime(context, bytes, offset, length);
+                default: return parseTimestamp(context, bytes, offset, length);
+            }
+        }
+
+    }
+
+    /**
+     * PG's int8 (and oid) values always fit a long, thus there's no need to go
+     * through a <code>String</code> (and BigInteger) - binary values are decoded
+     * by the driver.
+     */
+    @Override
+    protected IRubyObject bigIntegerToRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+        final long value = resultSet.getLong(column);
+        if ( value == 0 && resultSet.wasNull() ) return context.nil;
+        return runtime.newFixnum(value);
+    }
+
     /**
      * Determines if this field is multiple bits or a single bit (or t/f),
      * if there are multiple bits they are turned into a string, if there
@@ -703,19 +1227,91 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
     @Override
     protected IRubyObject dateToRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int index) throws SQLException {
         // NOTE: PostgreSQL adapter under MRI using pg gem returns UTC-d Date/Time values
-        final String value = resultSet.getString(index);
+        if (PgBinaryUtils.isBinary(resultSet, index)) {
+            final byte[] value = resultSet.getBytes(index);
+            return value == null ? context.nil : PgBinaryUtils.date(context, value, 0, getDefaultTimeZone(context));
+        }
+        final byte[] value = getTextBytes(resultSet, index);
         if (value == null) return context.nil;
 
-        final int len = value.length();
-        if (len < 10 && value.charAt(len - 1) == 'y') { // infinity / -infinity
-            IRubyObject infinity = parseInfinity(context.runtime, value);
+        return parseDate(context, value, 0, value.length);
+    }
+
+    private IRubyObject parseDate(final ThreadContext context, final byte[] value, final int offset, final int length) {
+        if (length < 10 && value[offset + length - 1] == 'y') { // infinity / -infinity
+            IRubyObject infinity = parseInfinity(context.runtime, value, offset, length);
 
             if (infinity != null) return infinity;
         }
 
-        return DateTimeUtils.parseDate(context, value, getDefaultTimeZone(context));
+        return DateTimeUtils.parseDate(context, value, offset, length, getDefaultTimeZone(context));
+    }
+
+    /**
+     * Returns the raw (text format) value bytes, without decoding a <code>String</code>.
+     * With binary transfer (server prepared statements) the driver might receive
+     * values in binary format, those get converted to text by the driver
+     * (converters decode binary temporal values using {@link PgBinaryUtils}).
+     * @param resultSet
+     * @param column
+     * @return (ASCII) text bytes or null if NULL
+     * @throws SQLException
+     */
+    private static byte[] getTextBytes(final ResultSet resultSet, final int column) throws SQLException {
+        final ResultSetMetaData metaData = resultSet.getMetaData();
+        if (metaData instanceof PGResultSetMetaData && ((PGResultSetMetaData) metaData).getFormat(column) == 0) {
+            return resultSet.getBytes(column); // driver's buffer (when no max field size) - not to be changed
+        }
+        final String value = resultSet.getString(column);
+        return value == null ? null : value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+
+    /**
+     * Resolves whether (string) arrays are parsed from raw bytes once per column.
+     * @see #arrayToRuby(ThreadContext, Ruby, ResultSet, int)
+     */
+    private final class ArrayConverter extends ColumnConverter {
+
+        private int parseRaw = -1; // not yet resolved
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            if ( parseRaw < 0 ) parseRaw = isParsedStringArray(runtime, resultSet, column) ? 1 : 0;
+            if ( parseRaw == 1 ) return parseStringArray(runtime, resultSet, column);
+            return PostgreSQLRubyJdbcConnection.super.arrayToRuby(context, runtime, resultSet, column);
+        }
+
     }
 
+    /**
+     * String (e.g. tag) arrays received in text format are parsed straight from the
+     * raw value bytes, instead of the driver parsing them into a (JDBC) array result set.
+     * Other arrays are handled as usual, those with an "other" base type end up
+     * as strings parsed on the Ruby side (using {@link PgArrayParser} as well).
+     */
+    @Override
+    protected IRubyObject arrayToRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+        if ( isParsedStringArray(runtime, resultSet, column) ) return parseStringArray(runtime, resultSet, column);
+        return super.arrayToRuby(context, runtime, resultSet, column);
+    }
+
+    private boolean isParsedStringArray(final Ruby runtime, final ResultSet resultSet, final int column) {
+        if ( ! parseStringArrays || ! ( resultSet instanceof PgResultSet ) ) return false;
+        if ( PgResultSetWrapper.isBinary(resultSet, column) ) return false;
+        switch ( PgResultSetWrapper.getOID(resultSet, column) ) {
+            case Oid.VARCHAR_ARRAY: case Oid.TEXT_ARRAY: case Oid.BPCHAR_ARRAY: case Oid.NAME_ARRAY: break;
+            default: return false;
+        }
+        final Encoding internal = runtime.getDefaultInternalEncoding();
+        return internal == null || internal == UTF8Encoding.INSTANCE;
+    }
+
+    private static IRubyObject parseStringArray(final Ruby runtime, final ResultSet resultSet, final int column) throws SQLException {
+        final byte[] value = PgResultSetWrapper.getRawValue(resultSet, column);
+        if ( value == null ) return runtime.getNil();
+        return PgArrayParser.parse(runtime, value, 0, value.length, UTF8Encoding.INSTANCE, (byte) ',');
+    }
 
     /**
      * Detects PG specific types and converts them to their Ruby equivalents
@@ -803,9 +1399,17 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
      */
     @Override
     protected IRubyObject timeToRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
-        final String value = resultSet.getString(column); // Using resultSet.getTimestamp(column) only gets .999 (3) precision
+        if (PgBinaryUtils.isBinary(resultSet, column)) {
+            final byte[] value = resultSet.getBytes(column);
+            return value == null ? context.nil : PgBinaryUtils.time(context, value, 0, getDefaultTimeZone(context));
+        }
+        final byte[] value = getTextBytes(resultSet, column); // Using resultSet.getTimestamp(column) only gets .999 (3) precision
+
+        return value == null ? context.nil : parseTime(context, value, 0, value.length);
+    }
 
-        return value == null ? context.nil : DateTimeUtils.parseTime(context, value, getDefaultTimeZone(context));
+    private IRubyObject parseTime(final ThreadContext context, final byte[] value, final int offset, final int length) {
+        return DateTimeUtils.parseTime(context, value, offset, length, getDefaultTimeZone(context));
     }
 
     /**
@@ -822,26 +1426,43 @@ public class PostgreSQLRubyJdbcConnection extends arjdbc.jdbc.RubyJdbcConnection
                                           int column) throws SQLException {
         // NOTE: using Timestamp we loose information such as BC :
         // Timestamp: '0001-12-31 22:59:59.0' String: '0001-12-31 22:59:59 BC'
-        final String value = resultSet.getString(column);
+        if (PgBinaryUtils.isBinary(resultSet, column)) {
+            final byte[] value = resultSet.getBytes(column);
+            if (value == null) return context.nil;
+            // NOTE: the converter resolves this per column, here an OID check (no type name lookup)
+            final boolean withZone = PgBinaryUtils.isTimestampWithZone(resultSet, column);
+            return PgBinaryUtils.timestamp(context, value, 0, withZone, getDefaultTimeZone(context));
+        }
+        final byte[] value = getTextBytes(resultSet, column);
 
         if (value == null) return context.nil;
 
-        final int len = value.length();
-        if (len < 10 && value.charAt(len - 1) == 'y') { // infinity / -infinity
-            IRubyObject infinity = parseInfinity(context.runtime, value);
+        return parseTimestamp(context, value, 0, value.length);
+    }
+
+    private IRubyObject parseTimestamp(final ThreadContext context, final byte[] value, final int offset, final int length) {
+        if (length < 10 && value[offset + length - 1] == 'y') { // infinity / -infinity
+            IRubyObject infinity = parseInfinity(context.runtime, value, offset, length);
 
             if (infinity != null) return infinity;
         }
 
         // handles '0001-01-01 23:59:59 BC'
-        return DateTimeUtils.parseDateTime(context, value, getDefaultTimeZone(context));
+        return DateTimeUtils.parseDateTime(context, value, offset, length, getDefaultTimeZone(context));
     }
 
-    private IRubyObject parseInfinity(final Ruby runtime, final String value) {
-        if ("infinity".equals(value)) return RubyFloat.newFloat(runtime,  RubyFloat.INFINITY);
-        if ("-infinity".equals(value)) return RubyFloat.newFloat(runtime, -RubyFloat.INFINITY);
+    private static final byte[] INFINITY = { 'i', 'n', 'f', 'i', 'n', 'i', 't', 'y' };
 
-        return null;
+    private IRubyObject parseInfinity(final Ruby runtime, final byte[] value, int offset, int length) {
+        boolean negative = false;
+        if (length == INFINITY.length + 1 && value[offset] == '-') {
+            negative = true; offset++; length--;
+        }
+        if (length != INFINITY.length) return null;
+        for (int i = 0; i < length; i++) {
+            if (value[offset + i] != INFINITY[i]) return null;
+        }
+        return RubyFloat.newFloat(runtime, negative ? -RubyFloat.INFINITY : RubyFloat.INFINITY);
     }
 
     // NOTE: do not use PG classes in the API so that loading is delayed !
@@ -112,7 +112,7 @@ public class SQLite3RubyJdbcConnection extends RubyJdbcConnection {
                         // Enebo: I do not think we need to worry about failure here?
                         String encodingString = statement.getResultSet().getString(1);
 
-                        encoding = cachedString(context, encodingString);
+                        encoding = getCachedString(context, encodingString);
 
                         return encoding;
                     }
@@ -214,7 +214,7 @@ public class SQLite3RubyJdbcConnection extends RubyJdbcConnection {
                         RubyArray currentColumns = null;
 
                         final String columnName = indexInfoSet.getString(INDEX_INFO_COLUMN_NAME);
-                        final RubyString rubyColumnName = cachedString(context, columnName);
+                        final RubyString rubyColumnName = getCachedString(context, columnName);
                         if ( primaryKeys.contains(rubyColumnName) ) continue;
 
                         // We are working on a new index
@@ -226,8 +226,8 @@ public class SQLite3RubyJdbcConnection extends RubyJdbcConnection {
                             final boolean nonUnique = indexInfoSet.getBoolean(INDEX_INFO_NON_UNIQUE);
 
                             IRubyObject[] args = new IRubyObject[] {
-                                cachedString(context, indexTableName), // table_name
-                                cachedString(context, indexName), // index_name
+                                getCachedString(context, indexTableName), // table_name
+                                getCachedString(context, indexName), // index_name
                                 nonUnique ? runtime.getFalse() : runtime.getTrue(), // unique
                                 currentColumns = RubyArray.newArray(runtime, 4) // [] column names
                             };
@@ -277,24 +277,57 @@ public class SQLite3RubyJdbcConnection extends RubyJdbcConnection {
     }
 
     @Override
-    protected IRubyObject jdbcToRuby(final ThreadContext context,
-        final Ruby runtime, final int column, int type, final ResultSet resultSet)
-        throws SQLException {
-        // This is rather gross, and only needed because the resultset metadata for SQLite tries to be overly
-        // clever, and returns a type for the column of the "current" row, so an integer value stored in a
-        // decimal column is returned as Types.INTEGER.  Therefore, if the first row of a resultset was an
-        // integer value, all rows of that result set would get truncated.
-        if ( resultSet instanceof ResultSetMetaData ) {
-            type = ((ResultSetMetaData) resultSet).getColumnType(column);
-        }
+    protected ColumnConverter newColumnConverter(final int type) {
+        return new RowTypeConverter(type);
+    }
+
+    private ColumnConverter resolveColumnConverter(final int type) {
         // since JDBC 3.8 there seems to be more cleverness built-in that
         // causes (<= 3.8.7) to get things wrong ... reports DATE SQL type
         // for "datetime" columns :
-        if ( type == Types.DATE ) {
+        if ( type == Types.DATE ) return new DateStringConverter();
+        return super.newColumnConverter(type);
+    }
+
+    /**
+     * This is rather gross, and only needed because the resultset metadata for SQLite tries to be overly
+     * clever, and returns a type for the column of the "current" row, so an integer value stored in a
+     * decimal column is returned as Types.INTEGER.  Therefore, if the first row of a resultset was an
+     * integer value, all rows of that result set would get truncated.
+     * <p>
+     * The resolved converter is kept around and only re-resolved when a row reports a different type.
+     */
+    private final class RowTypeConverter extends ColumnConverter {
+
+        private int type;
+        private ColumnConverter converter;
+
+        RowTypeConverter(final int type) {
+            this.type = type;
+            this.converter = resolveColumnConverter(type);
+        }
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
+            if ( resultSet instanceof ResultSetMetaData ) {
+                final int rowType = ((ResultSetMetaData) resultSet).getColumnType(column);
+                if ( rowType != type ) {
+                    converter = resolveColumnConverter(type = rowType);
+                }
+            }
+            return converter.toRuby(context, runtime, resultSet, column);
+        }
+
+    }
+
+    private final class DateStringConverter extends ColumnConverter {
+
+        @Override
+        public IRubyObject toRuby(ThreadContext context, Ruby runtime, ResultSet resultSet, int column) throws SQLException {
             // return timestampToRuby(context, runtime, resultSet, column);
             return stringToRuby(context, runtime, resultSet, column);
         }
-        return super.jdbcToRuby(context, runtime, column, type, resultSet);
+
     }
 
     @Override
@@ -322,7 +355,7 @@ public class SQLite3RubyJdbcConnection extends RubyJdbcConnection {
         while ( tablesSet.next() ) {
             String name = tablesSet.getString(TABLES_TABLE_NAME);
             name = name.toLowerCase(Locale.ENGLISH); // simply lower-case for SQLite3
-            tables.append( RubyString.newUnicodeString(context.runtime, name) );
+            tables.append( getCachedString(context, name) );
         }
         return tables;
     }
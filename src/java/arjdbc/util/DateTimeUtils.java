@@ -23,6 +23,7 @@
  */
 package arjdbc.util;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -50,6 +51,20 @@ import static arjdbc.util.StringHelper.decByte;
  */
 public abstract class DateTimeUtils {
 
+    /**
+     * Whether java.time (Java 8+) is available, {@link JavaTimeUtils} is only to be used if so.
+     */
+    public static final boolean JAVA_TIME;
+    static {
+        boolean javaTime;
+        try {
+            Class.forName("java.time.LocalDateTime");
+            javaTime = true;
+        }
+        catch (ClassNotFoundException e) { javaTime = false; }
+        JAVA_TIME = javaTime;
+    }
+
     @SuppressWarnings("deprecation")
     public static ByteList timeToString(final Time time) {
         final ByteList str = new ByteList(8); // hh:mm:ss
@@ -207,8 +222,9 @@ public abstract class DateTimeUtils {
         final int seconds = time.getSeconds();
         final int nanos = time.getNanos(); // max 999-999-999
 
-        DateTime dateTime = new DateTime(2000, 1, 1, hours, minutes, seconds, defaultZone);
-        return RubyTime.newTime(context.runtime, dateTime, nanos);
+        // DateTime has the millis and RubyTime the remaining nanos (or strftime('%L') is off)
+        DateTime dateTime = new DateTime(2000, 1, 1, hours, minutes, seconds, nanos / 1000000, defaultZone);
+        return RubyTime.newTime(context.runtime, dateTime, nanos % 1000000);
     }
 
     @SuppressWarnings("deprecation")
@@ -222,8 +238,9 @@ public abstract class DateTimeUtils {
         final int seconds = timestamp.getSeconds();
         final int nanos = timestamp.getNanos(); // max 999-999-999
 
-        DateTime dateTime = new DateTime(year, month, day, hours, minutes, seconds, 0, defaultZone);
-        return RubyTime.newTime(context.runtime, dateTime, nanos);
+        // DateTime has the millis and RubyTime the remaining nanos (or strftime('%L') is off)
+        DateTime dateTime = new DateTime(year, month, day, hours, minutes, seconds, nanos / 1000000, defaultZone);
+        return RubyTime.newTime(context.runtime, dateTime, nanos % 1000000);
     }
 
     @SuppressWarnings("deprecation")
@@ -286,35 +303,55 @@ public abstract class DateTimeUtils {
 
     public static IRubyObject parseDate(final ThreadContext context, final CharSequence str, final DateTimeZone defaultZone)
         throws IllegalArgumentException {
-        final int len = str.length();
+        final byte[] bytes = toBytes(str);
+        return parseDate(context, bytes, 0, bytes.length, defaultZone);
+    }
+
+    public static IRubyObject parseTime(final ThreadContext context, final CharSequence str, final DateTimeZone defaultZone)
+        throws IllegalArgumentException {
+        final byte[] bytes = toBytes(str);
+        return parseTime(context, bytes, 0, bytes.length, defaultZone);
+    }
+
+    public static RubyTime parseDateTime(final ThreadContext context, final CharSequence str, final DateTimeZone defaultZone)
+        throws IllegalArgumentException {
+        final byte[] bytes = toBytes(str);
+        return parseDateTime(context, bytes, 0, bytes.length, defaultZone);
+    }
+
+    // NOTE: the parse methods work on (ASCII) bytes - no (UTF-16) String needed when reading raw values
+
+    public static IRubyObject parseDate(final ThreadContext context,
+        final byte[] bytes, final int offset, final int length, final DateTimeZone defaultZone)
+        throws IllegalArgumentException {
+        final int len = offset + length;
 
         int year; int month; int day;
 
-        int start = nonSpaceIndex(str, 0, len); // Skip leading whitespace
-        int end = nonDigitIndex(str, start, len);
+        int start = nonSpaceIndex(bytes, offset, len); // Skip leading whitespace
+        int end = nonDigitIndex(bytes, start, len);
 
         if ( end >= len ) {
-            throw new IllegalArgumentException("unexpected date value: '" + str + "'");
+            throw new IllegalArgumentException("unexpected date value: '" + toString(bytes, offset, length) + "'");
         }
 
         // year
-        year = extractIntValue(str, start, end);
+        year = extractIntValue(bytes, start, end);
         start = end + 1; // Skip '-'
 
         // month
-        end = nonDigitIndex(str, start, len);
-        month = extractIntValue(str, start, end);
+        end = nonDigitIndex(bytes, start, len);
+        month = extractIntValue(bytes, start, end);
         start = end + 1; // Skip '-'
 
         // day of month
-        end = nonDigitIndex(str, start, len);
-        day = extractIntValue(str, start, end);
+        end = nonDigitIndex(bytes, start, len);
+        day = extractIntValue(bytes, start, end);
 
         start = end + 1; // Skip possible space
         boolean bcEra = false;
         if ( start + 1 < len ) {
-            final char e1 = str.charAt(start);
-            if ( e1 == 'B' && str.charAt(start + 1) == 'C' ) bcEra = true;
+            if ( bytes[start] == 'B' && bytes[start + 1] == 'C' ) bcEra = true;
         }
 
         if ( bcEra ) year = -1 * year; // no + 1 since we use GJChronology
@@ -324,54 +361,56 @@ public abstract class DateTimeUtils {
         return runtime.getClass("Date").newInstance(context, Java.getInstance(runtime, dateTime), Block.NULL_BLOCK);
     }
 
-    public static IRubyObject parseTime(final ThreadContext context, final CharSequence str, final DateTimeZone defaultZone)
+    public static IRubyObject parseTime(final ThreadContext context,
+        final byte[] bytes, final int offset, final int length, final DateTimeZone defaultZone)
         throws IllegalArgumentException {
-        final int len = str.length();
+        final int len = offset + length;
 
         int hour; int minute; int second;
         int millis = 0; long nanos = 0;
 
-        int start = nonSpaceIndex(str, 0, len); // Skip leading whitespace
-        int end = nonDigitIndex(str, start, len);
+        int start = nonSpaceIndex(bytes, offset, len); // Skip leading whitespace
+        int end = nonDigitIndex(bytes, start, len);
 
         if ( end >= len ) {
-            throw new IllegalArgumentException("unexpected date value: '" + str + "'");
+            throw new IllegalArgumentException("unexpected date value: '" + toString(bytes, offset, length) + "'");
         }
 
         // hours
-        hour = extractIntValue(str, start, end);
+        hour = extractIntValue(bytes, start, end);
         start = end + 1; // Skip ':'
 
-        end = nonDigitIndex(str, start, len);
+        end = nonDigitIndex(bytes, start, len);
         // minutes
-        minute = extractIntValue(str, start, end);
+        minute = extractIntValue(bytes, start, end);
         start = end + 1; // Skip ':'
 
-        end = nonDigitIndex(str, start, len);
+        end = nonDigitIndex(bytes, start, len);
         // seconds
-        second = extractIntValue(str, start, end);
+        second = extractIntValue(bytes, start, end);
         start = end;
 
         // Fractional seconds.
-        if ( start < len && str.charAt(start) == '.' ) {
-            end = nonDigitIndex(str, start + 1, len); // Skip '.'
+        if ( start < len && bytes[start] == '.' ) {
+            end = nonDigitIndex(bytes, start + 1, len); // Skip '.'
             int numlen = end - (start + 1);
             if (numlen <= 3) {
-                millis = extractIntValue(str, start + 1, end);
+                millis = extractIntValue(bytes, start + 1, end);
                 for ( ; numlen < 3; ++numlen ) millis *= 10;
             }
-            else {
-                nanos = extractIntValue(str, start + 1, end);
+            else { // DateTime has the millis, RubyTime the remaining nanos
+                millis = extractIntValue(bytes, start + 1, start + 4);
+                nanos = extractIntValue(bytes, start + 4, end);
                 for ( ; numlen < 9; ++numlen ) nanos *= 10;
             }
-            //start = end;
         }
 
         DateTime dateTime = new DateTime(2000, 1, 1, hour, minute, second, millis, defaultZone);
         return RubyTime.newTime(context.runtime, dateTime, nanos);
     }
 
-    public static RubyTime parseDateTime(final ThreadContext context, final CharSequence str, final DateTimeZone defaultZone)
+    public static RubyTime parseDateTime(final ThreadContext context,
+        final byte[] bytes, final int offset, final int length, final DateTimeZone defaultZone)
         throws IllegalArgumentException {
 
         boolean hasDate = false;
@@ -397,146 +436,129 @@ public abstract class DateTimeUtils {
         //   if date is present, an era specifier: AD or BC
         //   trailing whitespace
 
-        final int len = str.length();
+        final int len = offset + length;
 
-        int start = nonSpaceIndex(str, 0, len); // Skip leading whitespace
-        int end = nonDigitIndex(str, start, len);
+        int start = nonSpaceIndex(bytes, offset, len); // Skip leading whitespace
+        int end = nonDigitIndex(bytes, start, len);
 
         // Possibly read date.
-        if ( end < len && str.charAt(end) == '-' ) {
+        if ( end < len && bytes[end] == '-' ) {
             hasDate = true;
 
             // year
-            year = extractIntValue(str, start, end);
+            year = extractIntValue(bytes, start, end);
             start = end + 1; // Skip '-'
 
             // month
-            end = nonDigitIndex(str, start, len);
-            month = extractIntValue(str, start, end);
+            end = nonDigitIndex(bytes, start, len);
+            month = extractIntValue(bytes, start, end);
 
-            char sep = str.charAt(end);
-            if ( sep != '-' ) {
-                throw new IllegalArgumentException("expected date to be dash-separated, got '" + sep + "'");
+            if ( end >= len || bytes[end] != '-' ) {
+                throw new IllegalArgumentException("expected date to be dash-separated, got '" + toString(bytes, offset, length) + "'");
             }
 
             start = end + 1; // Skip '-'
 
             // day of month
-            end = nonDigitIndex(str, start, len);
-            day = extractIntValue(str, start, end);
+            end = nonDigitIndex(bytes, start, len);
+            day = extractIntValue(bytes, start, end);
 
-            start = nonSpaceIndex(str, end, len); // Skip trailing whitespace
+            start = nonSpaceIndex(bytes, end, len); // Skip trailing whitespace
         }
 
         // Possibly read time.
-        if ( start < len && Character.isDigit( str.charAt(start) ) ) {
+        if ( start < len && isDigit(bytes[start]) ) {
             hasTime = true;
 
             // hours
-            end = nonDigitIndex(str, start, len);
-            hour = extractIntValue(str, start, end);
-
-            //sep = str.charAt(end);
-            //if ( sep != ':' ) {
-            //    throw new IllegalArgumentException("expected time to be colon-separated, got '" + sep + "'");
-            //}
-
+            end = nonDigitIndex(bytes, start, len);
+            hour = extractIntValue(bytes, start, end);
             start = end + 1; // Skip ':'
 
             // minutes
-            end = nonDigitIndex(str, start, len);
-            minute = extractIntValue(str, start, end);
-
-            //sep = str.charAt(end);
-            //if ( sep != ':' ) {
-            //    throw new IllegalArgumentException("expected time to be colon-separated, got '" + sep + "'");
-            //}
-
+            end = nonDigitIndex(bytes, start, len);
+            minute = extractIntValue(bytes, start, end);
             start = end + 1; // Skip ':'
 
             // seconds
-            end = nonDigitIndex(str, start, len);
-            second = extractIntValue(str, start, end);
+            end = nonDigitIndex(bytes, start, len);
+            second = extractIntValue(bytes, start, end);
             start = end;
 
             // Fractional seconds.
-            if ( start < len && str.charAt(start) == '.' ) {
-                end = nonDigitIndex(str, start + 1, len); // Skip '.'
+            if ( start < len && bytes[start] == '.' ) {
+                end = nonDigitIndex(bytes, start + 1, len); // Skip '.'
                 int numlen = end - (start + 1);
                 if (numlen <= 3) {
-                    millis = extractIntValue(str, start + 1, end);
+                    millis = extractIntValue(bytes, start + 1, end);
                     for ( ; numlen < 3; ++numlen ) millis *= 10;
                 }
                 else {
                     // Make sure we always define millis to work around bug in
                     // strftime('%6N') in older version of JRuby (discovered in 9.1.16.0)
-                    millis = extractIntValue(str, start + 1, start + 4);
-                    nanos = extractIntValue(str, start + 4, end);
+                    millis = extractIntValue(bytes, start + 1, start + 4);
+                    nanos = extractIntValue(bytes, start + 4, end);
                     for ( ; numlen < 9; ++numlen ) nanos *= 10;
                 }
 
                 start = end;
             }
 
-            start = nonSpaceIndex(str, start, len); // Skip trailing whitespace
+            start = nonSpaceIndex(bytes, start, len); // Skip trailing whitespace
         }
 
         // Possibly read timezone.
-        char sep = start < len ? str.charAt(start) : '\0';
+        final byte sep = start < len ? bytes[start] : 0;
         if ( sep == '+' || sep == '-' ) {
             int zoneSign = (sep == '-') ? -1 : 1;
             int hoursOffset, minutesOffset, secondsOffset;
 
-            end = nonDigitIndex(str, start + 1, len);    // Skip +/-
-            hoursOffset = extractIntValue(str, start + 1, end);
+            end = nonDigitIndex(bytes, start + 1, len);    // Skip +/-
+            hoursOffset = extractIntValue(bytes, start + 1, end);
             start = end;
 
-            if ( start < len && str.charAt(start) == ':' ) {
-                end = nonDigitIndex(str, start + 1, len);  // Skip ':'
-                minutesOffset = extractIntValue(str, start + 1, end);
+            if ( start < len && bytes[start] == ':' ) {
+                end = nonDigitIndex(bytes, start + 1, len);  // Skip ':'
+                minutesOffset = extractIntValue(bytes, start + 1, end);
                 start = end;
             } else {
                 minutesOffset = 0;
             }
 
             secondsOffset = 0;
-            if ( start < len && str.charAt(start) == ':' ) {
-                end = nonDigitIndex(str, start + 1, len);  // Skip ':'
-                secondsOffset = extractIntValue(str, start + 1, end);
+            if ( start < len && bytes[start] == ':' ) {
+                end = nonDigitIndex(bytes, start + 1, len);  // Skip ':'
+                secondsOffset = extractIntValue(bytes, start + 1, end);
                 start = end;
             }
 
-            // Setting offset does not seem to work correctly in all
-            // cases.. So get a fresh calendar for a synthetic timezone
-            // instead
-
-            int offset = zoneSign * hoursOffset * 60;
-            if (offset < 0) {
-                offset = offset - Math.abs(minutesOffset);
+            int offsetMillis = zoneSign * hoursOffset * 60;
+            if (offsetMillis < 0) {
+                offsetMillis = offsetMillis - Math.abs(minutesOffset);
             } else {
-                offset = offset + minutesOffset;
+                offsetMillis = offsetMillis + minutesOffset;
             }
-            offset = (offset * 60 + secondsOffset) * 1000;
-            zone = DateTimeZone.forOffsetMillis(offset);
+            offsetMillis = (offsetMillis * 60 + secondsOffset) * 1000;
+            zone = DateTimeZone.forOffsetMillis(offsetMillis);
 
-            start = nonSpaceIndex(str, start, len); // Skip trailing whitespace
+            start = nonSpaceIndex(bytes, start, len); // Skip trailing whitespace
         }
 
-        if ( hasDate && start < len ) {
-            final char e1 = str.charAt(start);
-            if ( e1 == 'A' && str.charAt(start + 1) == 'D' ) {
+        if ( hasDate && start + 1 < len ) {
+            final byte e1 = bytes[start];
+            if ( e1 == 'A' && bytes[start + 1] == 'D' ) {
                 bcEra = false; start += 2;
             }
-            else if ( e1 == 'B' && str.charAt(start + 1) == 'C' ) {
+            else if ( e1 == 'B' && bytes[start + 1] == 'C' ) {
                 bcEra = true; start += 2;
             }
         }
 
         if ( start < len ) {
-            throw new IllegalArgumentException("trailing junk: '" + str.subSequence(start, len - start) + "' on '" + str + "'");
+            throw new IllegalArgumentException("trailing junk: '" + toString(bytes, start, len - start) + "' on '" + toString(bytes, offset, length) + "'");
         }
         if ( ! hasTime && ! hasDate ) {
-            throw new IllegalArgumentException("'"+ str +"' has neither date nor time");
+            throw new IllegalArgumentException("'"+ toString(bytes, offset, length) +"' has neither date nor time");
         }
 
         if ( bcEra ) year = -1 * year + 1; // since JODA is treating year 0 as non-existent
@@ -560,27 +582,45 @@ public abstract class DateTimeUtils {
         return runtime.getClass("Date").newInstance(context, Java.getInstance(runtime, dateTime), Block.NULL_BLOCK);
     }
 
-    @SuppressWarnings("deprecation")
-    private static int nonSpaceIndex(final CharSequence str, int beg, int len) {
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static int nonSpaceIndex(final byte[] bytes, int beg, int len) {
         for ( int i = beg; i < len; i++ ) {
-            if ( ! Character.isSpace( str.charAt(i) ) ) return i;
+            final byte b = bytes[i];
+            if ( b != ' ' && b != '\t' && b != '\n' && b != '\r' && b != '\f' ) return i;
         }
         return len;
     }
 
-    private static int nonDigitIndex(final CharSequence str, int beg, int len) {
+    private static int nonDigitIndex(final byte[] bytes, int beg, int len) {
         for ( int i = beg; i < len; i++ ) {
-            if ( ! Character.isDigit( str.charAt(i) ) ) return i;
+            if ( ! isDigit( bytes[i] ) ) return i;
         }
         return len;
     }
 
-    private static int extractIntValue(final CharSequence str, int beg, int end) {
+    private static int extractIntValue(final byte[] bytes, int beg, int end) {
         int n = 0;
         for ( int i = beg; i < end; i++ ) {
-            n = 10 * n + ( str.charAt(i) - '0' );
+            n = 10 * n + ( bytes[i] - '0' );
         }
         return n;
     }
 
+    private static byte[] toBytes(final CharSequence str) {
+        final int len = str.length();
+        final byte[] bytes = new byte[len];
+        for ( int i = 0; i < len; i++ ) {
+            final char c = str.charAt(i);
+            bytes[i] = c < 128 ? (byte) c : (byte) '?'; // non-ASCII chars are never valid
+        }
+        return bytes;
+    }
+
+    private static String toString(final byte[] bytes, final int offset, final int length) {
+        return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+    }
+
 }
@@ -0,0 +1,88 @@
+package arjdbc.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.GJChronology;
+import org.joda.time.chrono.ISOChronology;
+import org.jruby.Ruby;
+import org.jruby.RubyTime;
+import org.jruby.javasupport.Java;
+import org.jruby.runtime.Block;
+import org.jruby.runtime.ThreadContext;
+import org.jruby.runtime.builtin.IRubyObject;
+
+/**
+ * Temporal decoding using JDBC 4.2's <code>getObject(column, LocalDateTime.class)</code>.
+ *
+ * Values are turned into (local) epoch millis and converted to UTC using the
+ * (cached) zone rules, thus there's no <code>java.sql.Timestamp</code> (deprecated
+ * getter with <code>java.util.Calendar</code>) nor field based Joda date-time
+ * computation involved.
+ *
+ * NOTE: only to be used when {@link DateTimeUtils#JAVA_TIME} (Java 8+).
+ *
+ * @see DateTimeUtils
+ */
+public abstract class JavaTimeUtils {
+
+    private JavaTimeUtils() { /* static helpers only */ }
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final long DUMMY_DAY = 10957; // 2000-01-01 (epoch day)
+
+    /**
+     * @return a Ruby time or null if the value is NULL
+     * @throws SQLException (also) if the driver can not convert into a <code>LocalDateTime</code>
+     */
+    public static RubyTime getTimestamp(final ThreadContext context,
+        final ResultSet resultSet, final int column, final DateTimeZone zone) throws SQLException {
+        final LocalDateTime value = resultSet.getObject(column, LocalDateTime.class);
+        if ( value == null ) return null;
+        final long localMillis = value.toLocalDate().toEpochDay() * MILLIS_PER_DAY + value.toLocalTime().toSecondOfDay() * 1000L;
+        return newTime(context.runtime, localMillis, value.getNano(), zone);
+    }
+
+    /**
+     * @return a (dummy 2000-01-01) Ruby time or null if the value is NULL
+     * @throws SQLException (also) if the driver can not convert into a <code>LocalTime</code>
+     */
+    public static RubyTime getTime(final ThreadContext context,
+        final ResultSet resultSet, final int column, final DateTimeZone zone) throws SQLException {
+        final LocalTime value = resultSet.getObject(column, LocalTime.class);
+        if ( value == null ) return null;
+        final long localMillis = DUMMY_DAY * MILLIS_PER_DAY + value.toSecondOfDay() * 1000L;
+        return newTime(context.runtime, localMillis, value.getNano(), zone);
+    }
+
+    /**
+     * @return a Ruby date or null if the value is NULL
+     * @throws SQLException (also) if the driver can not convert into a <code>LocalDate</code>
+     */
+    public static IRubyObject getDate(final ThreadContext context,
+        final ResultSet resultSet, final int column, final DateTimeZone zone) throws SQLException {
+        final LocalDate value = resultSet.getObject(column, LocalDate.class);
+        if ( value == null ) return null;
+        // NOTE: same as DateTimeUtils.parseDate - Date's JODA (ITALY) chronology
+        final DateTime dateTime = new DateTime(value.getYear(), value.getMonthValue(), value.getDayOfMonth(),
+            0, 0, 0, GJChronology.getInstance(zone));
+        final Ruby runtime = context.runtime;
+        return runtime.getClass("Date").newInstance(context, Java.getInstance(runtime, dateTime), Block.NULL_BLOCK);
+    }
+
+    /**
+     * @param localMillis local (whole second) millis
+     * @param nanos nano of second
+     */
+    private static RubyTime newTime(final Ruby runtime, long localMillis, final int nanos, final DateTimeZone zone) {
+        localMillis += nanos / 1000000; // DateTime has the millis, RubyTime the remaining nanos
+        final long millis = zone == DateTimeZone.UTC ? localMillis : zone.convertLocalToUTC(localMillis, false);
+        return RubyTime.newTime(runtime, new DateTime(millis, ISOChronology.getInstance(zone)), nanos % 1000000);
+    }
+
+}
@@ -0,0 +1,133 @@
+package arjdbc.util;
+
+/**
+ * SQL fingerprinting - statements differing only in literal values (or the
+ * length of IN lists) share a fingerprint.
+ *
+ * Quoted string and numeric literals are replaced with a <code>?</code>,
+ * white-space is collapsed and lists of placeholders get folded e.g.
+ * <code>SELECT * FROM users WHERE id IN (1, 2, 3) AND name = 'x'</code> becomes
+ * <code>SELECT * FROM users WHERE id IN (?) AND name = ?</code>.
+ *
+ * Backslash escapes are handled in PG's <code>E'...'</code> strings and (with
+ * MySQL quoting) in all string literals, where <code>"..."</code> is a string as well.
+ */
+public abstract class SqlFingerprint {
+
+    public static final int MAX_LENGTH = 2048;
+
+    private SqlFingerprint() { /* static helpers only */ }
+
+    /**
+     * @param sql the SQL
+     * @return the fingerprint of given SQL (null if null)
+     */
+    public static String fingerprint(final CharSequence sql) {
+        return fingerprint(sql, false);
+    }
+
+    /**
+     * @param sql the SQL
+     * @param mysql whether MySQL quoting applies (backslash escapes and "double quoted" strings)
+     * @return the fingerprint of given SQL (null if null)
+     */
+    public static String fingerprint(final CharSequence sql, final boolean mysql) {
+        if ( sql == null ) return null;
+        final int len = sql.length();
+        final StringBuilder out = new StringBuilder(Math.min(len, MAX_LENGTH));
+
+        for ( int i = 0; i < len && out.length() < MAX_LENGTH; i++ ) {
+            final char c = sql.charAt(i);
+            if ( c == '\'' || ( c == '"' && mysql ) ) { // 'string' literal ('' escapes a quote)
+                boolean escapes = mysql;
+                if ( isEscapeStringPrefix(out) ) { // E'string'
+                    out.setLength(out.length() - 1); escapes = true;
+                }
+                i = skipLiteral(sql, i, c, escapes);
+                appendPlaceholder(out);
+            }
+            else if ( c == '"' || c == '`' ) { // quoted identifier - kept as is
+                out.append(c);
+                while ( ++i < len ) {
+                    final char q = sql.charAt(i);
+                    out.append(q);
+                    if ( q == c ) break;
+                }
+            }
+            else if ( isDigit(c) && ! isIdentifierPart(last(out)) ) { // number (also 1.5 or 1e10)
+                while ( i + 1 < len && isNumberPart(sql.charAt(i + 1)) ) i++;
+                appendPlaceholder(out);
+            }
+            else if ( c == '?' ) { // (JDBC) parameter
+                appendPlaceholder(out);
+            }
+            else if ( Character.isWhitespace(c) ) {
+                if ( out.length() > 0 && last(out) != ' ' ) out.append(' ');
+            }
+            else if ( c == ',' ) {
+                trimSpace(out); out.append(c);
+            }
+            else {
+                out.append(c);
+            }
+        }
+        trimSpace(out);
+        return out.toString();
+    }
+
+    // returns the index of the closing quote (or the end)
+    private static int skipLiteral(final CharSequence sql, int i, final char quote, final boolean escapes) {
+        final int len = sql.length();
+        i++;
+        while ( i < len ) {
+            final char c = sql.charAt(i);
+            if ( c == '\\' && escapes ) i++; // skip the escaped char
+            else if ( c == quote ) {
+                if ( i + 1 < len && sql.charAt(i + 1) == quote ) i++;
+                else break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isEscapeStringPrefix(final StringBuilder out) {
+        final int end = out.length();
+        if ( end == 0 ) return false;
+        final char e = out.charAt(end - 1);
+        return ( e == 'E' || e == 'e' ) && ( end == 1 || ! isIdentifierPart(out.charAt(end - 2)) );
+    }
+
+    // folds placeholder lists: "?, ?" -> "?"
+    private static void appendPlaceholder(final StringBuilder out) {
+        int end = out.length();
+        if ( end > 0 && out.charAt(end - 1) == ' ' ) end--;
+        if ( end > 1 && out.charAt(end - 1) == ',' && out.charAt(end - 2) == '?' ) {
+            out.setLength(end - 1); return;
+        }
+        out.append('?');
+    }
+
+    private static void trimSpace(final StringBuilder out) {
+        final int end = out.length();
+        if ( end > 0 && out.charAt(end - 1) == ' ' ) out.setLength(end - 1);
+    }
+
+    private static char last(final StringBuilder out) {
+        return out.length() == 0 ? ' ' : out.charAt(out.length() - 1);
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNumberPart(final char c) {
+        return isDigit(c) || c == '.' || c == 'e' || c == 'E';
+    }
+
+    private static boolean isIdentifierPart(final char c) {
+        // NOTE: '$' - so that $1 (positional parameters) are kept
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+    }
+
+}
@@ -23,41 +23,133 @@
  */
 package arjdbc.util;
 
-import java.lang.ref.SoftReference;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
 
 import org.jruby.Ruby;
+import org.jruby.RubyHash;
 import org.jruby.RubyString;
 import org.jruby.runtime.ThreadContext;
-import org.jruby.util.ByteList;
+import org.jruby.util.SafePropertyAccessor;
 
 /**
- * Cache of _unicode_ strings.
+ * Cache of (frozen) _unicode_ strings, meant for column, table and index names.
+ *
+ * The cache is bounded, on a (hash) slot collision the previous string gets
+ * evicted. Each runtime should use its own cache as the same (frozen) Ruby
+ * string instance is returned on cache hits.
  *
  * @author kares
  */
 public final class StringCache {
 
-    final ConcurrentHashMap<String, SoftReference<ByteList>> cache = new ConcurrentHashMap<>(64);
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * @param runtime
+     * @return the configured (arjdbc.string_cache.size) or the default capacity
+     */
+    public static int getCapacity(final Ruby runtime) {
+        final String size = SafePropertyAccessor.getProperty("arjdbc.string_cache.size");
+        if ( size == null ) return DEFAULT_CAPACITY;
+        try {
+            final int capacity = Integer.parseInt(size.trim());
+            if ( capacity > 0 ) return capacity;
+        }
+        catch (NumberFormatException e) { /* warned below */ }
+        runtime.getWarnings().warn("invalid arjdbc.string_cache.size: '" + size + "' (using " + DEFAULT_CAPACITY + ")");
+        return DEFAULT_CAPACITY;
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final RubyString value;
+
+        Entry(String key, RubyString value) {
+            this.key = key; this.value = value;
+        }
+
+    }
+
+    private final Entry[] entries; // racy - but entries are immutable
+    private final int mask;
+
+    // NOTE: statistics are not synchronized, thus only approximate
+    private long hits, misses, evictions;
+    private int size;
+
+    public StringCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StringCache(final int capacity) {
+        int size = 16; // power of two
+        while ( size < capacity ) size <<= 1;
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
 
     public RubyString get(final ThreadContext context, final String key) {
-        final ByteList bytes;
-        final SoftReference<ByteList> ref = cache.get(key);
-        if ( ref == null || (bytes = ref.get()) == null ) return store(context, key);
-        return (RubyString) RubyString.newUnicodeString(context.runtime, bytes).freeze(context);
+        final int index = index(key);
+        final Entry entry = entries[index];
+        if ( entry != null && key.equals(entry.key) ) {
+            hits++; return entry.value;
+        }
+        return store(context, key, index, entry);
+    }
+
+    private RubyString store(final ThreadContext context, final String key, final int index, final Entry previous) {
+        misses++;
+        final RubyString str = RubyString.newUnicodeString(context.runtime, key);
+        str.setFrozen(true);
+        entries[index] = new Entry(key, str);
+        if ( previous == null ) size++;
+        else evictions++;
+        return str;
+    }
+
+    private int index(final String key) {
+        final int h = key.hashCode();
+        return ( h ^ (h >>> 16) ) & mask;
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getHits() { return hits; }
+
+    public long getMisses() { return misses; }
+
+    public long getEvictions() { return evictions; }
+
+    /**
+     * @return the hit rate (between 0.0 and 1.0)
+     */
+    public double getHitRate() {
+        final long hits = this.hits, total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
     }
 
-    private RubyString store(final ThreadContext context, final String key) {
+    public RubyHash toStatsHash(final ThreadContext context) {
         final Ruby runtime = context.runtime;
-        final RubyString str = RubyString.newUnicodeString(runtime, key);
-        cache.putIfAbsent(key, new SoftReference<>(str.getByteList()));
-        // not clearing up orphans - but since its to be used for column/table names ...
-        // should be fine - DB drivers tend do also cache some meta-data information
-        return (RubyString) str.freeze(context);
+        final RubyHash stats = RubyHash.newHash(runtime);
+        stats.op_aset(context, runtime.newSymbol("hits"), runtime.newFixnum(hits));
+        stats.op_aset(context, runtime.newSymbol("misses"), runtime.newFixnum(misses));
+        stats.op_aset(context, runtime.newSymbol("evictions"), runtime.newFixnum(evictions));
+        stats.op_aset(context, runtime.newSymbol("hit_rate"), runtime.newFloat(getHitRate()));
+        stats.op_aset(context, runtime.newSymbol("size"), runtime.newFixnum(size));
+        stats.op_aset(context, runtime.newSymbol("capacity"), runtime.newFixnum(entries.length));
+        return stats;
     }
 
     public void clear() {
-        cache.clear();
+        Arrays.fill(entries, null);
+        size = 0;
     }
 
 }
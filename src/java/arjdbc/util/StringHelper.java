@@ -65,6 +65,14 @@ public abstract class StringHelper {
         return RubyString.newString(runtime, byteList, enc);
     }
 
+    public static RubyString newDefaultInternalString(final Ruby runtime,
+        final byte[] bytes, final int offset, final int length) {
+        final ByteList byteList = new ByteList(bytes, offset, length, true);
+        Encoding enc = runtime.getDefaultInternalEncoding();
+        if (enc == null) enc = runtime.getEncodingService().getJavaDefault();
+        return RubyString.newString(runtime, byteList, enc);
+    }
+
     public static RubyString newDefaultInternalString(final Ruby runtime, final CharSequence str) {
         Encoding enc = runtime.getDefaultInternalEncoding();
         if (enc == null) enc = runtime.getEncodingService().getJavaDefault();
@@ -0,0 +1,6 @@
+require 'db/derby'
+require 'execute_batch'
+
+class DerbyExecuteBatchTest < Test::Unit::TestCase
+  include ExecuteBatchTestMethods
+end
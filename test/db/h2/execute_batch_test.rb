@@ -0,0 +1,6 @@
+require 'db/h2'
+require 'execute_batch'
+
+class H2ExecuteBatchTest < Test::Unit::TestCase
+  include ExecuteBatchTestMethods
+end
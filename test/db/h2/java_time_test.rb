@@ -0,0 +1,66 @@
+require 'db/h2'
+require 'jruby'
+
+class H2JavaTimeTest < Test::Unit::TestCase
+
+  def setup
+    connection.execute 'CREATE TABLE temporals (id INT, a_timestamp TIMESTAMP, a_date DATE, a_time TIME)'
+    connection.execute "INSERT INTO temporals VALUES (1, '2018-03-11 02:30:15.123456', '1999-12-31', '23:59:58')"
+    connection.execute "INSERT INTO temporals VALUES (2, NULL, NULL, NULL)"
+  end
+
+  def teardown
+    connection.execute 'DROP TABLE temporals'
+  end
+
+  def test_decodes_same_values_as_without_java_time
+    sql = 'SELECT a_timestamp, a_date, a_time FROM temporals ORDER BY id'
+    expected = with_connection_config(java_time: false) { |connection| connection.select_rows(sql) }
+    actual = with_connection_config(java_time: true) { |connection| connection.select_rows(sql) }
+
+    assert_equal expected, actual
+    timestamp, date, time = actual.first
+    assert_kind_of Time, timestamp
+    assert_equal 123456, timestamp.usec
+    assert_equal Date.new(1999, 12, 31), date
+    assert_equal [ 23, 59, 58 ], [ time.hour, time.min, time.sec ]
+    assert_equal [ nil, nil, nil ], actual.last
+  end
+
+  # NOTE: H2 1.4.178 does not implement getObject(int, Class), the above only compares the
+  # java.sql fallback with itself - thus JavaTimeUtils is exercised using a stub result set
+  class LocalValueResultSet
+    include java.sql.ResultSet
+
+    def initialize(value); @value = value end
+
+    def getObject(column, type = nil); @value end
+
+    def wasNull; @value.nil? end
+  end
+
+  def test_java_time_utils_same_as_java_sql
+    omit 'java.time not available' unless Java::arjdbc.util.DateTimeUtils::JAVA_TIME
+    context = JRuby.runtime.getCurrentContext
+    zone = org.joda.time.DateTimeZone::UTC
+    java_time = Java::arjdbc.util.JavaTimeUtils
+    date_time = Java::arjdbc.util.DateTimeUtils
+
+    local = java.time.LocalDateTime.of(2018, 3, 11, 2, 30, 15, 123456789)
+    timestamp = java_time.getTimestamp(context, LocalValueResultSet.new(local), 1, zone)
+    expected = date_time.newTime(context, java.sql.Timestamp.valueOf('2018-03-11 02:30:15.123456789'), zone)
+    assert_equal expected, timestamp
+    assert_equal [ '123', '123456789' ], [ timestamp.strftime('%L'), timestamp.strftime('%N') ]
+    assert_equal Time.utc(2018, 3, 11, 2, 30, Rational(15123456789, 1000000000)), timestamp
+
+    time = java_time.getTime(context, LocalValueResultSet.new(java.time.LocalTime.of(23, 59, 58, 500000000)), 1, zone)
+    assert_equal date_time.newDummyTime(context, java.sql.Timestamp.valueOf('2000-01-01 23:59:58.5'), zone), time
+    assert_equal [ 2000, 23, 59, 58, 500000 ], [ time.year, time.hour, time.min, time.sec, time.usec ]
+
+    date = java_time.getDate(context, LocalValueResultSet.new(java.time.LocalDate.of(1999, 12, 31)), 1, zone)
+    assert_equal Date.new(1999, 12, 31), date
+
+    assert_nil java_time.getTimestamp(context, LocalValueResultSet.new(nil), 1, zone)
+  end
+
+end
@@ -0,0 +1,50 @@
+require 'db/h2'
+
+class H2StatementStatsTest < Test::Unit::TestCase
+
+  def test_statement_stats
+    with_connection_config(statement_stats: true) do |connection|
+      connection.execute 'CREATE TABLE stated (id INT PRIMARY KEY, name VARCHAR(100))'
+      begin
+        ArJdbc.reset_statement_stats
+        connection.execute "INSERT INTO stated VALUES (1, 'foo'), (2, 'bar')"
+
+        connection.exec_query "SELECT * FROM stated WHERE id IN (1, 2) AND name <> 'x'"
+        connection.exec_query "SELECT * FROM stated WHERE id IN (3) AND name <> 'yy'"
+
+        stats = ArJdbc.statement_stats
+        entry = stats['SELECT * FROM stated WHERE id IN (?) AND name <> ?']
+        assert entry, "no stats for fingerprint in: #{stats.keys.inspect}"
+        assert_equal 2, entry[:calls]
+        assert_equal 0, entry[:errors]
+        assert_equal 2, entry[:rows]
+        assert_equal 2, entry[:max_rows]
+
+        insert = stats.find { |sql, _| sql.start_with?('INSERT INTO stated') }
+        assert insert, "no stats for INSERT in: #{stats.keys.inspect}"
+        assert_equal 2, insert.last[:rows]
+      ensure
+        connection.execute 'DROP TABLE stated'
+      end
+    end
+  end
+
+  def test_statement_stats_with_lazy_results
+    with_connection_config(statement_stats: true, lazy_results: true) do |connection|
+      ArJdbc.reset_statement_stats
+      connection.exec_query 'SELECT X FROM SYSTEM_RANGE(1, 3)'
+      entry = ArJdbc.statement_stats.values.first
+      assert entry
+      assert_equal 3, entry[:rows]
+    end
+  end
+
+  def test_statement_errors
+    with_connection_config(statement_stats: true) do |connection|
+      ArJdbc.reset_statement_stats
+      assert_raise(ActiveRecord::StatementInvalid) { connection.execute 'SELECT * FROM missing_table' }
+      assert_equal 1, ArJdbc.statement_stats['SELECT * FROM missing_table'][:errors]
+    end
+  end
+
+end
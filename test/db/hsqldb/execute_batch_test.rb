@@ -0,0 +1,6 @@
+require 'db/hsqldb'
+require 'execute_batch'
+
+class HSQLDBExecuteBatchTest < Test::Unit::TestCase
+  include ExecuteBatchTestMethods
+end
@@ -0,0 +1,6 @@
+require 'db/mysql'
+require 'execute_batch'
+
+class MySQLExecuteBatchTest < Test::Unit::TestCase
+  include ExecuteBatchTestMethods
+end
@@ -0,0 +1,36 @@
+# encoding: utf-8
+require 'db/mysql'
+
+class MySQLFastStringsTest < Test::Unit::TestCase
+
+  def setup
+    connection.execute 'CREATE TEMPORARY TABLE texts (id INT, name VARCHAR(100) CHARACTER SET utf8mb4, ' <<
+      'body TEXT CHARACTER SET utf8mb4, latin VARCHAR(100) CHARACTER SET latin1)'
+    connection.execute "INSERT INTO texts VALUES (1, 'ľúbezný kôň', '#{'€uro žlté ' * 100}', 'café')"
+    connection.execute "INSERT INTO texts VALUES (2, NULL, NULL, NULL)"
+  end
+
+  def teardown
+    connection.execute 'DROP TEMPORARY TABLE IF EXISTS texts'
+  end
+
+  def test_strings
+    row = connection.select_rows('SELECT name, body, latin FROM texts WHERE id = 1').first
+    assert_equal 'ľúbezný kôň', row[0]
+    assert_equal Encoding::UTF_8, row[0].encoding
+    assert_equal '€uro žlté ' * 100, row[1]
+    assert_equal 'café', row[2] # latin1 column decoded as usual
+    assert_equal Encoding::UTF_8, row[2].encoding
+  end
+
+  def test_nil_strings
+    assert_equal [ nil, nil, nil ], connection.select_rows('SELECT name, body, latin FROM texts WHERE id = 2').first
+  end
+
+  def test_fast_strings_disabled
+    with_connection_config(fast_strings: false) do |connection|
+      assert_equal 'ľúbezný kôň', connection.select_value("SELECT 'ľúbezný kôň'")
+    end
+  end
+
+end
@@ -0,0 +1,27 @@
+require 'db/mysql'
+
+class MySQLStatementStatsTest < Test::Unit::TestCase
+
+  def test_backslash_escaped_literals
+    with_connection_config(statement_stats: true) do |connection|
+      ArJdbc.reset_statement_stats
+      connection.select_value "SELECT 1 FROM DUAL WHERE #{connection.quote("O'Brien")} <> 'x' AND 5 > 1"
+      connection.select_value "SELECT 1 FROM DUAL WHERE #{connection.quote("it's \\")} <> 'y' AND 6 > 1"
+
+      stats = ArJdbc.statement_stats
+      assert_equal [ 'SELECT ? FROM DUAL WHERE ? <> ? AND ? > ?' ], stats.keys
+      assert_equal 2, stats.values.first[:calls]
+    end
+  end
+
+  def test_double_quoted_strings
+    with_connection_config(statement_stats: true) do |connection|
+      ArJdbc.reset_statement_stats
+      connection.select_value 'SELECT "a \\" b" AS `v` FROM DUAL'
+      connection.select_value 'SELECT "c" AS `v` FROM DUAL'
+
+      assert_equal [ 'SELECT ? AS `v` FROM DUAL' ], ArJdbc.statement_stats.keys
+    end
+  end
+
+end
@@ -0,0 +1,40 @@
+require 'db/mysql'
+
+class MySQLStreamQueryTest < Test::Unit::TestCase
+
+  def setup
+    connection.execute 'CREATE TEMPORARY TABLE streamed (id INT PRIMARY KEY AUTO_INCREMENT, num INT)'
+    connection.execute "INSERT INTO streamed (num) VALUES #{(1..50).map { |n| "(#{n})" }.join(', ')}"
+  end
+
+  def teardown
+    connection.execute 'DROP TEMPORARY TABLE IF EXISTS streamed'
+  end
+
+  def test_stream_query_row_by_row
+    nums = []
+    count = connection.stream_query('SELECT num FROM streamed ORDER BY num') { |row| nums << row['num'] }
+    assert_equal 50, count
+    assert_equal (1..50).to_a, nums
+  end
+
+  def test_no_other_statements_while_streaming_row_by_row
+    assert_raise(ActiveRecord::StatementInvalid) do
+      connection.stream_query('SELECT num FROM streamed') { |row| connection.select_value('SELECT 1') }
+    end
+  end
+
+  def test_stream_query_with_cursor_fetch_property
+    with_connection_config(properties: { useCursorFetch: true }) do |connection|
+      connection.execute 'CREATE TEMPORARY TABLE cursored (num INT)'
+      connection.execute 'INSERT INTO cursored VALUES (1), (2), (3)'
+      nums = []
+      connection.stream_query('SELECT num FROM cursored ORDER BY num', fetch_size: 2) do |row|
+        nums << row['num']
+        connection.select_value('SELECT 1') # allowed with a server-side cursor
+      end
+      assert_equal [ 1, 2, 3 ], nums
+    end
+  end
+
+end
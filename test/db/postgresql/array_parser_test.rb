@@ -0,0 +1,42 @@
+# encoding: utf-8
+require 'db/postgres'
+require 'arjdbc/postgresql/base/array_parser'
+
+class PostgreSQLArrayParserTest < Test::Unit::TestCase
+
+  def test_parse_pg_array
+    assert_equal [], parse('{}')
+    assert_equal [ '1', '2', 'abc' ], parse('{1,2,abc}')
+    assert_equal [ 'a b', 'c"d', 'e\\f', '', 'NULL', nil ], parse('{"a b","c\"d","e\\\\f","","NULL",NULL}')
+    assert_equal [ [ '1', '2' ], [ nil, '4' ] ], parse('{{1,2},{NULL,4}}')
+    assert_equal [ '0', '1' ], parse('[0:1]={0,1}')
+    assert_equal [ 'žluťoučký', 'kůň' ], parse('{žluťoučký,"kůň"}')
+    assert_equal Encoding::UTF_8, parse('{a}').first.encoding
+  end
+
+  def test_parse_pg_array_with_delimiter
+    assert_equal [ '(1,1),(0,0)', '(2,2),(1,1)' ], ArJdbc::PostgreSQL.parse_pg_array('{(1,1),(0,0);(2,2),(1,1)}', ';')
+  end
+
+  def test_same_as_ruby_parser
+    parser = Object.new.extend(ActiveRecord::ConnectionAdapters::PostgreSQL::ArrayParser)
+    [ '{}', '{a,b}', '{"a,b",c}', '{{"{x}",y},{NULL,""}}', '{"\\\\","\\""}' ].each do |literal|
+      assert_equal parser.parse_pg_array(literal), parse(literal), literal
+    end
+  end
+
+  def test_select_string_arrays
+    rows = connection.select_rows %q{SELECT ARRAY['a', 'b c', NULL, 'd"e', 'NULL']::varchar[], '{{x,y},{z,NULL}}'::text[], NULL::text[], '{"{\"a\": 1}",NULL}'::jsonb[]}
+    assert_equal [ 'a', 'b c', nil, 'd"e', 'NULL' ], rows[0][0]
+    assert_equal [ [ 'x', 'y' ], [ 'z', nil ] ], rows[0][1]
+    assert_nil rows[0][2]
+    assert_equal [ '{"a": 1}', nil ], parse(rows[0][3]) # jsonb[] (other base type) returned as a string
+  end
+
+  private
+
+  def parse(string)
+    ArJdbc::PostgreSQL.parse_pg_array(string)
+  end
+
+end
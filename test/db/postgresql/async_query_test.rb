@@ -0,0 +1,57 @@
+require 'db/postgres'
+
+class PostgreSQLAsyncQueryTest < Test::Unit::TestCase
+
+  def test_exec_query_async
+    query = connection.exec_query_async('SELECT 42 AS answer')
+    result = query.value
+    assert_kind_of ActiveRecord::Result, result
+    assert_equal [ 'answer' ], result.columns
+    assert_equal 42, result.rows.first.first.to_i
+    assert query.done?
+  end
+
+  def test_exec_query_async_with_binds
+    bind = ActiveRecord::Relation::QueryAttribute.new('n', 21, ActiveModel::Type::Integer.new)
+    result = connection.exec_query_async('SELECT 2 * $1::integer AS n', 'SQL', [ bind ]).value
+    assert_equal 42, result.rows.first.first.to_i
+  end
+
+  def test_errors_are_raised_on_value
+    query = connection.exec_query_async('SELECT * FROM no_such_table')
+    assert_raise(ActiveRecord::StatementInvalid) { query.value }
+  end
+
+  def test_exec_query_async_runs_synchronously_without_a_pool
+    query = connection.exec_query_async('SELECT 1 AS one')
+    assert query.done?
+    assert_equal 1, query.value.rows.first.first.to_i
+  end
+
+  def test_pooled_connections_are_configured
+    with_connection_config(jdbc_pool: { max_size: 5 }, variables: { 'statement_timeout' => '12345' }) do |connection|
+      queries = Array.new(3) { connection.exec_query_async('SHOW statement_timeout') }
+      queries.each { |query| assert_equal '12345ms', query.value.rows.first.first }
+    end
+  end
+
+  def test_cancel_running_query
+    with_connection_config(jdbc_pool: { max_size: 5 }) do |connection|
+      query = connection.exec_query_async('SELECT pg_sleep(10)')
+      sleep 0.3 # let it start
+      assert query.cancel
+      assert query.cancelled?
+      assert_raise(ActiveRecord::StatementInvalid) { query.value(5) }
+    end
+  end
+
+  def test_pooled_queries_overlap
+    with_connection_config(jdbc_pool: { max_size: 5 }) do |connection|
+      started = Time.now
+      queries = Array.new(3) { connection.exec_query_async('SELECT pg_sleep(0.5)') }
+      queries.each(&:value)
+      assert Time.now - started < 1.4, "queries did not run concurrently"
+    end
+  end
+
+end
@@ -8,4 +8,26 @@ class PostgresBinaryTest < Test::Unit::TestCase
     pend '#825 tracks this failure, we do not support binary data with prepared statements at this point' if ActiveRecord::Base.connection.prepared_statements
     super
   end
+
+  def test_unescape_bytea
+    assert_equal "\x00\x01\xAB\xff".b, ArJdbc::PostgreSQL.unescape_bytea('\x0001aBFf')
+    assert_equal 'a\\b'.b, ArJdbc::PostgreSQL.unescape_bytea('a\\\\b')
+    assert_equal "\x00\xff'".b, ArJdbc::PostgreSQL.unescape_bytea('\\000\\377\'')
+    assert_equal '', ArJdbc::PostgreSQL.unescape_bytea('\x')
+    assert_equal '', ArJdbc::PostgreSQL.unescape_bytea('')
+  end
+
+  def test_unescape_malformed_bytea
+    assert_raise(ArgumentError) { ArJdbc::PostgreSQL.unescape_bytea('\x012') }
+    assert_raise(ArgumentError) { ArJdbc::PostgreSQL.unescape_bytea('\x0g') }
+    assert_raise(ArgumentError) { ArJdbc::PostgreSQL.unescape_bytea('abc\\') }
+    assert_raise(ArgumentError) { ArJdbc::PostgreSQL.unescape_bytea('\\09') }
+  end
+
+  def test_select_large_bytea
+    rows = ActiveRecord::Base.connection.select_rows "SELECT decode(repeat('00ff7f80', 1024 * 1024), 'hex'), NULL::bytea"
+    assert_equal 4 * 1024 * 1024, rows[0][0].bytesize
+    assert_equal "\x00\xff\x7f\x80".b * 1024, rows[0][0][0, 4096].b
+    assert_nil rows[0][1]
+  end
 end
@@ -0,0 +1,44 @@
+require 'db/postgres'
+
+class PostgreSQLBinaryTransferTest < Test::Unit::TestCase
+
+  SQL = "SELECT $1::int + 1 AS i, $1::int2 AS s, ($1::int8 * 10000000000) AS b, $1::float8 / 4 AS f, " <<
+    "$1::float4 / 2 AS r, '2018-03-11 02:30:15.123456'::timestamp + ($1 || ' days')::interval AS ts, " <<
+    "'2018-03-11 02:30:15.123456+00'::timestamptz AS tz, DATE '2018-03-11' + $1::int AS d, " <<
+    "'23:59:58.5'::time AS t, 'infinity'::timestamp AS inf, '-infinity'::date AS ninf, " <<
+    "'0001-12-31 22:59:59 BC'::timestamp AS bc, DATE '0001-12-31 BC' AS bcd"
+
+  def test_same_values_with_binary_transfer
+    binary = with_connection_config(binary_transfer: true, prepared_statements: true) { |connection| select_values(connection) }
+    text = with_connection_config(binary_transfer: false, prepared_statements: true) { |connection| select_values(connection) }
+
+    assert_equal 1, binary.uniq.size
+    assert_equal text.last.size, binary.last.size
+    binary.last.each_with_index do |value, i|
+      if value.is_a?(Time)
+        assert_equal text.last[i].to_r, value.to_r, "column #{i} differs"
+      else
+        assert_equal text.last[i], value, "column #{i} differs"
+      end
+    end
+
+    row = binary.last
+    assert_equal [ 2, 1, 10000000000, 0.25, 0.5 ], row[0, 5]
+    assert_equal [ 2018, 3, 12, 2, 30, 15, 123456 ], [ :year, :month, :day, :hour, :min, :sec, :usec ].map { |m| row[5].send(m) }
+    assert_equal Time.utc(2018, 3, 11, 2, 30, 15, 123456).to_r, row[6].to_r
+    assert_equal Date.new(2018, 3, 12), row[7]
+    assert_equal [ 23, 59, 58, 500000 ], [ row[8].hour, row[8].min, row[8].sec, row[8].usec ]
+    assert_equal Float::INFINITY, row[9]
+    assert_equal(-Float::INFINITY, row[10])
+    assert_equal 0, row[11].year
+  end
+
+  private
+
+  def select_values(connection)
+    bind = ActiveRecord::Relation::QueryAttribute.new('n', 1, ActiveModel::Type::Integer.new)
+    # NOTE: binary transfer only with server prepared statements (after prepareThreshold executions)
+    10.times.map { connection.exec_query(SQL, 'SQL', [ bind ]).rows.first }
+  end
+
+end
@@ -0,0 +1,47 @@
+require 'db/postgres'
+
+class PostgreSQLBindTypeTest < Test::Unit::TestCase
+
+  def setup
+    super
+    connection.execute('drop table if exists bind_types')
+    connection.execute('create table bind_types(id serial primary key, num integer, uuid uuid)')
+  end
+
+  def teardown
+    connection.execute('drop table if exists bind_types')
+    super
+  end
+
+  def test_binds_sharing_a_type_resolve_to_the_same_jdbc_type
+    type = ActiveModel::Type::Integer.new
+    3.times do |i|
+      connection.exec_insert('INSERT INTO bind_types (num) VALUES (?)', nil, [ bind('num', i, type) ])
+    end
+    assert_equal [ 0, 1, 2 ], connection.select_values('SELECT num FROM bind_types ORDER BY num')
+  end
+
+  def test_untyped_binds_resolve_by_value
+    type = ActiveModel::Type::Value.new
+    uuid = 'a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11'
+    connection.exec_insert('INSERT INTO bind_types (num, uuid) VALUES (?, ?)', nil, [ bind('num', 42, type), bind('uuid', uuid, type) ])
+    assert_equal [ 42, uuid ], connection.select_rows('SELECT num, uuid FROM bind_types').first
+  end
+
+  def test_binds_resolve_after_type_map_reload
+    type = ActiveModel::Type::Integer.new
+    connection.exec_insert('INSERT INTO bind_types (num) VALUES (?)', nil, [ bind('num', 1, type) ])
+
+    connection.send(:reload_type_map)
+
+    connection.exec_insert('INSERT INTO bind_types (num) VALUES (?)', nil, [ bind('num', 2, type) ])
+    assert_equal [ 1, 2 ], connection.select_values('SELECT num FROM bind_types ORDER BY num')
+  end
+
+  private
+
+  def bind(name, value, type)
+    ActiveRecord::Relation::QueryAttribute.new(name, value, type)
+  end
+
+end
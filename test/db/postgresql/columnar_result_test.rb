@@ -0,0 +1,35 @@
+require 'db/postgres'
+
+class PostgreSQLColumnarResultTest < Test::Unit::TestCase
+
+  def setup
+    super
+    connection.execute('drop table if exists columnar')
+    connection.execute('create table columnar(id serial primary key, num integer, big bigint, ' <<
+                       'amount float, flag boolean, created_at timestamp, day date, data character varying(255))')
+    connection.execute("INSERT INTO columnar (num, big, amount, flag, created_at, day, data) " <<
+                       "VALUES (42, 9223372036854775807, 1.5, true, '2017-11-20 10:20:30.123456', '2017-11-20', 'ěščř')")
+    connection.execute("INSERT INTO columnar (num, big, amount, flag, created_at, day, data) " <<
+                       "VALUES (0, -1, 0.0, false, 'infinity', '0001-01-01 BC', '')")
+    connection.execute("INSERT INTO columnar (id) VALUES (100)")
+  end
+
+  def teardown
+    connection.execute('drop table if exists columnar')
+    super
+  end
+
+  def test_columnar_results_match_eager_results
+    sql = 'SELECT * FROM columnar ORDER BY id'
+    expected = connection.exec_query(sql)
+
+    with_connection_config(columnar_results: true) do |connection|
+      result = connection.exec_query(sql)
+
+      assert_equal expected.columns, result.columns
+      assert_equal expected.rows, result.rows
+      assert_equal [ 42, 0, nil ], result.rows.map { |row| row[1] }
+    end
+  end
+
+end
@@ -0,0 +1,96 @@
+require 'db/postgres'
+
+class PostgreSQLConnectionPoolTest < Test::Unit::TestCase
+
+  def test_no_pool_stats_by_default
+    assert_nil connection.raw_connection.pool_stats
+  end
+
+  def test_reconnect_reuses_pooled_connection
+    with_connection_config(jdbc_pool: { max_size: 2 }) do |connection|
+      pid = backend_pid(connection)
+      before = connection.raw_connection.pool_stats
+
+      connection.reconnect!
+      assert_equal pid, backend_pid(connection)
+
+      stats = connection.raw_connection.pool_stats
+      assert_equal 0, stats[:created] - before[:created]
+      assert_equal 1, stats[:borrows] - before[:borrows]
+      assert_equal 1, stats[:active]
+      assert_equal 2, stats[:max_size]
+    end
+  end
+
+  def test_disconnect_returns_connection_to_pool
+    with_connection_config(jdbc_pool: { max_size: 2 }) do |connection|
+      connection.disconnect!
+      stats = connection.raw_connection.pool_stats
+      assert_equal 0, stats[:active]
+      assert stats[:idle] >= 1
+      assert_equal 0, stats[:waiters]
+    end
+  end
+
+  def test_returned_connection_gets_rolled_back
+    with_connection_config(jdbc_pool: { max_size: 1 }) do |connection|
+      connection.execute 'CREATE TEMP TABLE pooled (id integer)'
+      connection.begin_db_transaction
+      connection.execute 'INSERT INTO pooled VALUES (1)'
+      connection.reconnect! # without commit
+
+      assert_equal 0, connection.select_value('SELECT COUNT(*) FROM pooled').to_i
+      assert connection.raw_connection.connection.getAutoCommit
+    end
+  end
+
+  def test_checkout_times_out_when_exhausted
+    with_connection_config(jdbc_pool: { max_size: 1, checkout_timeout: 0.2 }) do |connection|
+      assert_raise ActiveRecord::ActiveRecordError do # the only pooled connection is in use
+        ActiveRecord::Base.postgresql_connection(ActiveRecord::Base.connection_config)
+      end
+      assert connection.raw_connection.pool_stats[:timeouts] >= 1
+    end
+  end
+
+  def test_statement_returns_pooled_connection
+    with_connection_config(jdbc_pool: { max_size: 2 }) do |connection|
+      jdbc_connection = connection.raw_connection.connection
+      statement = jdbc_connection.createStatement
+      begin
+        assert jdbc_connection.equals(statement.getConnection)
+      ensure
+        statement.close
+      end
+    end
+  end
+
+  def test_configs_differing_in_properties_use_separate_pools
+    pool = { max_size: 1, checkout_timeout: 0.2 }
+    with_connection_config(jdbc_pool: pool, properties: { 'ApplicationName' => 'pooled_a' }) do |connection|
+      config = ActiveRecord::Base.connection_config.merge(properties: { 'ApplicationName' => 'pooled_b' })
+      other = ActiveRecord::Base.postgresql_connection(config) # would time out on a shared pool
+      begin
+        assert_equal 'pooled_a', connection.select_value('SHOW application_name')
+        assert_equal 'pooled_b', other.select_value('SHOW application_name')
+      ensure
+        other.disconnect!
+      end
+    end
+  end
+
+  def test_invalid_pool_option
+    with_connection_removed do |orig_connection|
+      assert_raise ArgumentError do
+        ActiveRecord::Base.postgresql_connection(orig_connection.merge(jdbc_pool: { idle_timeout: 'never' }))
+      end
+    end
+  end
+
+  private
+
+  def backend_pid(connection)
+    connection.select_value('SELECT pg_backend_pid()').to_i
+  end
+
+end
@@ -0,0 +1,51 @@
+require 'db/postgres'
+
+class PostgreSQLConnectionValidationTest < Test::Unit::TestCase
+
+  def test_validates_on_every_check_by_default
+    connection.execute 'SELECT 1'
+    before = connection.raw_connection.validation_stats
+    assert connection.active?
+    assert connection.active?
+
+    stats = connection.raw_connection.validation_stats
+    assert_equal 2, stats[:validations] - before[:validations]
+    assert_equal 0, stats[:skipped] - before[:skipped]
+  end
+
+  def test_skips_validation_within_alive_window
+    with_connection_config(connection_alive_window: 60) do |connection|
+      connection.execute 'SELECT 1'
+      before = connection.raw_connection.validation_stats
+      3.times { assert connection.active? }
+
+      stats = connection.raw_connection.validation_stats
+      assert_equal 0, stats[:validations] - before[:validations]
+      assert_equal 3, stats[:skipped] - before[:skipped]
+    end
+  end
+
+  def test_failure_is_validated_within_alive_window
+    with_connection_config(connection_alive_window: 60) do |connection|
+      connection.execute 'SELECT 1'
+      before = connection.raw_connection.validation_stats
+      assert_raise(ActiveRecord::StatementInvalid) { connection.execute 'SELECT * FROM no_such_table' }
+      assert connection.active? # validated due the failure
+
+      stats = connection.raw_connection.validation_stats
+      assert_equal 1, stats[:validations] - before[:validations]
+      assert_equal 1, stats[:skipped] - before[:skipped]
+      assert_equal 0, stats[:failures] - before[:failures]
+    end
+  end
+
+
+  def test_invalid_alive_window
+    [ 'a minute', -1 ].each do |window|
+      assert_raise(ArgumentError) do
+        with_connection_config(connection_alive_window: window) { |connection| connection.execute 'SELECT 1' }
+      end
+    end
+  end
+
+end
@@ -0,0 +1,79 @@
+require 'db/postgres'
+require 'stringio'
+
+class PostgreSQLCopyTest < Test::Unit::TestCase
+
+  def setup
+    super
+    connection.execute('drop table if exists copied')
+    connection.execute('create table copied(id integer primary key, data character varying(255))')
+  end
+
+  def teardown
+    connection.execute('drop table if exists copied')
+    super
+  end
+
+  def test_copy_from_io
+    io = StringIO.new("1\tfirst\n2\t\\N\n3\ttab\\tbed\n")
+    assert_equal 3, connection.copy_from(:copied, [ :id, :data ], io)
+    assert_equal [ [ 1, 'first' ], [ 2, nil ], [ 3, "tab\tbed" ] ], select_rows
+  end
+
+  def test_copy_from_csv_lines
+    lines = [ "1,\"quoted, comma\"\n", "2,\n" ]
+    assert_equal 2, connection.copy_from('copied', nil, lines, format: :csv)
+    assert_equal [ [ 1, 'quoted, comma' ], [ 2, nil ] ], select_rows
+  end
+
+  def test_copy_from_row_arrays
+    rows = Enumerator.new { |y| y << [ 1, "back\\slash" ] << [ 2, nil ] << [ 3, "new\nline" ] }
+    assert_equal 3, connection.copy_from(:copied, %w(id data), rows)
+    assert_equal [ [ 1, "back\\slash" ], [ 2, nil ], [ 3, "new\nline" ] ], select_rows
+
+    connection.execute('DELETE FROM copied')
+    assert_equal 2, connection.copy_from(:copied, %w(id data), [ [ 1, '"q"' ], [ 2, '' ] ], format: :csv)
+    assert_equal [ [ 1, '"q"' ], [ 2, '' ] ], select_rows
+  end
+
+  def test_copy_to_io
+    connection.execute("INSERT INTO copied VALUES (1, 'first'), (2, NULL)")
+    io = StringIO.new
+    assert_equal 2, connection.copy_to(:copied, io)
+    assert_equal "1\tfirst\n2\t\\N\n", io.string
+  end
+
+  def test_copy_to_yields_query_output
+    connection.execute("INSERT INTO copied VALUES (1, 'first'), (2, 'sec,ond')")
+    chunks = []
+    count = connection.copy_to('SELECT data FROM copied ORDER BY id', format: :csv) { |chunk| chunks << chunk }
+    assert_equal 2, count
+    assert_equal "first\n\"sec,ond\"\n", chunks.join
+    assert_equal Encoding::UTF_8, chunks.first.encoding
+  end
+
+  def test_copy_from_is_not_retried_on_a_broken_connection
+    pid = connection.select_value('SELECT pg_backend_pid()').to_i
+    other = ActiveRecord::Base.postgresql_connection(ActiveRecord::Base.connection_config)
+    iterations = 0
+    rows = Enumerator.new do |y|
+      iterations += 1
+      y << [ 1, 'first' ]
+      other.select_value("SELECT pg_terminate_backend(#{pid})")
+      sleep 0.1
+      y << [ 2, 'second' ]
+    end
+    assert_raise(ActiveRecord::StatementInvalid) { connection.copy_from(:copied, nil, rows) }
+    assert_equal 1, iterations
+  ensure
+    other.disconnect! if other
+    connection.reconnect!
+  end
+
+  private
+
+  def select_rows
+    connection.select_rows('SELECT id, data FROM copied ORDER BY id')
+  end
+
+end
@@ -0,0 +1,49 @@
+require 'db/postgres'
+
+class PostgreSQLDictionaryStringsTest < Test::Unit::TestCase
+
+  def setup
+    super
+    connection.execute('drop table if exists dictionary')
+    connection.execute('create table dictionary(id serial primary key, status varchar(20), name varchar(20))')
+    values = Array.new(10) { |i| "('#{i.even? ? 'active' : 'archived'}', 'name #{i}')" }
+    connection.execute("INSERT INTO dictionary (status, name) VALUES #{values.join(', ')}")
+  end
+
+  def teardown
+    connection.execute('drop table if exists dictionary')
+    super
+  end
+
+  def test_equal_values_share_frozen_strings
+    rows = connection.with_dictionary_strings { connection.select_rows('SELECT status FROM dictionary ORDER BY id') }
+
+    assert_equal %w( active archived ) * 5, rows.flatten
+    assert rows[0][0].frozen?
+    assert_same rows[0][0], rows[2][0]
+    assert_same rows[1][0], rows[3][0]
+  end
+
+  def test_gives_up_on_too_many_distinct_values
+    rows = connection.with_dictionary_strings(3) { connection.select_rows('SELECT status, name FROM dictionary ORDER BY id') }
+
+    assert_same rows[0][0], rows[8][0] # status stays encoded
+    assert_equal Array.new(10) { |i| "name #{i}" }, rows.map(&:last)
+    assert rows.map(&:last).all?(&:frozen?) # name gave up, values are still frozen
+  end
+
+  def test_restores_previous_setting
+    connection.raw_connection.dictionary_strings = 5
+    connection.with_dictionary_strings { connection.select_rows('SELECT status FROM dictionary') }
+    assert_equal 5, connection.raw_connection.dictionary_strings
+  ensure
+    connection.raw_connection.dictionary_strings = false
+  end
+
+  def test_off_by_default
+    rows = connection.select_rows('SELECT status FROM dictionary ORDER BY id')
+    assert_not_same rows[0][0], rows[2][0]
+    assert_equal 0, connection.raw_connection.dictionary_strings
+  end
+
+end
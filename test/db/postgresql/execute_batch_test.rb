@@ -0,0 +1,13 @@
+require 'db/postgres'
+require 'execute_batch'
+
+class PostgreSQLExecuteBatchTest < Test::Unit::TestCase
+  include ExecuteBatchTestMethods
+
+  def test_exec_batch_generated_keys
+    counts, keys = connection.exec_batch(insert_sql, nil, binds_list(3), generated_keys: true)
+    assert_equal [ 1, 1, 1 ], counts
+    assert_equal connection.select_values('SELECT id FROM batched ORDER BY id'), keys.map { |row| row['id'] }
+  end
+
+end
@@ -0,0 +1,54 @@
+require 'db/postgres'
+
+class PostgreSQLExecutionMetricsTest < Test::Unit::TestCase
+
+  def test_no_metrics_by_default
+    assert_nil connection.raw_connection.execution_metrics
+  end
+
+  def test_metrics
+    with_connection_config(metrics: true) do |connection|
+      connection.execute 'CREATE TEMP TABLE measured (id serial primary key, name varchar(100))'
+      before = connection.raw_connection.execution_metrics
+      connection.exec_insert "INSERT INTO measured (name) VALUES ('foo')"
+      connection.exec_update "UPDATE measured SET name = 'bar'"
+      result = connection.exec_query "SELECT name FROM measured"
+      assert_equal [ [ 'bar' ] ], result.rows
+
+      metrics = connection.raw_connection.execution_metrics
+      assert_equal 1, metrics[:queries][:insert] - before[:queries][:insert]
+      assert_equal 1, metrics[:queries][:update] - before[:queries][:update]
+      assert_equal 1, metrics[:queries][:query] - before[:queries][:query]
+      assert_equal 1, metrics[:rows] - before[:rows]
+      assert_equal 3, metrics[:bytes] - before[:bytes]
+      assert metrics[:driver_time] >= metrics[:execute_time]
+      assert metrics[:conversion_time] >= 0
+    end
+  end
+
+  def test_lazy_results_metrics
+    with_connection_config(metrics: true, lazy_results: true) do |connection|
+      before = connection.raw_connection.execution_metrics
+      result = connection.exec_query "SELECT 'foo' AS name UNION ALL SELECT 'bar'"
+      assert_equal [ [ 'foo' ], [ 'bar' ] ], result.rows
+
+      metrics = connection.raw_connection.execution_metrics
+      assert_equal 2, metrics[:rows] - before[:rows]
+      assert metrics[:driver_time] >= metrics[:execute_time]
+      assert metrics[:conversion_time] >= before[:conversion_time]
+    end
+  end
+
+  def test_aggregate_metrics_mbean
+    with_connection_config(metrics: true) do |connection|
+      connection.exec_query 'SELECT 1'
+      aggregate = connection.raw_connection.execution_metrics(true)
+      assert aggregate[:queries][:query] >= connection.raw_connection.execution_metrics[:queries][:query]
+
+      server = java.lang.management.ManagementFactory.getPlatformMBeanServer
+      names = server.queryNames(javax.management.ObjectName.new('arjdbc:type=ExecutionMetrics,*'), nil)
+      assert ! names.isEmpty
+    end
+  end
+
+end
@@ -0,0 +1,54 @@
+require 'db/postgres'
+
+class PostgreSQLFlightEventsTest < Test::Unit::TestCase
+
+  def setup
+    begin
+      java.lang.Class.forName('jdk.jfr.Recording')
+    rescue java.lang.ClassNotFoundException
+      omit 'JFR not available'
+    end
+  end
+
+  def test_query_events
+    events = record('arjdbc.Query', 'arjdbc.ResultMapping') do
+      connection.exec_query "SELECT 1 AS one WHERE 'x' = 'x'"
+    end
+    query = events.find { |e| e.getEventType.getName == 'arjdbc.Query' && e.getString('sql') =~ /AS one/ }
+    assert query, "no arjdbc.Query event recorded"
+    assert_equal 'SELECT ? AS one WHERE ? = ?', query.getString('sql')
+    assert_equal 'query', query.getString('kind')
+    mapping = events.find { |e| e.getEventType.getName == 'arjdbc.ResultMapping' }
+    assert mapping, "no arjdbc.ResultMapping event recorded"
+  end
+
+  def test_connection_acquire_event_hides_credentials
+    config = ActiveRecord::Base.connection_config
+    url = "jdbc:postgresql://#{config[:host] || 'localhost'}:#{config[:port] || 5432}/#{config[:database]}"
+    events = record('arjdbc.ConnectionAcquire') do
+      with_connection_config(url: "#{url}?password=#{config[:password]}&ApplicationName=secret") do |connection|
+        connection.select_value('SELECT 1')
+      end
+    end
+    acquire = events.find { |e| e.getEventType.getName == 'arjdbc.ConnectionAcquire' }
+    assert acquire, "no arjdbc.ConnectionAcquire event recorded"
+    assert_equal url, acquire.getString('factory')
+  end
+
+  private
+
+  def record(*names)
+    recording = Java::JdkJfr::Recording.new
+    names.each { |name| recording.enable(name).withoutThreshold }
+    recording.start
+    yield
+    recording.stop
+    file = java.io.File.createTempFile('arjdbc', '.jfr')
+    recording.dump(file.toPath)
+    Java::JdkJfrConsumer::RecordingFile.readAllEvents(file.toPath).to_a
+  ensure
+    recording.close if recording
+    file.delete if file
+  end
+
+end
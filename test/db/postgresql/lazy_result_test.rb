@@ -0,0 +1,57 @@
+require 'db/postgres'
+
+class PostgreSQLLazyResultTest < Test::Unit::TestCase
+
+  def setup
+    super
+    connection.execute('drop table if exists lazy_rows')
+    connection.execute('create table lazy_rows(id serial primary key, num integer, data character varying(255))')
+    connection.execute("INSERT INTO lazy_rows (num, data) VALUES (1, 'one'), (2, 'two'), (NULL, NULL)")
+  end
+
+  def teardown
+    connection.execute('drop table if exists lazy_rows')
+    super
+  end
+
+  def test_lazy_result_behaves_like_eager_result
+    sql = 'SELECT num, data FROM lazy_rows ORDER BY id'
+    expected = connection.exec_query(sql)
+
+    with_connection_config(lazy_results: true) do |connection|
+      result = connection.exec_query(sql)
+      assert_kind_of ArJdbc::LazyResult, result
+
+      assert_equal 3, result.length
+      assert ! result.empty?
+      assert_equal({ 'num' => 1, 'data' => 'one' }, result.first)
+      assert_equal({ 'num' => nil, 'data' => nil }, result.last)
+
+      assert_equal expected.columns, result.columns
+      assert_equal expected.rows, result.rows
+      assert_equal expected.to_a, result.to_a
+      assert_equal expected.map { |row| row['num'] }, result.map { |row| row['num'] }
+    end
+  end
+
+  def test_lazy_booleans_and_bits
+    sql = "SELECT true AS t, false AS f, NULL::boolean AS n, B'1'::bit(1) AS b, B'0101'::bit(4) AS bits"
+    expected = connection.exec_query(sql)
+
+    with_connection_config(lazy_results: true) do |connection|
+      result = connection.exec_query(sql)
+      assert_equal expected.rows, result.rows
+      assert_equal [ true, false, nil ], result.rows.first[0, 3]
+      assert_equal Encoding::UTF_8, result.rows.first[4].encoding
+    end
+  end
+
+  def test_lazy_decimals
+    sql = "SELECT 1.50::numeric(10,2) AS d UNION ALL SELECT NULL"
+    with_connection_config(lazy_results: true) do |connection|
+      result = connection.exec_query(sql)
+      assert_equal [ [ BigDecimal('1.5') ], [ nil ] ], result.rows
+    end
+  end
+
+end
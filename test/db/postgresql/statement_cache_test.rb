@@ -0,0 +1,114 @@
+require 'db/postgres'
+
+class PostgreSQLStatementCacheTest < Test::Unit::TestCase
+
+  def setup
+    super
+    connection.execute('drop table if exists cached')
+    connection.execute('create table cached(id serial primary key, num integer)')
+  end
+
+  def teardown
+    connection.execute('drop table if exists cached')
+    super
+  end
+
+  def test_statements_are_cached_for_all_prepared_paths
+    with_connection_config(statement_limit: 10, prepared_statements: true) do |connection|
+      before = connection.statement_cache_stats
+      3.times do |i|
+        connection.exec_insert('INSERT INTO cached (num) VALUES (?)', nil, [ bind(i) ])
+        connection.exec_update('UPDATE cached SET num = num WHERE num = ?', nil, [ bind(i) ])
+        connection.exec_query('SELECT * FROM cached WHERE num = ?', nil, [ bind(i) ], prepare: true)
+      end
+
+      stats = connection.statement_cache_stats
+      assert_equal 3, stats[:misses] - before[:misses]
+      assert_equal 6, stats[:hits] - before[:hits]
+      assert_equal 10, stats[:limit]
+    end
+  end
+
+  def test_least_recently_used_statements_get_evicted
+    with_connection_config(statement_limit: 2, prepared_statements: true) do |connection|
+      connection.clear_cache!
+      before = connection.statement_cache_stats
+      sql = Array.new(3) { |i| "SELECT #{i} AS n FROM cached WHERE num = ?" }
+      sql.each { |query| connection.exec_query(query, nil, [ bind(1) ], prepare: true) }
+      connection.exec_query(sql.last, nil, [ bind(1) ], prepare: true)
+
+      stats = connection.statement_cache_stats
+      assert_equal 1, stats[:evictions] - before[:evictions]
+      assert_equal 2, stats[:size]
+      assert_equal 1, stats[:hits] - before[:hits]
+    end
+  end
+
+  def test_cache_is_cleared_on_reconnect
+    with_connection_config(statement_limit: 5, prepared_statements: true) do |connection|
+      connection.exec_query('SELECT * FROM cached WHERE num = ?', nil, [ bind(1) ], prepare: true)
+      assert connection.statement_cache_stats[:size] > 0
+
+      connection.reconnect!
+      assert_equal 0, connection.statement_cache_stats[:size]
+      assert_equal [], connection.exec_query('SELECT * FROM cached WHERE num = ?', nil, [ bind(1) ], prepare: true).rows
+    end
+  end
+
+  def test_result_column_names_are_shared_between_executions
+    with_connection_config(statement_limit: 5, prepared_statements: true) do |connection|
+      sql = 'SELECT id, num AS number FROM cached WHERE num = ?'
+      result1 = connection.exec_query(sql, nil, [ bind(1) ], prepare: true)
+      result2 = connection.exec_query(sql, nil, [ bind(2) ], prepare: true)
+
+      assert_equal [ 'id', 'number' ], result2.columns
+      assert result2.columns.all?(&:frozen?)
+      assert_same result1.columns.first, result2.columns.first
+
+      result1.columns.delete('number') # e.g. Oracle's select
+      assert_equal [ 'id', 'number' ], result2.columns
+    end
+  end
+
+  def test_result_columns_follow_table_changes
+    with_connection_config(statement_limit: 5, prepared_statements: true) do |connection|
+      sql = 'SELECT * FROM cached WHERE num = ?'
+      assert_equal [ 'id', 'num' ], connection.exec_query(sql, nil, [ bind(1) ], prepare: true).columns
+
+      connection.execute('ALTER TABLE cached ADD COLUMN data varchar(100)')
+      assert_equal [ 'id', 'num', 'data' ], connection.exec_query(sql, nil, [ bind(1) ], prepare: true).columns
+    end
+  end
+
+  def test_cached_insert_is_retried_when_result_type_changes
+    config = { statement_limit: 5, prepared_statements: true, properties: { 'prepareThreshold' => 1 } }
+    with_connection_config(config) do |connection|
+      sql = 'INSERT INTO cached (num) VALUES (?) RETURNING *'
+      2.times { |i| connection.exec_insert(sql, nil, [ bind(i) ]) } # server prepared
+
+      connection.execute('ALTER TABLE cached ADD COLUMN data varchar(100)')
+      connection.exec_insert(sql, nil, [ bind(2) ])
+      assert_equal 3, connection.select_value('SELECT COUNT(*) FROM cached').to_i
+    end
+  end
+
+  def test_invalid_statement_limit
+    assert_raise(ArgumentError) do
+      with_connection_config(statement_limit: 'many', prepared_statements: true) { |connection| connection.execute('SELECT 1') }
+    end
+  end
+
+  def test_no_statement_cache_with_zero_limit
+    with_connection_config(statement_limit: 0, prepared_statements: true) do |connection|
+      assert_false connection.supports_statement_cache?
+      assert_nil connection.statement_cache_stats
+    end
+  end
+
+  private
+
+  def bind(value)
+    ActiveRecord::Relation::QueryAttribute.new('num', value, ActiveModel::Type::Integer.new)
+  end
+
+end
@@ -0,0 +1,46 @@
+require 'db/postgres'
+
+class PostgreSQLStatementStatsTest < Test::Unit::TestCase
+
+  def test_statement_stats
+    with_connection_config(statement_stats: true) do |connection|
+      connection.execute 'CREATE TEMP TABLE stated (id serial primary key, name varchar(100))'
+      connection.execute "INSERT INTO stated (name) VALUES ('foo'), ('bar')"
+      ArJdbc.reset_statement_stats
+
+      connection.exec_query "SELECT * FROM stated WHERE id IN (1, 2) AND name <> 'x'"
+      connection.exec_query "SELECT * FROM stated WHERE id IN (3) AND name <> 'yy'"
+
+      stats = ArJdbc.statement_stats
+      entry = stats['SELECT * FROM stated WHERE id IN (?) AND name <> ?']
+      assert entry, "no stats for fingerprint in: #{stats.keys.inspect}"
+      assert_equal 2, entry[:calls]
+      assert_equal 0, entry[:errors]
+      assert_equal 2, entry[:rows]
+      assert_equal 2, entry[:max_rows]
+      assert entry[:max_time] >= entry[:min_time]
+      assert entry[:p99_time] >= entry[:p50_time]
+    end
+  end
+
+  def test_escape_string_literals
+    with_connection_config(statement_stats: true) do |connection|
+      ArJdbc.reset_statement_stats
+      connection.select_value "SELECT 1 WHERE E'O\\'Brien' <> 'x' AND 2 > 1"
+      connection.select_value "SELECT 1 WHERE e'\\\\' <> 'y' AND 3 > 1"
+
+      stats = ArJdbc.statement_stats
+      assert_equal [ 'SELECT ? WHERE ? <> ? AND ? > ?' ], stats.keys
+      assert_equal 2, stats.values.first[:calls]
+    end
+  end
+
+  def test_statement_errors
+    with_connection_config(statement_stats: true) do |connection|
+      ArJdbc.reset_statement_stats
+      assert_raise(ActiveRecord::StatementInvalid) { connection.execute 'SELECT * FROM missing_table' }
+      assert_equal 1, ArJdbc.statement_stats['SELECT * FROM missing_table'][:errors]
+    end
+  end
+
+end
@@ -0,0 +1,52 @@
+require 'db/postgres'
+require 'timeout'
+
+class PostgreSQLStatementTimeoutTest < Test::Unit::TestCase
+
+  def test_no_statement_timeout_by_default
+    assert_equal 0, connection.raw_connection.statement_timeout
+  end
+
+  def test_configured_statement_timeout
+    with_connection_config(statement_timeout: 1) do |connection|
+      assert_equal 1, connection.raw_connection.statement_timeout
+      assert_raise(ActiveRecord::StatementInvalid) { connection.execute 'SELECT pg_sleep(3)' }
+      assert_equal 1, connection.select_value('SELECT 1').to_i # still usable
+    end
+  end
+
+  def test_with_statement_timeout
+    connection.with_statement_timeout(1) do
+      assert_raise(ActiveRecord::StatementInvalid) { connection.select_value 'SELECT pg_sleep(3)' }
+    end
+    assert_equal 0, connection.raw_connection.statement_timeout
+  end
+
+  def test_invalid_statement_timeout
+    assert_raise(ArgumentError) { connection.raw_connection.statement_timeout = 'soon' }
+    assert_raise(ArgumentError) { connection.with_statement_timeout('soon') { flunk } }
+    assert_equal 0, connection.raw_connection.statement_timeout
+  end
+
+  def test_string_statement_timeout
+    connection.raw_connection.statement_timeout = '1.5'
+    assert_equal 2, connection.raw_connection.statement_timeout
+  ensure
+    connection.raw_connection.statement_timeout = nil
+  end
+
+  def test_execute_update_raises_when_rows_returned
+    assert_raise(ActiveRecord::StatementInvalid) { connection.raw_connection.execute_update 'SELECT 1' }
+  end
+
+  def test_ruby_timeout_cancels_statement
+    started = Time.now
+    assert_raise(Timeout::Error) do
+      Timeout.timeout(0.5) { connection.execute 'SELECT pg_sleep(5)' }
+    end
+    assert Time.now - started < 3, 'statement was not cancelled'
+    # connection is not busy with the previous query :
+    assert_equal 1, connection.select_value('SELECT 1').to_i
+  end
+
+end
@@ -0,0 +1,60 @@
+require 'db/postgres'
+
+class PostgreSQLStreamQueryTest < Test::Unit::TestCase
+
+  def setup
+    super
+    connection.execute('drop table if exists streamed')
+    connection.execute('create table streamed(id serial primary key, num integer)')
+    connection.execute('INSERT INTO streamed (num) SELECT n FROM generate_series(1, 250) n')
+  end
+
+  def teardown
+    connection.execute('drop table if exists streamed')
+    super
+  end
+
+  def test_stream_query_yields_rows
+    nums = []
+    count = connection.stream_query('SELECT num FROM streamed ORDER BY num', fetch_size: 10) do |row|
+      nums << row['num']
+    end
+    assert_equal 250, count
+    assert_equal (1..250).to_a, nums
+    assert connection.raw_connection.connection.getAutoCommit
+  end
+
+  def test_stream_query_yields_batches
+    sizes = []
+    count = connection.stream_query('SELECT num FROM streamed', batch_size: 100) do |batch|
+      sizes << batch.size
+    end
+    assert_equal 250, count
+    assert_equal [ 100, 100, 50 ], sizes
+  end
+
+  def test_stream_query_with_binds
+    sql = 'SELECT num FROM streamed WHERE num > ? ORDER BY num'
+    binds = [ ActiveRecord::Relation::QueryAttribute.new('num', 245, ActiveModel::Type::Integer.new) ]
+    nums = []
+    connection.stream_query(sql, nil, binds, fetch_size: 2) { |row| nums << row['num'] }
+    assert_equal [ 246, 247, 248, 249, 250 ], nums
+  end
+
+  def test_stream_query_is_not_retried_once_rows_got_yielded
+    pid = connection.select_value('SELECT pg_backend_pid()').to_i
+    other = ActiveRecord::Base.postgresql_connection(ActiveRecord::Base.connection_config)
+    yielded = 0
+    assert_raise(ActiveRecord::StatementInvalid) do
+      connection.stream_query('SELECT num FROM streamed ORDER BY num', fetch_size: 10) do |row|
+        yielded += 1
+        other.select_value("SELECT pg_terminate_backend(#{pid})") if yielded == 1
+      end
+    end
+    assert yielded < 250, "rows yielded again (#{yielded})"
+  ensure
+    other.disconnect! if other
+    connection.reconnect!
+  end
+
+end
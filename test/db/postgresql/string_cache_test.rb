@@ -0,0 +1,35 @@
+require 'db/postgres'
+
+class PostgreSQLStringCacheTest < Test::Unit::TestCase
+
+  def setup
+    super
+    connection.execute('drop table if exists cached_names')
+    connection.execute('create table cached_names(id serial primary key, some_name varchar(100))')
+  end
+
+  def teardown
+    connection.execute('drop table if exists cached_names')
+    super
+  end
+
+  def test_column_names_are_shared_frozen_strings
+    name1 = connection.exec_query('SELECT some_name FROM cached_names').columns.first
+    name2 = connection.exec_query('SELECT some_name FROM cached_names WHERE id > 0').columns.first
+
+    assert_equal 'some_name', name1
+    assert name1.frozen?
+    assert_same name1, name2
+  end
+
+  def test_string_cache_stats
+    connection.exec_query('SELECT some_name FROM cached_names')
+    stats = ActiveRecord::ConnectionAdapters::JdbcConnection.string_cache_stats
+
+    assert stats[:hits] + stats[:misses] > 0
+    assert stats[:size] > 0
+    assert stats[:size] <= stats[:capacity]
+    assert_kind_of Float, stats[:hit_rate]
+  end
+
+end
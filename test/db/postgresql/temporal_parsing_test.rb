@@ -0,0 +1,37 @@
+require 'db/postgres'
+
+class PostgreSQLTemporalParsingTest < Test::Unit::TestCase
+
+  def test_timestamp_date_and_time
+    row = connection.select_rows("SELECT '2018-03-11 02:30:15.123456'::timestamp, '1999-12-31'::date, '23:59:58.5'::time").first
+    assert_equal [ 2018, 3, 11, 2, 30, 15, 123456 ], [ :year, :month, :day, :hour, :min, :sec, :usec ].map { |m| row[0].send(m) }
+    assert_equal Date.new(1999, 12, 31), row[1]
+    assert_equal [ 23, 59, 58, 500000 ], [ row[2].hour, row[2].min, row[2].sec, row[2].usec ]
+  end
+
+  def test_time_with_microseconds
+    time = connection.select_value("SELECT '12:34:56.123456'::time")
+    assert_equal [ 12, 34, 56, 123456 ], [ time.hour, time.min, time.sec, time.usec ]
+    assert_equal 123456000, time.nsec
+    assert_equal '12:34:56.123456', time.strftime('%H:%M:%S.%6N')
+  end
+
+  def test_infinity_and_bc
+    row = connection.select_rows("SELECT '-infinity'::timestamp, 'infinity'::date, '0001-12-31 22:59:59 BC'::timestamp").first
+    assert_equal(-Float::INFINITY, row[0])
+    assert_equal Float::INFINITY, row[1]
+    assert_equal 0, row[2].year
+  end
+
+  # NOTE: server prepared statements (after prepareThreshold executions) might use binary transfer
+  def test_same_values_with_server_prepared_statement
+    bind = ActiveRecord::Relation::QueryAttribute.new('n', 1, ActiveModel::Type::Integer.new)
+    sql = "SELECT '2018-03-11 02:30:15.123456'::timestamp + ($1 || ' days')::interval AS ts, DATE '2018-03-11' + $1 AS d"
+    results = 10.times.map { connection.exec_query(sql, 'SQL', [ bind ]).rows.first }
+    assert_equal 1, results.uniq.size
+    assert_equal 12, results.last[0].day
+    assert_equal 123456, results.last[0].usec
+    assert_equal Date.new(2018, 3, 12), results.last[1]
+  end
+
+end
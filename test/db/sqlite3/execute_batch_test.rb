@@ -0,0 +1,6 @@
+require 'db/sqlite3'
+require 'execute_batch'
+
+class SQLite3ExecuteBatchTest < Test::Unit::TestCase
+  include ExecuteBatchTestMethods
+end
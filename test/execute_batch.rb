@@ -0,0 +1 @@
+require 'execute_batch_test_methods'
\ No newline at end of file
@@ -0,0 +1,57 @@
+require 'test_helper'
+
+# JDBC batching (exec_batch) - expected to work the same on all adapters.
+module ExecuteBatchTestMethods
+
+  def setup
+    super
+    connection.create_table(:batched, force: true) do |t|
+      t.integer :num
+      t.string :data
+    end
+  end
+
+  def teardown
+    connection.drop_table(:batched) if connection.table_exists?(:batched)
+    super
+  end
+
+  def test_exec_batch_inserts
+    counts = connection.exec_batch(insert_sql, nil, binds_list(5), batch_size: 2)
+    assert_equal [ 1, 1, 1, 1, 1 ], counts
+    assert_equal [ 0, 1, 2, 3, 4 ], select_nums
+  end
+
+  def test_exec_batch_updates
+    connection.exec_batch(insert_sql, nil, binds_list(3))
+    binds = [ [ bind('num', 1) ], [ bind('num', 42) ] ]
+    sql = "DELETE FROM #{connection.quote_table_name('batched')} WHERE #{connection.quote_column_name('num')} = ?"
+    assert_equal [ 1, 0 ], connection.exec_batch(sql, nil, binds)
+    assert_equal [ 0, 2 ], select_nums
+  end
+
+  def test_exec_batch_empty_binds
+    assert_equal [], connection.exec_batch(insert_sql, nil, [])
+  end
+
+  private
+
+  def insert_sql
+    "INSERT INTO #{connection.quote_table_name('batched')} " <<
+      "(#{connection.quote_column_name('num')}, #{connection.quote_column_name('data')}) VALUES (?, ?)"
+  end
+
+  def select_nums
+    num = connection.quote_column_name('num')
+    connection.select_values("SELECT #{num} FROM #{connection.quote_table_name('batched')} ORDER BY #{num}").map(&:to_i)
+  end
+
+  def binds_list(size)
+    Array.new(size) { |i| [ bind('num', i), bind('data', "data #{i}", ActiveModel::Type::String.new) ] }
+  end
+
+  def bind(name, value, type = ActiveModel::Type::Integer.new)
+    ActiveRecord::Relation::QueryAttribute.new(name, value, type)
+  end
+
+end
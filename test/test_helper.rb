@@ -172,6 +172,15 @@ class Test::Unit::TestCase
     end
   end
 
+  # Re-connects with the given options merged into the current configuration
+  # e.g. `with_connection_config(statement_stats: true) { |connection| ... }`.
+  def with_connection_config(config)
+    with_connection_removed do |orig_config|
+      ActiveRecord::Base.establish_connection(orig_config.merge(config))
+      yield ActiveRecord::Base.connection
+    end
+  end
+
   def self.current_connection_config
     if ActiveRecord::Base.respond_to?(:connection_config)
       ActiveRecord::Base.connection_config